@@ -29,6 +29,9 @@ android {
         // Gemini API 키 등록
         val geminiKey = properties.getProperty("GEMINI_API_KEY", "")
         buildConfigField("String", "GEMINI_API_KEY", "\"$geminiKey\"")
+
+        // Realtime Database 오프라인 캐시 (디스크 저장). false 로 빌드하면 캐시 없는 기준 측정 가능
+        buildConfigField("boolean", "RTDB_PERSISTENCE", "true")
     }
 
     // [3] BuildConfig 기능 켜기 (이미 있다면 패스)
@@ -50,10 +53,20 @@ android {
         targetCompatibility = JavaVersion.VERSION_17
     }
 
+    // JVM 단위 테스트에서 android.jar 의 Log/SystemClock 등은 예외 대신 기본값 반환
+    testOptions {
+        unitTests.isReturnDefaultValues = true
+    }
+
     buildFeatures {
         viewBinding = true
         buildConfig = true
     }
+
+    // 오프라인 제품 DB 는 메모리 매핑하므로 APK 안에서 압축하지 않음
+    androidResources {
+        noCompress += "pdb"
+    }
 }
 
 dependencies {
@@ -104,6 +117,8 @@ dependencies {
 
     // Testing
     testImplementation(libs.junit)
+    testImplementation("com.squareup.okhttp3:mockwebserver:4.12.0")
+    testImplementation(project(":tools:productdb"))   // 빌더 출력 → OfflineProductDb 왕복 테스트
     androidTestImplementation(libs.ext.junit)
     androidTestImplementation(libs.espresso.core)
 
@@ -0,0 +1,24 @@
+package com.example.caloriehunter;
+
+import android.app.Application;
+
+import com.example.caloriehunter.data.repository.FirebaseRepository;
+import com.example.caloriehunter.data.repository.FoodRepository;
+import com.example.caloriehunter.data.repository.OutboundWriteQueue;
+
+/**
+ * 앱 진입점
+ * 프로세스 시작 시 디스크에 남아 있던 쓰기 대기열을 복구해 저장소에 연결
+ * (이전 실행에서 반영하지 못한 쓰기가 있으면 바로 다시 시도)
+ * 바코드 조회 디스크 캐시와 오프라인 제품 DB 도 여기서 연결
+ */
+public class CalorieHunterApplication extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        FirebaseRepository.getInstance().attachOutbox(OutboundWriteQueue.getInstance(this));
+        FoodRepository.getInstance().attachCache(this);
+        FoodRepository.getInstance().attachOfflineDb(this);
+    }
+}
@@ -11,6 +11,7 @@ import com.google.ai.client.generativeai.type.GenerateContentResponse;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 
 import org.json.JSONObject;
 
@@ -69,6 +70,37 @@ public class GeminiService {
         }
     }
 
+    /**
+     * 음식 이미지 분석 (Future, 취소하면 요청도 취소). 실패 메시지는 콜백 onError 와 같음
+     */
+    public ListenableFuture<NutritionData> analyzeFoodImageAsync(Bitmap foodImage) {
+        Content content;
+        try {
+            content = new Content.Builder()
+                    .addImage(resizeBitmap(foodImage, 1024))
+                    .addText(buildAnalysisPrompt())
+                    .build();
+        } catch (Exception e) {
+            return Futures.immediateFailedFuture(new IllegalStateException("이미지 준비 실패: " + e.getMessage()));
+        }
+
+        ListenableFuture<NutritionData> parsed = Futures.transform(model.generateContent(content), result -> {
+            String resultText = result.getText();
+            if (resultText == null || resultText.isEmpty()) {
+                throw new IllegalStateException("응답 내용이 없습니다.");
+            }
+            try {
+                return parseGeminiResponse(resultText);
+            } catch (Exception e) {
+                throw new IllegalStateException("분석 결과를 처리하는 중 오류가 발생했습니다: " + e.getMessage());
+            }
+        }, MoreExecutors.directExecutor());
+        return Futures.catching(parsed, Exception.class, t -> {
+            if (t instanceof IllegalStateException) throw (IllegalStateException) t;
+            throw new IllegalStateException(describeError(t));
+        }, MoreExecutors.directExecutor());
+    }
+
     /**
      * 이미지 크기 조정 (maxSize 이하로)
      */
@@ -132,26 +164,27 @@ public class GeminiService {
 
             @Override
             public void onFailure(Throwable t) {
-                String errorMessage;
-                String msg = t.getMessage() != null ? t.getMessage().toLowerCase() : "";
-
-                if (msg.contains("api key") || msg.contains("unauthorized") || msg.contains("401")) {
-                    errorMessage = "API 키가 유효하지 않습니다";
-                } else if (msg.contains("quota") || msg.contains("rate limit") || msg.contains("429")) {
-                    errorMessage = "API 요청 한도 초과";
-                } else if (msg.contains("network") || msg.contains("timeout") || msg.contains("connect")) {
-                    errorMessage = "네트워크 연결 오류";
-                } else if (msg.contains("not found") || msg.contains("404")) {
-                    errorMessage = "API 엔드포인트를 찾을 수 없음";
-                } else {
-                    errorMessage = t.getMessage() != null ? t.getMessage() : "알 수 없는 오류";
-                }
-
-                callback.onError(errorMessage);
+                callback.onError(describeError(t));
             }
         }, executor);
     }
 
+    // 요청 실패 → 사용자에게 보여줄 메시지
+    private static String describeError(Throwable t) {
+        String msg = t.getMessage() != null ? t.getMessage().toLowerCase() : "";
+
+        if (msg.contains("api key") || msg.contains("unauthorized") || msg.contains("401")) {
+            return "API 키가 유효하지 않습니다";
+        } else if (msg.contains("quota") || msg.contains("rate limit") || msg.contains("429")) {
+            return "API 요청 한도 초과";
+        } else if (msg.contains("network") || msg.contains("timeout") || msg.contains("connect")) {
+            return "네트워크 연결 오류";
+        } else if (msg.contains("not found") || msg.contains("404")) {
+            return "API 엔드포인트를 찾을 수 없음";
+        }
+        return t.getMessage() != null ? t.getMessage() : "알 수 없는 오류";
+    }
+
     // --- 아래는 프롬프트 및 파싱 로직 (기존 유지) ---
 
     private String buildAnalysisPrompt() {
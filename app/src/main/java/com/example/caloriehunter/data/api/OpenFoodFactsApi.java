@@ -3,15 +3,28 @@ package com.example.caloriehunter.data.api;
 import retrofit2.Call;
 import retrofit2.http.GET;
 import retrofit2.http.Path;
+import retrofit2.http.Query;
 
 /**
  * Open Food Facts API 인터페이스
  * https://world.openfoodfacts.org/api/v2/product/{barcode}
+ * 응답은 OpenFoodFactsResponseAdapter 로 스트리밍 파싱
  */
 public interface OpenFoodFactsApi {
 
+    // 실제로 쓰는 필드만 요청 (전체 제품 문서는 수십 KB, 이름/이미지/영양소만이면 수 KB)
+    String PRODUCT_FIELDS = "product_name,product_name_ko,brands,image_url,nutriments";
+
     @GET("api/v2/product/{barcode}.json")
-    Call<OpenFoodFactsResponse> getProductByBarcode(@Path("barcode") String barcode);
+    Call<OpenFoodFactsResponse> getProductByBarcode(@Path("barcode") String barcode,
+                                                    @Query("fields") String fields);
+
+    /**
+     * 앱에서 쓰는 필드만 조회
+     */
+    default Call<OpenFoodFactsResponse> getProductByBarcode(String barcode) {
+        return getProductByBarcode(barcode, PRODUCT_FIELDS);
+    }
 
     /**
      * API 응답 모델
@@ -30,6 +43,9 @@ public interface OpenFoodFactsApi {
         public Nutriments nutriments;
     }
 
+    /**
+     * 영양소 (API 키는 energy-kcal_100g 처럼 하이픈 표기, 어댑터가 밑줄 필드로 매핑)
+     */
     class Nutriments {
         // 100g당 영양소 (기본값)
         public float energy_kcal_100g;          // 칼로리
@@ -0,0 +1,248 @@
+package com.example.caloriehunter.data.api;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Open Food Facts 응답 스트리밍 파서 (JsonReader)
+ * 쓰는 필드만 읽고 나머지 하위 트리는 skipValue() 로 건너뜀 (리플렉션/중간 트리 없음)
+ *
+ * 영양소 키는 API 표기(energy-kcal_100g, saturated-fat_100g 등 하이픈)와 밑줄 표기를 모두 인식하고,
+ * 숫자가 문자열로 오는 경우도 처리. 파싱 횟수/누적 시간을 기록 (스캔당 파싱 비용 측정용)
+ * 쓰기는 같은 필드를 API 표기로 기록 (읽기와 왕복 가능)
+ */
+public class OpenFoodFactsResponseAdapter extends TypeAdapter<OpenFoodFactsApi.OpenFoodFactsResponse> {
+
+    private final AtomicLong parseCount = new AtomicLong();
+    private final AtomicLong parseNanos = new AtomicLong();
+
+    public long getParseCount() { return parseCount.get(); }
+    public long getTotalParseNanos() { return parseNanos.get(); }
+
+    @Override
+    public OpenFoodFactsApi.OpenFoodFactsResponse read(JsonReader in) throws IOException {
+        long start = System.nanoTime();
+        try {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            return readResponse(in);
+        } finally {
+            parseNanos.addAndGet(System.nanoTime() - start);
+            parseCount.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void write(JsonWriter out, OpenFoodFactsApi.OpenFoodFactsResponse value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("status").value(value.status);
+        writeString(out, "status_verbose", value.status_verbose);
+        if (value.product != null) {
+            out.name("product");
+            writeProduct(out, value.product);
+        }
+        out.endObject();
+    }
+
+    private static void writeProduct(JsonWriter out, OpenFoodFactsApi.Product product) throws IOException {
+        out.beginObject();
+        writeString(out, "product_name", product.product_name);
+        writeString(out, "product_name_ko", product.product_name_ko);
+        writeString(out, "brands", product.brands);
+        writeString(out, "image_url", product.image_url);
+        if (product.nutriments != null) {
+            out.name("nutriments");
+            writeNutriments(out, product.nutriments);
+        }
+        out.endObject();
+    }
+
+    private static void writeNutriments(JsonWriter out, OpenFoodFactsApi.Nutriments n) throws IOException {
+        out.beginObject();
+        out.name("energy-kcal_100g").value(n.energy_kcal_100g);
+        out.name("proteins_100g").value(n.proteins_100g);
+        out.name("fat_100g").value(n.fat_100g);
+        out.name("saturated-fat_100g").value(n.saturated_fat_100g);
+        out.name("trans-fat_100g").value(n.trans_fat_100g);
+        out.name("carbohydrates_100g").value(n.carbohydrates_100g);
+        out.name("sugars_100g").value(n.sugars_100g);
+        out.name("fiber_100g").value(n.fiber_100g);
+        out.name("sodium_100g").value(n.sodium_100g);
+        out.name("salt_100g").value(n.salt_100g);
+
+        out.name("energy-kcal_serving").value(n.energy_kcal_serving);
+        out.name("proteins_serving").value(n.proteins_serving);
+        out.name("fat_serving").value(n.fat_serving);
+        out.name("saturated-fat_serving").value(n.saturated_fat_serving);
+        out.name("trans-fat_serving").value(n.trans_fat_serving);
+        out.name("carbohydrates_serving").value(n.carbohydrates_serving);
+        out.name("sugars_serving").value(n.sugars_serving);
+        out.name("fiber_serving").value(n.fiber_serving);
+        out.name("sodium_serving").value(n.sodium_serving);
+
+        writeNumber(out, "energy_value", n.energy_value);
+        writeNumber(out, "proteins", n.proteins);
+        writeNumber(out, "fat", n.fat);
+        writeNumber(out, "carbohydrates", n.carbohydrates);
+        writeNumber(out, "sugars", n.sugars);
+        writeNumber(out, "fiber", n.fiber);
+        writeNumber(out, "sodium", n.sodium);
+        out.endObject();
+    }
+
+    private static void writeString(JsonWriter out, String name, String value) throws IOException {
+        if (value != null) out.name(name).value(value);
+    }
+
+    private static void writeNumber(JsonWriter out, String name, Float value) throws IOException {
+        if (value != null) out.name(name).value(value);
+    }
+
+    private static OpenFoodFactsApi.OpenFoodFactsResponse readResponse(JsonReader in) throws IOException {
+        OpenFoodFactsApi.OpenFoodFactsResponse response = new OpenFoodFactsApi.OpenFoodFactsResponse();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "status":
+                    response.status = (int) readFloat(in, 0);
+                    break;
+                case "status_verbose":
+                    response.status_verbose = readString(in);
+                    break;
+                case "product":
+                    response.product = readProduct(in);
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return response;
+    }
+
+    private static OpenFoodFactsApi.Product readProduct(JsonReader in) throws IOException {
+        if (in.peek() != JsonToken.BEGIN_OBJECT) {
+            in.skipValue();
+            return null;
+        }
+        OpenFoodFactsApi.Product product = new OpenFoodFactsApi.Product();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "product_name":
+                    product.product_name = readString(in);
+                    break;
+                case "product_name_ko":
+                    product.product_name_ko = readString(in);
+                    break;
+                case "brands":
+                    product.brands = readString(in);
+                    break;
+                case "image_url":
+                    product.image_url = readString(in);
+                    break;
+                case "nutriments":
+                    product.nutriments = readNutriments(in);
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return product;
+    }
+
+    private static OpenFoodFactsApi.Nutriments readNutriments(JsonReader in) throws IOException {
+        if (in.peek() != JsonToken.BEGIN_OBJECT) {
+            in.skipValue();
+            return null;
+        }
+        OpenFoodFactsApi.Nutriments n = new OpenFoodFactsApi.Nutriments();
+        in.beginObject();
+        while (in.hasNext()) {
+            // 하이픈/밑줄 표기를 case 로 모두 나열 (키마다 문자열을 새로 만들지 않음)
+            switch (in.nextName()) {
+                case "energy-kcal_100g":
+                case "energy_kcal_100g": n.energy_kcal_100g = readFloat(in, 0); break;
+                case "proteins_100g": n.proteins_100g = readFloat(in, 0); break;
+                case "fat_100g": n.fat_100g = readFloat(in, 0); break;
+                case "saturated-fat_100g":
+                case "saturated_fat_100g": n.saturated_fat_100g = readFloat(in, 0); break;
+                case "trans-fat_100g":
+                case "trans_fat_100g": n.trans_fat_100g = readFloat(in, 0); break;
+                case "carbohydrates_100g": n.carbohydrates_100g = readFloat(in, 0); break;
+                case "sugars_100g": n.sugars_100g = readFloat(in, 0); break;
+                case "fiber_100g": n.fiber_100g = readFloat(in, 0); break;
+                case "sodium_100g": n.sodium_100g = readFloat(in, 0); break;
+                case "salt_100g": n.salt_100g = readFloat(in, 0); break;
+
+                case "energy-kcal_serving":
+                case "energy_kcal_serving": n.energy_kcal_serving = readFloat(in, 0); break;
+                case "proteins_serving": n.proteins_serving = readFloat(in, 0); break;
+                case "fat_serving": n.fat_serving = readFloat(in, 0); break;
+                case "saturated-fat_serving":
+                case "saturated_fat_serving": n.saturated_fat_serving = readFloat(in, 0); break;
+                case "trans-fat_serving":
+                case "trans_fat_serving": n.trans_fat_serving = readFloat(in, 0); break;
+                case "carbohydrates_serving": n.carbohydrates_serving = readFloat(in, 0); break;
+                case "sugars_serving": n.sugars_serving = readFloat(in, 0); break;
+                case "fiber_serving": n.fiber_serving = readFloat(in, 0); break;
+                case "sodium_serving": n.sodium_serving = readFloat(in, 0); break;
+
+                case "energy-value":
+                case "energy_value": n.energy_value = readBoxedFloat(in); break;
+                case "proteins": n.proteins = readBoxedFloat(in); break;
+                case "fat": n.fat = readBoxedFloat(in); break;
+                case "carbohydrates": n.carbohydrates = readBoxedFloat(in); break;
+                case "sugars": n.sugars = readBoxedFloat(in); break;
+                case "fiber": n.fiber = readBoxedFloat(in); break;
+                case "sodium": n.sodium = readBoxedFloat(in); break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return n;
+    }
+
+    private static String readString(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.STRING || token == JsonToken.NUMBER) return in.nextString();
+        in.skipValue();
+        return null;
+    }
+
+    /**
+     * 숫자 또는 숫자 문자열 (그 외/파싱 실패는 기본값)
+     */
+    private static float readFloat(JsonReader in, float defaultValue) throws IOException {
+        Float value = readBoxedFloat(in);
+        return value != null ? value : defaultValue;
+    }
+
+    private static Float readBoxedFloat(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token != JsonToken.NUMBER && token != JsonToken.STRING) {
+            in.skipValue();
+            return null;
+        }
+        String raw = in.nextString();
+        try {
+            float value = Float.parseFloat(raw);
+            return Float.isFinite(value) ? value : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
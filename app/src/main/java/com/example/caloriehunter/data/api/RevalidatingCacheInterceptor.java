@@ -0,0 +1,53 @@
+package com.example.caloriehunter.data.api;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * HTTP 캐시 재검증 정책 (OkHttp 네트워크 인터셉터, Cache 와 함께 사용)
+ *
+ * ETag/Last-Modified 가 있는 GET 응답은 Cache-Control 을 no-cache 로 바꿔 저장
+ * → 다음 요청은 항상 If-None-Match/If-Modified-Since 조건부 요청, 바뀌지 않았으면 304 (본문 없음)
+ * 언제까지 네트워크 없이 쓸지는 앱 쪽 캐시(BarcodeCache 유지 시간)가 정하고, HTTP 캐시는 본문 재전송만 줄임
+ *
+ * 304 / 전체 응답 횟수를 기록 (재검증 효과 측정용)
+ */
+public final class RevalidatingCacheInterceptor implements Interceptor {
+
+    private final AtomicLong notModifiedCount = new AtomicLong();
+    private final AtomicLong fullResponseCount = new AtomicLong();
+
+    public long getNotModifiedCount() { return notModifiedCount.get(); }
+    public long getFullResponseCount() { return fullResponseCount.get(); }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        Response response = chain.proceed(request);
+        if (!"GET".equals(request.method())) return response;
+
+        if (response.code() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+            // 304 헤더가 저장된 헤더에 합쳐지므로 여기서도 바꿔야 계속 재검증함
+            notModifiedCount.incrementAndGet();
+            return revalidateAlways(response);
+        }
+        if (!response.isSuccessful()) return response;
+
+        fullResponseCount.incrementAndGet();
+        boolean hasValidator = response.header("ETag") != null || response.header("Last-Modified") != null;
+        return hasValidator ? revalidateAlways(response) : response;
+    }
+
+    private static Response revalidateAlways(Response response) {
+        return response.newBuilder()
+                .removeHeader("Pragma")
+                .removeHeader("Expires")
+                .header("Cache-Control", "no-cache")
+                .build();
+    }
+}
@@ -171,7 +171,7 @@ public class AttendanceReward {
      */
     @Exclude
     public Map<String, Object> toMap() {
-        Map<String, Object> map = new HashMap<>();
+        Map<String, Object> map = new HashMap<>(FieldMaps.capacityFor(8));
         map.put("oderId", oderId);
         map.put("date", date);
         map.put("consecutiveDays", consecutiveDays);
@@ -183,6 +183,24 @@ public class AttendanceReward {
         return map;
     }
 
+    /**
+     * 스냅샷 값(Map)으로부터 생성 (리플렉션 없이 필드 직접 대입, map 이 null 이면 null)
+     */
+    @Exclude
+    public static AttendanceReward fromMap(Map<String, Object> map) {
+        if (map == null) return null;
+        AttendanceReward reward = new AttendanceReward();
+        reward.oderId = FieldMaps.getString(map, "oderId");
+        reward.date = FieldMaps.getString(map, "date");
+        reward.consecutiveDays = FieldMaps.getInt(map, "consecutiveDays", reward.consecutiveDays);
+        reward.totalDays = FieldMaps.getInt(map, "totalDays", reward.totalDays);
+        reward.rewardType = FieldMaps.getString(map, "rewardType");
+        reward.rewardAmount = FieldMaps.getInt(map, "rewardAmount", reward.rewardAmount);
+        reward.rewardDescription = FieldMaps.getString(map, "rewardDescription");
+        reward.claimedAt = FieldMaps.getLong(map, "claimedAt", reward.claimedAt);
+        return reward;
+    }
+
     // Getters and Setters
     public String getOderId() { return oderId; }
     public void setOderId(String oderId) { this.oderId = oderId; }
@@ -0,0 +1,77 @@
+package com.example.caloriehunter.data.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 전투 시작에 필요한 데이터 묶음 (불변)
+ * 몬스터/유저/포션/버프/장착 무기를 동시에 조회한 결과와 항목별 소요 시간
+ */
+public final class BattleContext {
+
+    // 소요 시간 항목 이름
+    public static final String PART_MONSTER = "monster";
+    public static final String PART_USER = "user";
+    public static final String PART_INVENTORY = "inventory";  // 포션/버프/장착 무기
+    public static final String PART_TOTAL = "total";
+
+    private final Monster monster;
+    private final User user;
+    private final List<Item> potions;
+    private final List<Item> buffs;
+    private final Item equippedWeapon;           // 장착 무기 없으면 null
+    private final Map<String, Long> timingsMs;  // 항목 → 도착까지 걸린 시간 (ms)
+
+    private BattleContext(Builder builder) {
+        this.monster = builder.monster;
+        this.user = builder.user;
+        this.potions = Collections.unmodifiableList(new ArrayList<>(builder.potions));
+        this.buffs = Collections.unmodifiableList(new ArrayList<>(builder.buffs));
+        this.equippedWeapon = builder.equippedWeapon;
+        this.timingsMs = Collections.unmodifiableMap(new LinkedHashMap<>(builder.timingsMs));
+    }
+
+    public Monster getMonster() { return monster; }
+    public User getUser() { return user; }
+    public List<Item> getPotions() { return potions; }
+    public List<Item> getBuffs() { return buffs; }
+    public Item getEquippedWeapon() { return equippedWeapon; }
+    public Map<String, Long> getTimingsMs() { return timingsMs; }
+
+    /**
+     * 가장 오래 걸린 항목 (total 제외)
+     */
+    public String getSlowestPart() {
+        String slowest = null;
+        long max = -1;
+        for (Map.Entry<String, Long> entry : timingsMs.entrySet()) {
+            if (!PART_TOTAL.equals(entry.getKey()) && entry.getValue() > max) {
+                max = entry.getValue();
+                slowest = entry.getKey();
+            }
+        }
+        return slowest;
+    }
+
+    // Builder 패턴 (각 조회 콜백에서 채움)
+    public static class Builder {
+        private Monster monster;
+        private User user;
+        private List<Item> potions = new ArrayList<>();
+        private List<Item> buffs = new ArrayList<>();
+        private Item equippedWeapon;
+        private final Map<String, Long> timingsMs = new LinkedHashMap<>();
+
+        public synchronized Builder monster(Monster monster) { this.monster = monster; return this; }
+        public synchronized Builder user(User user) { this.user = user; return this; }
+        public synchronized Builder potions(List<Item> potions) { this.potions = potions; return this; }
+        public synchronized Builder buffs(List<Item> buffs) { this.buffs = buffs; return this; }
+        public synchronized Builder equippedWeapon(Item weapon) { this.equippedWeapon = weapon; return this; }
+        public synchronized Builder timing(String part, long ms) { this.timingsMs.put(part, ms); return this; }
+
+        public synchronized BattleContext build() { return new BattleContext(this); }
+    }
+}
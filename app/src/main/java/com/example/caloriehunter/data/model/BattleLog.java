@@ -52,7 +52,7 @@ public class BattleLog {
     // Firebase에 저장할 Map 변환
     @Exclude
     public Map<String, Object> toMap() {
-        HashMap<String, Object> result = new HashMap<>();
+        HashMap<String, Object> result = new HashMap<>(FieldMaps.capacityFor(11));
         result.put("id", id);
         result.put("ownerId", ownerId);
         result.put("monsterName", monsterName);
@@ -67,6 +67,27 @@ public class BattleLog {
         return result;
     }
 
+    /**
+     * 스냅샷 값(Map)으로부터 생성 (리플렉션 없이 필드 직접 대입, map 이 null 이면 null)
+     */
+    @Exclude
+    public static BattleLog fromMap(Map<String, Object> map) {
+        if (map == null) return null;
+        BattleLog log = new BattleLog();
+        log.id = FieldMaps.getString(map, "id");
+        log.ownerId = FieldMaps.getString(map, "ownerId");
+        log.monsterName = FieldMaps.getString(map, "monsterName");
+        log.monsterTier = FieldMaps.getString(map, "monsterTier");
+        log.monsterElement = FieldMaps.getString(map, "monsterElement");
+        log.monsterMaxHp = FieldMaps.getInt(map, "monsterMaxHp", log.monsterMaxHp);
+        log.foodName = FieldMaps.getString(map, "foodName");
+        log.victory = FieldMaps.getBoolean(map, "victory", log.victory);
+        log.expGained = FieldMaps.getInt(map, "expGained", log.expGained);
+        log.damageDealt = FieldMaps.getInt(map, "damageDealt", log.damageDealt);
+        log.timestamp = FieldMaps.getLong(map, "timestamp", log.timestamp);
+        return log;
+    }
+
     // 티어별 색상 코드
     @Exclude
     public String getTierColor() {
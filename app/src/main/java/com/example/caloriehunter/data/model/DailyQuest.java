@@ -1,5 +1,7 @@
 package com.example.caloriehunter.data.model;
 
+import androidx.annotation.Nullable;
+
 import com.google.firebase.database.Exclude;
 
 import java.text.SimpleDateFormat;
@@ -49,6 +51,40 @@ public class DailyQuest {
         return sdf.format(new Date());
     }
 
+    /**
+     * 저장된 퀘스트 타입 문자열 → QuestType (없거나 모르는 타입이면 null, 이름이 바뀐 옛 데이터 등)
+     */
+    @Exclude
+    @Nullable
+    public static QuestType parseType(@Nullable String questType) {
+        if (questType == null) return null;
+        try {
+            return QuestType.valueOf(questType);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 퀘스트 ID (타입 + 날짜로 고정되므로 읽지 않고 바로 경로 지정 가능, 모르는 타입이면 null)
+     */
+    @Exclude
+    @Nullable
+    public static String getQuestId(String questType, String date) {
+        QuestType type = parseType(questType);
+        if (type == null) return null;
+
+        String prefix;
+        switch (type) {
+            case SCAN_FOOD: prefix = "quest_scan_"; break;
+            case SCAN_HEALTHY: prefix = "quest_healthy_"; break;
+            case DEFEAT_MONSTER: prefix = "quest_defeat_"; break;
+            case USE_POTION: prefix = "quest_potion_"; break;
+            default: prefix = "quest_damage_"; break;
+        }
+        return prefix + date;
+    }
+
     /**
      * 랜덤 일일 퀘스트 3개 생성
      */
@@ -60,7 +96,7 @@ public class DailyQuest {
 
         // 퀘스트 1: 음식 스캔
         quests[0] = new DailyQuest();
-        quests[0].id = "quest_scan_" + today;
+        quests[0].id = getQuestId(QuestType.SCAN_FOOD.name(), today);
         quests[0].oderId = oderId;
         quests[0].questType = QuestType.SCAN_FOOD.name();
         quests[0].title = "음식 스캔하기";
@@ -76,7 +112,7 @@ public class DailyQuest {
 
         // 퀘스트 2: 건강한 음식 스캔
         quests[1] = new DailyQuest();
-        quests[1].id = "quest_healthy_" + today;
+        quests[1].id = getQuestId(QuestType.SCAN_HEALTHY.name(), today);
         quests[1].oderId = oderId;
         quests[1].questType = QuestType.SCAN_HEALTHY.name();
         quests[1].title = "건강한 음식 스캔";
@@ -92,7 +128,7 @@ public class DailyQuest {
 
         // 퀘스트 3: 몬스터 처치
         quests[2] = new DailyQuest();
-        quests[2].id = "quest_defeat_" + today;
+        quests[2].id = getQuestId(QuestType.DEFEAT_MONSTER.name(), today);
         quests[2].oderId = oderId;
         quests[2].questType = QuestType.DEFEAT_MONSTER.name();
         quests[2].title = "몬스터 처치";
@@ -124,6 +160,17 @@ public class DailyQuest {
         return false;
     }
 
+    /**
+     * 서버에서 증가된 진행도 정리 (목표치 초과분 자르고 완료 처리)
+     */
+    @Exclude
+    public void normalizeProgress() {
+        if (targetCount > 0 && currentProgress >= targetCount) {
+            currentProgress = targetCount;
+            completed = true;
+        }
+    }
+
     /**
      * 진행률 퍼센트
      */
@@ -138,7 +185,7 @@ public class DailyQuest {
      */
     @Exclude
     public Map<String, Object> toMap() {
-        Map<String, Object> map = new HashMap<>();
+        Map<String, Object> map = new HashMap<>(FieldMaps.capacityFor(13));
         map.put("id", id);
         map.put("oderId", oderId);
         map.put("questType", questType);
@@ -155,6 +202,29 @@ public class DailyQuest {
         return map;
     }
 
+    /**
+     * 스냅샷 값(Map)으로부터 생성 (리플렉션 없이 필드 직접 대입, map 이 null 이면 null)
+     */
+    @Exclude
+    public static DailyQuest fromMap(Map<String, Object> map) {
+        if (map == null) return null;
+        DailyQuest quest = new DailyQuest();
+        quest.id = FieldMaps.getString(map, "id");
+        quest.oderId = FieldMaps.getString(map, "oderId");
+        quest.questType = FieldMaps.getString(map, "questType");
+        quest.title = FieldMaps.getString(map, "title");
+        quest.description = FieldMaps.getString(map, "description");
+        quest.emoji = FieldMaps.getString(map, "emoji");
+        quest.targetCount = FieldMaps.getInt(map, "targetCount", quest.targetCount);
+        quest.currentProgress = FieldMaps.getInt(map, "currentProgress", quest.currentProgress);
+        quest.rewardExp = FieldMaps.getInt(map, "rewardExp", quest.rewardExp);
+        quest.completed = FieldMaps.getBoolean(map, "completed", quest.completed);
+        quest.rewardClaimed = FieldMaps.getBoolean(map, "rewardClaimed", quest.rewardClaimed);
+        quest.date = FieldMaps.getString(map, "date");
+        quest.createdAt = FieldMaps.getLong(map, "createdAt", quest.createdAt);
+        return quest;
+    }
+
     // Getters and Setters
     public String getId() { return id; }
     public void setId(String id) { this.id = id; }
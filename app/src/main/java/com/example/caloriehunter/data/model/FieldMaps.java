@@ -0,0 +1,45 @@
+package com.example.caloriehunter.data.model;
+
+import java.util.Map;
+
+/**
+ * 모델 ↔ Map 변환 헬퍼
+ * Firebase 스냅샷 값(Map)은 숫자를 Long/Double 로 주므로 필드 타입에 맞게 변환
+ * 키가 없거나 타입이 맞지 않으면 기본값 사용 (리플렉션 getValue(Class)와 같은 결과)
+ */
+final class FieldMaps {
+
+    private FieldMaps() {}
+
+    /**
+     * 원소 n개를 넣어도 재해시되지 않는 HashMap 초기 용량
+     */
+    static int capacityFor(int entries) {
+        return (int) (entries / 0.75f) + 1;
+    }
+
+    static String getString(Map<String, Object> map, String key) {
+        Object value = map.get(key);
+        return value != null ? value.toString() : null;
+    }
+
+    static int getInt(Map<String, Object> map, String key, int defaultValue) {
+        Object value = map.get(key);
+        return value instanceof Number ? ((Number) value).intValue() : defaultValue;
+    }
+
+    static long getLong(Map<String, Object> map, String key, long defaultValue) {
+        Object value = map.get(key);
+        return value instanceof Number ? ((Number) value).longValue() : defaultValue;
+    }
+
+    static float getFloat(Map<String, Object> map, String key, float defaultValue) {
+        Object value = map.get(key);
+        return value instanceof Number ? ((Number) value).floatValue() : defaultValue;
+    }
+
+    static boolean getBoolean(Map<String, Object> map, String key, boolean defaultValue) {
+        Object value = map.get(key);
+        return value instanceof Boolean ? (Boolean) value : defaultValue;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.caloriehunter.data.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 인벤토리 한 번 조회 결과 (불변)
+ * 타입별로 나뉘고, 등급(높은 순) → 획득 시간(최신 순)으로 정렬된 목록
+ */
+public final class InventorySnapshot {
+
+    // 표시 순서: 희귀 등급 먼저, 같은 등급이면 최근 획득 먼저
+    public static final Comparator<Item> DISPLAY_ORDER = (a, b) -> {
+        int byRarity = Integer.compare(b.getRarityRank(), a.getRarityRank());
+        if (byRarity != 0) return byRarity;
+        return Long.compare(b.getObtainedAt(), a.getObtainedAt());
+    };
+
+    private final List<Item> weapons;
+    private final List<Item> potions;
+    private final List<Item> buffs;
+
+    public InventorySnapshot(List<Item> weapons, List<Item> potions, List<Item> buffs) {
+        this.weapons = sorted(weapons);
+        this.potions = sorted(potions);
+        this.buffs = sorted(buffs);
+    }
+
+    public static InventorySnapshot empty() {
+        return new InventorySnapshot(new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+    }
+
+    private static List<Item> sorted(List<Item> items) {
+        List<Item> copy = new ArrayList<>(items);
+        copy.sort(DISPLAY_ORDER);
+        return Collections.unmodifiableList(copy);
+    }
+
+    public List<Item> getWeapons() { return weapons; }
+    public List<Item> getPotions() { return potions; }
+    public List<Item> getBuffs() { return buffs; }
+
+    /**
+     * 무기 ID로 조회 (없으면 null)
+     */
+    public Item findWeapon(String weaponId) {
+        if (weaponId == null) return null;
+        for (Item weapon : weapons) {
+            if (weaponId.equals(weapon.getId())) {
+                return weapon;
+            }
+        }
+        return null;
+    }
+}
@@ -50,7 +50,7 @@ public class Item {
     // Firebase에 저장할 Map 변환
     @Exclude
     public Map<String, Object> toMap() {
-        HashMap<String, Object> result = new HashMap<>();
+        HashMap<String, Object> result = new HashMap<>(FieldMaps.capacityFor(15));
         result.put("id", id);
         result.put("ownerId", ownerId);
         result.put("name", name);
@@ -69,6 +69,75 @@ public class Item {
         return result;
     }
 
+    /**
+     * 바코드로 정해지는 불변 부분 (templates/{barcode}/item, 같은 상품이면 모든 유저가 공유)
+     */
+    @Exclude
+    public Map<String, Object> toTemplateMap() {
+        HashMap<String, Object> result = new HashMap<>(FieldMaps.capacityFor(10));
+        result.put("name", name);
+        result.put("type", type != null ? type.name() : null);
+        result.put("foodName", foodName);
+        result.put("barcode", barcode);
+        result.put("attackPower", attackPower);
+        result.put("healAmount", healAmount);
+        result.put("buffPower", buffPower);
+        result.put("defenseBoost", defenseBoost);
+        result.put("maxDurability", maxDurability);
+        result.put("rarity", rarity);
+        return result;
+    }
+
+    /**
+     * 유저별로 바뀌는 부분만 (템플릿과 합쳐서 fromMap, 템플릿 키는 바코드 + 템플릿 내용 해시)
+     */
+    @Exclude
+    public Map<String, Object> toInstanceMap() {
+        HashMap<String, Object> result = new HashMap<>(FieldMaps.capacityFor(7));
+        result.put("id", id);
+        result.put("ownerId", ownerId);
+        result.put("type", type != null ? type.name() : null);
+        result.put("barcode", barcode);
+        result.put("durability", durability);
+        result.put("quantity", quantity);
+        result.put("obtainedAt", obtainedAt);
+        return result;
+    }
+
+    /**
+     * 스냅샷 값(Map)으로부터 생성 (리플렉션 없이 필드 직접 대입, map 이 null 이면 null)
+     */
+    @Exclude
+    public static Item fromMap(Map<String, Object> map) {
+        if (map == null) return null;
+        Item item = new Item();
+        item.id = FieldMaps.getString(map, "id");
+        item.ownerId = FieldMaps.getString(map, "ownerId");
+        item.name = FieldMaps.getString(map, "name");
+        item.type = typeOf(FieldMaps.getString(map, "type"));
+        item.foodName = FieldMaps.getString(map, "foodName");
+        item.barcode = FieldMaps.getString(map, "barcode");
+        item.attackPower = FieldMaps.getInt(map, "attackPower", item.attackPower);
+        item.healAmount = FieldMaps.getInt(map, "healAmount", item.healAmount);
+        item.buffPower = FieldMaps.getInt(map, "buffPower", item.buffPower);
+        item.defenseBoost = FieldMaps.getInt(map, "defenseBoost", item.defenseBoost);
+        item.durability = FieldMaps.getInt(map, "durability", item.durability);
+        item.maxDurability = FieldMaps.getInt(map, "maxDurability", item.maxDurability);
+        item.rarity = FieldMaps.getString(map, "rarity");
+        item.quantity = FieldMaps.getInt(map, "quantity", item.quantity);
+        item.obtainedAt = FieldMaps.getLong(map, "obtainedAt", item.obtainedAt);
+        return item;
+    }
+
+    private static ItemType typeOf(String name) {
+        if (name == null) return null;
+        try {
+            return ItemType.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
     // 등급별 색상 코드
     @Exclude
     public String getRarityColor() {
@@ -80,6 +149,18 @@ public class Item {
         }
     }
 
+    // 등급 순위 (정렬용, 높을수록 희귀)
+    @Exclude
+    public int getRarityRank() {
+        if (rarity == null) return 0;
+        switch (rarity) {
+            case "legendary": return 3;
+            case "epic": return 2;
+            case "rare": return 1;
+            default: return 0;
+        }
+    }
+
     // 타입별 이모지
     @Exclude
     public String getTypeEmoji() {
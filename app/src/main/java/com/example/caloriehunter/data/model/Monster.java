@@ -48,7 +48,7 @@ public class Monster {
     // Firebase에 저장할 Map 변환
     @Exclude
     public Map<String, Object> toMap() {
-        HashMap<String, Object> result = new HashMap<>();
+        HashMap<String, Object> result = new HashMap<>(FieldMaps.capacityFor(20));
         result.put("id", id);
         result.put("ownerId", ownerId);
         result.put("name", name);
@@ -72,6 +72,75 @@ public class Monster {
         return result;
     }
 
+    /**
+     * 바코드로 정해지는 불변 부분 (templates/{barcode}/monster, 같은 상품이면 모든 유저가 공유)
+     */
+    @Exclude
+    public Map<String, Object> toTemplateMap() {
+        HashMap<String, Object> result = new HashMap<>(FieldMaps.capacityFor(13));
+        result.put("name", name);
+        result.put("foodName", foodName);
+        result.put("barcode", barcode);
+        result.put("maxHp", maxHp);
+        result.put("defense", defense);
+        result.put("attack", attack);
+        result.put("poisonDamage", poisonDamage);
+        result.put("element", element);
+        result.put("tier", tier);
+        result.put("originalSugar", originalSugar);
+        result.put("originalSodium", originalSodium);
+        result.put("originalSatFat", originalSatFat);
+        result.put("originalTransFat", originalTransFat);
+        result.put("originalCalories", originalCalories);
+        return result;
+    }
+
+    /**
+     * 유저별로 바뀌는 부분만 (템플릿과 합쳐서 fromMap, 템플릿 키는 바코드 + 템플릿 내용 해시)
+     */
+    @Exclude
+    public Map<String, Object> toInstanceMap() {
+        HashMap<String, Object> result = new HashMap<>(FieldMaps.capacityFor(7));
+        result.put("id", id);
+        result.put("ownerId", ownerId);
+        result.put("barcode", barcode);
+        result.put("hp", hp);
+        result.put("status", status);
+        result.put("createdAt", createdAt);
+        result.put("expiresAt", expiresAt);
+        return result;
+    }
+
+    /**
+     * 스냅샷 값(Map)으로부터 생성 (리플렉션 없이 필드 직접 대입, map 이 null 이면 null)
+     */
+    @Exclude
+    public static Monster fromMap(Map<String, Object> map) {
+        if (map == null) return null;
+        Monster monster = new Monster();
+        monster.id = FieldMaps.getString(map, "id");
+        monster.ownerId = FieldMaps.getString(map, "ownerId");
+        monster.name = FieldMaps.getString(map, "name");
+        monster.foodName = FieldMaps.getString(map, "foodName");
+        monster.barcode = FieldMaps.getString(map, "barcode");
+        monster.hp = FieldMaps.getInt(map, "hp", monster.hp);
+        monster.maxHp = FieldMaps.getInt(map, "maxHp", monster.maxHp);
+        monster.defense = FieldMaps.getInt(map, "defense", monster.defense);
+        monster.attack = FieldMaps.getInt(map, "attack", monster.attack);
+        monster.poisonDamage = FieldMaps.getInt(map, "poisonDamage", monster.poisonDamage);
+        monster.element = FieldMaps.getString(map, "element");
+        monster.tier = FieldMaps.getString(map, "tier");
+        monster.status = FieldMaps.getString(map, "status");
+        monster.createdAt = FieldMaps.getLong(map, "createdAt", monster.createdAt);
+        monster.expiresAt = FieldMaps.getLong(map, "expiresAt", monster.expiresAt);
+        monster.originalSugar = FieldMaps.getFloat(map, "originalSugar", monster.originalSugar);
+        monster.originalSodium = FieldMaps.getFloat(map, "originalSodium", monster.originalSodium);
+        monster.originalSatFat = FieldMaps.getFloat(map, "originalSatFat", monster.originalSatFat);
+        monster.originalTransFat = FieldMaps.getFloat(map, "originalTransFat", monster.originalTransFat);
+        monster.originalCalories = FieldMaps.getFloat(map, "originalCalories", monster.originalCalories);
+        return monster;
+    }
+
     // 티어별 색상 코드
     @Exclude
     public String getTierColor() {
@@ -141,6 +210,14 @@ public class Monster {
     public long getExpiresAt() { return expiresAt; }
     public void setExpiresAt(long expiresAt) { this.expiresAt = expiresAt; }
 
+    /**
+     * 만료 여부 (만료 처리됐거나 만료 시각이 지남, expiresAt 0 은 만료 없음)
+     */
+    @Exclude
+    public boolean isExpired(long now) {
+        return "expired".equals(status) || (expiresAt > 0 && expiresAt <= now);
+    }
+
     public float getOriginalSugar() { return originalSugar; }
     public void setOriginalSugar(float originalSugar) { this.originalSugar = originalSugar; }
 
@@ -85,7 +85,7 @@ public class NutritionRecord {
      */
     @Exclude
     public Map<String, Object> toMap() {
-        Map<String, Object> map = new HashMap<>();
+        Map<String, Object> map = new HashMap<>(FieldMaps.capacityFor(16));
         map.put("id", id);
         map.put("ownerId", ownerId);
         map.put("date", date);
@@ -105,6 +105,32 @@ public class NutritionRecord {
         return map;
     }
 
+    /**
+     * 스냅샷 값(Map)으로부터 생성 (리플렉션 없이 필드 직접 대입, map 이 null 이면 null)
+     */
+    @Exclude
+    public static NutritionRecord fromMap(Map<String, Object> map) {
+        if (map == null) return null;
+        NutritionRecord record = new NutritionRecord();
+        record.id = FieldMaps.getString(map, "id");
+        record.ownerId = FieldMaps.getString(map, "ownerId");
+        record.date = FieldMaps.getString(map, "date");
+        record.foodName = FieldMaps.getString(map, "foodName");
+        record.calories = FieldMaps.getFloat(map, "calories", record.calories);
+        record.protein = FieldMaps.getFloat(map, "protein", record.protein);
+        record.carbohydrate = FieldMaps.getFloat(map, "carbohydrate", record.carbohydrate);
+        record.fat = FieldMaps.getFloat(map, "fat", record.fat);
+        record.sugar = FieldMaps.getFloat(map, "sugar", record.sugar);
+        record.sodium = FieldMaps.getFloat(map, "sodium", record.sodium);
+        record.fiber = FieldMaps.getFloat(map, "fiber", record.fiber);
+        record.saturatedFat = FieldMaps.getFloat(map, "saturatedFat", record.saturatedFat);
+        record.transFat = FieldMaps.getFloat(map, "transFat", record.transFat);
+        record.isHealthy = FieldMaps.getBoolean(map, "isHealthy", record.isHealthy);
+        record.resultType = FieldMaps.getString(map, "resultType");
+        record.timestamp = FieldMaps.getLong(map, "timestamp", record.timestamp);
+        return record;
+    }
+
     // Getters and Setters
     public String getId() { return id; }
     public void setId(String id) { this.id = id; }
@@ -29,10 +29,46 @@ public class NutritionStats {
     public static final float DAILY_SODIUM = 2000f;
     public static final float DAILY_FIBER = 25f;
 
+    // 일별 집계 노드(users/{uid}/nutritionDaily/{date}) 필드 이름
+    public static final String ROLLUP_CALORIES = "totalCalories";
+    public static final String ROLLUP_PROTEIN = "totalProtein";
+    public static final String ROLLUP_CARBOHYDRATE = "totalCarbohydrate";
+    public static final String ROLLUP_FAT = "totalFat";
+    public static final String ROLLUP_SUGAR = "totalSugar";
+    public static final String ROLLUP_SODIUM = "totalSodium";
+    public static final String ROLLUP_FIBER = "totalFiber";
+    public static final String ROLLUP_HEALTHY = "healthyCount";
+    public static final String ROLLUP_UNHEALTHY = "unhealthyCount";
+    public static final String ROLLUP_TOTAL = "totalCount";
+
     public NutritionStats() {
         reset();
     }
 
+    /**
+     * 일별 집계 노드 값으로부터 통계 생성 (값이 없으면 빈 통계)
+     */
+    public static NutritionStats fromRollup(Map<String, Object> rollup) {
+        NutritionStats stats = new NutritionStats();
+        if (rollup == null) return stats;
+
+        stats.totalCalories = floatOf(rollup.get(ROLLUP_CALORIES));
+        stats.totalProtein = floatOf(rollup.get(ROLLUP_PROTEIN));
+        stats.totalCarbohydrate = floatOf(rollup.get(ROLLUP_CARBOHYDRATE));
+        stats.totalFat = floatOf(rollup.get(ROLLUP_FAT));
+        stats.totalSugar = floatOf(rollup.get(ROLLUP_SUGAR));
+        stats.totalSodium = floatOf(rollup.get(ROLLUP_SODIUM));
+        stats.totalFiber = floatOf(rollup.get(ROLLUP_FIBER));
+        stats.healthyCount = (int) floatOf(rollup.get(ROLLUP_HEALTHY));
+        stats.unhealthyCount = (int) floatOf(rollup.get(ROLLUP_UNHEALTHY));
+        stats.totalCount = (int) floatOf(rollup.get(ROLLUP_TOTAL));
+        return stats;
+    }
+
+    private static float floatOf(Object value) {
+        return value instanceof Number ? ((Number) value).floatValue() : 0f;
+    }
+
     /**
      * 기록 리스트로부터 통계 계산
      */
@@ -1,9 +1,7 @@
 package com.example.caloriehunter.data.model;
 
 import com.google.firebase.database.Exclude;
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 /**
@@ -29,8 +27,8 @@ public class User {
     private int healthyFoodCount;
     private int unhealthyFoodCount;
 
-    // 몬스터 대기열 (연속으로 나쁜 음식을 먹으면 몬스터가 쌓임)
-    private List<String> monsterQueue;
+    // 몬스터 대기열 크기 (대기열 본문은 users/{uid}/monsterQueue 에 push 키로 저장)
+    private int monsterQueueSize;
 
     // 장착 아이템
     private String equippedWeaponId;
@@ -48,7 +46,6 @@ public class User {
         this.expToNextLevel = 100;
         this.hp = 100;
         this.maxHp = 100;
-        this.monsterQueue = new ArrayList<>();
     }
 
     // 새 유저 생성
@@ -65,11 +62,18 @@ public class User {
     @Exclude
     public boolean addExp(int amount) {
         this.exp += amount;
-        if (this.exp >= this.expToNextLevel) {
+        return applyPendingLevelUps();
+    }
+
+    // 쌓인 경험치만큼 레벨업 (exp 가 서버에서 increment 로 먼저 더해진 경우 포함)
+    @Exclude
+    public boolean applyPendingLevelUps() {
+        boolean leveledUp = false;
+        while (this.expToNextLevel > 0 && this.exp >= this.expToNextLevel) {
             levelUp();
-            return true;
+            leveledUp = true;
         }
-        return false;
+        return leveledUp;
     }
 
     private void levelUp() {
@@ -104,7 +108,7 @@ public class User {
     // Firebase에 저장할 Map 변환
     @Exclude
     public Map<String, Object> toMap() {
-        HashMap<String, Object> result = new HashMap<>();
+        HashMap<String, Object> result = new HashMap<>(FieldMaps.capacityFor(16));
         result.put("uid", uid);
         result.put("nickname", nickname);
         result.put("level", level);
@@ -116,7 +120,6 @@ public class User {
         result.put("totalDamageDealt", totalDamageDealt);
         result.put("healthyFoodCount", healthyFoodCount);
         result.put("unhealthyFoodCount", unhealthyFoodCount);
-        result.put("monsterQueue", monsterQueue);
         result.put("equippedWeaponId", equippedWeaponId);
         result.put("equippedWeaponName", equippedWeaponName);
         result.put("equippedWeaponPower", equippedWeaponPower);
@@ -125,6 +128,33 @@ public class User {
         return result;
     }
 
+    /**
+     * 스냅샷 값(Map)으로부터 생성 (리플렉션 없이 필드 직접 대입, map 이 null 이면 null)
+     */
+    @Exclude
+    public static User fromMap(Map<String, Object> map) {
+        if (map == null) return null;
+        User user = new User();
+        user.uid = FieldMaps.getString(map, "uid");
+        user.nickname = FieldMaps.getString(map, "nickname");
+        user.level = FieldMaps.getInt(map, "level", user.level);
+        user.exp = FieldMaps.getInt(map, "exp", user.exp);
+        user.expToNextLevel = FieldMaps.getInt(map, "expToNextLevel", user.expToNextLevel);
+        user.hp = FieldMaps.getInt(map, "hp", user.hp);
+        user.maxHp = FieldMaps.getInt(map, "maxHp", user.maxHp);
+        user.totalMonstersKilled = FieldMaps.getInt(map, "totalMonstersKilled", user.totalMonstersKilled);
+        user.totalDamageDealt = FieldMaps.getInt(map, "totalDamageDealt", user.totalDamageDealt);
+        user.healthyFoodCount = FieldMaps.getInt(map, "healthyFoodCount", user.healthyFoodCount);
+        user.unhealthyFoodCount = FieldMaps.getInt(map, "unhealthyFoodCount", user.unhealthyFoodCount);
+        user.monsterQueueSize = FieldMaps.getInt(map, "monsterQueueSize", user.monsterQueueSize);
+        user.equippedWeaponId = FieldMaps.getString(map, "equippedWeaponId");
+        user.equippedWeaponName = FieldMaps.getString(map, "equippedWeaponName");
+        user.equippedWeaponPower = FieldMaps.getInt(map, "equippedWeaponPower", user.equippedWeaponPower);
+        user.createdAt = FieldMaps.getLong(map, "createdAt", user.createdAt);
+        user.lastLoginAt = FieldMaps.getLong(map, "lastLoginAt", user.lastLoginAt);
+        return user;
+    }
+
     // Getters & Setters
     public String getUid() { return uid; }
     public void setUid(String uid) { this.uid = uid; }
@@ -159,54 +189,14 @@ public class User {
     public int getUnhealthyFoodCount() { return unhealthyFoodCount; }
     public void setUnhealthyFoodCount(int unhealthyFoodCount) { this.unhealthyFoodCount = unhealthyFoodCount; }
 
-    // 몬스터 대기열 관련 메서드
-    public List<String> getMonsterQueue() {
-        if (monsterQueue == null) {
-            monsterQueue = new ArrayList<>();
-        }
-        return monsterQueue;
-    }
-    public void setMonsterQueue(List<String> monsterQueue) {
-        this.monsterQueue = monsterQueue != null ? monsterQueue : new ArrayList<>();
-    }
-
-    // 호환성을 위한 메서드 (첫 번째 몬스터 반환)
-    @Exclude
-    public String getActiveMonsterId() {
-        if (monsterQueue == null || monsterQueue.isEmpty()) {
-            return null;
-        }
-        return monsterQueue.get(0);
-    }
-
-    // 대기열에 몬스터 추가
-    @Exclude
-    public void addMonsterToQueue(String monsterId) {
-        if (monsterQueue == null) {
-            monsterQueue = new ArrayList<>();
-        }
-        monsterQueue.add(monsterId);
-    }
-
-    // 첫 번째 몬스터 제거 (전투 승리 시)
-    @Exclude
-    public String removeFirstMonster() {
-        if (monsterQueue == null || monsterQueue.isEmpty()) {
-            return null;
-        }
-        return monsterQueue.remove(0);
-    }
+    // 몬스터 대기열 크기 (서버에서 증감되므로 toMap()에는 포함하지 않음)
+    public int getMonsterQueueSize() { return monsterQueueSize; }
+    public void setMonsterQueueSize(int monsterQueueSize) { this.monsterQueueSize = monsterQueueSize; }
 
     // 대기열에 몬스터가 있는지 확인
     @Exclude
     public boolean hasActiveMonster() {
-        return monsterQueue != null && !monsterQueue.isEmpty();
-    }
-
-    // 대기열 크기 반환
-    @Exclude
-    public int getMonsterQueueSize() {
-        return monsterQueue != null ? monsterQueue.size() : 0;
+        return monsterQueueSize > 0;
     }
 
     public long getCreatedAt() { return createdAt; }
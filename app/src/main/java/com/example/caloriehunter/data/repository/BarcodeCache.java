@@ -0,0 +1,188 @@
+package com.example.caloriehunter.data.repository;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.LruCache;
+
+import androidx.annotation.Nullable;
+
+import com.example.caloriehunter.data.model.NutritionData;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * 바코드 조회 결과 캐시 (메모리 LRU + 디스크)
+ * 변환된 NutritionData 를 바코드별로 보관하고, "제품 없음" 결과도 짧게 보관 (같은 바코드 재조회 방지)
+ * 디스크는 바코드당 파일 하나 (cacheDir/barcode_cache/{barcode}.json), 디스크 입출력은 전용 스레드에서 처리
+ *
+ * 반환하는 NutritionData 는 항상 복사본 (화면에서 수정해도 캐시에 영향 없음)
+ */
+class BarcodeCache {
+
+    private static final String TAG = "BarcodeCache";
+    private static final String DIR_NAME = "barcode_cache";
+    private static final int MEMORY_ENTRIES = 200;
+
+    // 파일 이름으로 쓸 수 있는 바코드만 디스크에 저장
+    private static final Pattern FILE_KEY = Pattern.compile("[0-9A-Za-z_-]{1,64}");
+
+    /**
+     * 캐시 항목 (data 가 null 이면 "제품 없음")
+     */
+    static final class Entry {
+        @Nullable final NutritionData data;
+        final long savedAt;
+
+        Entry(@Nullable NutritionData data, long savedAt) {
+            this.data = data;
+            this.savedAt = savedAt;
+        }
+
+        boolean isNotFound() {
+            return data == null;
+        }
+    }
+
+    // 디스크 파일 형식
+    private static final class DiskEntry {
+        NutritionData data;
+        long savedAt;
+    }
+
+    private final LruCache<String, Entry> memory = new LruCache<>(MEMORY_ENTRIES);
+    private final ExecutorService diskExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "barcode-cache");
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Gson gson = new Gson();
+
+    // 디스크 캐시 폴더 (attach 전이면 null → 메모리만 사용)
+    @Nullable
+    private volatile File dir;
+
+    void attach(File cacheDir) {
+        File target = new File(cacheDir, DIR_NAME);
+        diskExecutor.execute(() -> {
+            if (!target.isDirectory() && !target.mkdirs()) {
+                Log.w(TAG, "디스크 캐시 폴더 생성 실패: " + target);
+                return;
+            }
+            dir = target;
+        });
+    }
+
+    /**
+     * 메모리에서만 조회 (메인 스레드에서 바로 사용)
+     */
+    @Nullable
+    Entry peek(String barcode) {
+        return memory.get(barcode);
+    }
+
+    /**
+     * 디스크에서 조회 후 메인 스레드로 전달 (없거나 읽기 실패면 null), 찾으면 메모리에도 올림
+     */
+    void load(String barcode, Consumer<Entry> onLoaded) {
+        diskExecutor.execute(() -> {
+            Entry entry = readDisk(barcode);
+            if (entry != null) memory.put(barcode, entry);
+            mainHandler.post(() -> onLoaded.accept(entry));
+        });
+    }
+
+    /**
+     * 조회 결과 저장 (data 가 null 이면 "제품 없음")
+     */
+    void put(String barcode, @Nullable NutritionData data) {
+        Entry entry = new Entry(data != null ? copyOf(data) : null, System.currentTimeMillis());
+        memory.put(barcode, entry);
+        diskExecutor.execute(() -> writeDisk(barcode, entry));
+    }
+
+    // ========== 디스크 ==========
+
+    @Nullable
+    private File fileFor(String barcode) {
+        File current = dir;
+        if (current == null || !FILE_KEY.matcher(barcode).matches()) return null;
+        return new File(current, barcode + ".json");
+    }
+
+    @Nullable
+    private Entry readDisk(String barcode) {
+        File file = fileFor(barcode);
+        if (file == null || !file.isFile()) return null;
+
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            DiskEntry saved = gson.fromJson(reader, DiskEntry.class);
+            return saved != null ? new Entry(saved.data, saved.savedAt) : null;
+        } catch (IOException | JsonParseException e) {
+            Log.w(TAG, "디스크 캐시 읽기 실패: " + barcode, e);
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+            return null;
+        }
+    }
+
+    private void writeDisk(String barcode, Entry entry) {
+        File file = fileFor(barcode);
+        if (file == null) return;
+
+        DiskEntry saved = new DiskEntry();
+        saved.data = entry.data;
+        saved.savedAt = entry.savedAt;
+
+        // 임시 파일에 쓴 뒤 교체 (쓰다 죽어도 깨진 파일이 남지 않게)
+        File temp = new File(file.getPath() + ".tmp");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(temp), StandardCharsets.UTF_8)) {
+            gson.toJson(saved, writer);
+        } catch (IOException e) {
+            Log.w(TAG, "디스크 캐시 쓰기 실패: " + barcode, e);
+            //noinspection ResultOfMethodCallIgnored
+            temp.delete();
+            return;
+        }
+        if (!temp.renameTo(file)) {
+            Log.w(TAG, "디스크 캐시 교체 실패: " + barcode);
+            //noinspection ResultOfMethodCallIgnored
+            temp.delete();
+        }
+    }
+
+    static NutritionData copyOf(NutritionData data) {
+        return new NutritionData.Builder()
+                .foodName(data.getFoodName())
+                .barcode(data.getBarcode())
+                .imageUrl(data.getImageUrl())
+                .calories(data.getCalories())
+                .protein(data.getProtein())
+                .fat(data.getFat())
+                .saturatedFat(data.getSaturatedFat())
+                .transFat(data.getTransFat())
+                .carbohydrates(data.getCarbohydrates())
+                .sugar(data.getSugar())
+                .fiber(data.getFiber())
+                .sodium(data.getSodium())
+                .source(data.getSource())
+                .confidence(data.getConfidence())
+                .servingSize(data.getServingSize())
+                .build();
+    }
+}
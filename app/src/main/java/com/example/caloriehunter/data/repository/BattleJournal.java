@@ -0,0 +1,156 @@
+package com.example.caloriehunter.data.repository;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import com.example.caloriehunter.data.model.Item;
+import com.google.firebase.database.ServerValue;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 전투 저널 (write-behind)
+ * 전투 중 발생하는 인벤토리/장착 변경을 메모리와 디스크에 기록해두고
+ * 전투 종료(승리/패배/도망) 또는 화면 이탈 시 한 번에 쓰기 대기열(OutboundWriteQueue)로 넘김
+ *
+ * 같은 경로에 대한 변경은 마지막 값만 남음 (예: 내구도 10 → 9 → 8 은 8 한 번만 기록)
+ * 수량처럼 다른 곳에서도 바뀌는 값은 증가량(ServerValue.increment)으로 기록하고 합침
+ */
+public class BattleJournal {
+
+    private static final String TAG = "BattleJournal";
+    private static final String PREFS_NAME = "battle_journal";
+
+    private final SharedPreferences prefs;
+    private final String userId;
+    private final String prefsKey;
+
+    // 루트 기준 경로 → 값 (null 이면 삭제)
+    private final Map<String, Object> pending = new LinkedHashMap<>();
+
+    public BattleJournal(Context context, String userId) {
+        this.prefs = context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        this.userId = userId;
+        this.prefsKey = "pending_" + userId;
+        restore();
+    }
+
+    // ========== 기록 ==========
+
+    /**
+     * 무기 내구도 변경
+     */
+    public void setWeaponDurability(String weaponId, int durability) {
+        record(userPath("inventory/weapons/" + weaponId + "/durability"), durability);
+    }
+
+    /**
+     * 무기 파괴 (삭제 + 장착 해제)
+     */
+    public void destroyWeapon(String weaponId) {
+        // 내구도 변경 기록은 삭제로 대체
+        pending.remove(userPath("inventory/weapons/" + weaponId + "/durability"));
+        record(userPath("inventory/weapons/" + weaponId), null);
+        record(FirebaseRepository.profilePath(userId, "equippedWeaponId"), null);
+        record(FirebaseRepository.profilePath(userId, "equippedWeaponName"), null);
+        record(FirebaseRepository.profilePath(userId, "equippedWeaponPower"), 0);
+    }
+
+    /**
+     * 아이템 1개 소비 (마지막 1개면 삭제, 아니면 수량 -1 증가량)
+     * 절대값으로 쓰면 반영 전에 다른 기기/보상으로 바뀐 수량을 덮어씀
+     */
+    public void consumeItem(Item item) {
+        String itemPath = userPath(FirebaseRepository.inventoryPath(item.getType()) + "/" + item.getId());
+        if (item.getQuantity() <= 1) {
+            pending.remove(itemPath + "/quantity");
+            record(itemPath, null);
+        } else {
+            item.setQuantity(item.getQuantity() - 1);
+            String quantityPath = itemPath + "/quantity";
+            record(quantityPath, OutboundWriteQueue.combine(pending.get(quantityPath),
+                    pending.containsKey(quantityPath), ServerValue.increment(-1)));
+        }
+    }
+
+    public boolean hasPending() {
+        return !pending.isEmpty();
+    }
+
+    public int size() {
+        return pending.size();
+    }
+
+    // ========== 반영 ==========
+
+    /**
+     * 쌓인 변경을 쓰기 대기열로 넘김
+     * 대기열이 디스크 저장/병합/재시도를 맡으므로 저널은 비움
+     */
+    public void flush(FirebaseRepository repository) {
+        if (pending.isEmpty()) return;
+
+        repository.enqueueWrites(new HashMap<>(pending));
+        pending.clear();
+        persist();
+    }
+
+    // ========== 내부 ==========
+
+    private String userPath(String path) {
+        return "users/" + userId + "/" + path;
+    }
+
+    private void record(String path, Object value) {
+        pending.put(path, value);
+        persist();
+    }
+
+    /**
+     * 디스크 저장 (SharedPreferences.apply()는 비동기로 기록)
+     */
+    private void persist() {
+        if (pending.isEmpty()) {
+            prefs.edit().remove(prefsKey).apply();
+            return;
+        }
+
+        JSONObject json = new JSONObject();
+        try {
+            for (Map.Entry<String, Object> entry : pending.entrySet()) {
+                json.put(entry.getKey(), OutboundWriteQueue.toJson(entry.getValue()));
+            }
+        } catch (JSONException e) {
+            Log.w(TAG, "전투 저널 직렬화 실패", e);
+            return;
+        }
+        prefs.edit().putString(prefsKey, json.toString()).apply();
+    }
+
+    /**
+     * 이전 프로세스에서 반영하지 못한 기록 복구
+     */
+    private void restore() {
+        String saved = prefs.getString(prefsKey, null);
+        if (saved == null) return;
+
+        try {
+            JSONObject json = new JSONObject(saved);
+            Iterator<String> keys = json.keys();
+            while (keys.hasNext()) {
+                String key = keys.next();
+                pending.put(key, OutboundWriteQueue.fromJson(json.get(key)));
+            }
+        } catch (JSONException e) {
+            Log.w(TAG, "전투 저널 복구 실패", e);
+            prefs.edit().remove(prefsKey).apply();
+        }
+    }
+}
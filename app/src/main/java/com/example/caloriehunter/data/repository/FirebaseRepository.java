@@ -1,29 +1,69 @@
 package com.example.caloriehunter.data.repository;
 
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
+import com.example.caloriehunter.BuildConfig;
 import com.example.caloriehunter.data.model.AttendanceReward;
+import com.example.caloriehunter.data.model.BattleContext;
 import com.example.caloriehunter.data.model.BattleLog;
 import com.example.caloriehunter.data.model.DailyQuest;
+import com.example.caloriehunter.data.model.InventorySnapshot;
 import com.example.caloriehunter.data.model.Item;
 import com.example.caloriehunter.data.model.Monster;
 import com.example.caloriehunter.data.model.NutritionRecord;
+import com.example.caloriehunter.data.model.NutritionStats;
 import com.example.caloriehunter.data.model.User;
+import com.example.caloriehunter.game.FoodAnalyzer;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.database.DataSnapshot;
 import com.google.firebase.database.DatabaseError;
 import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.MutableData;
+import com.google.firebase.database.Query;
+import com.google.firebase.database.ServerValue;
+import com.google.firebase.database.Transaction;
 import com.google.firebase.database.ValueEventListener;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
 import com.google.firebase.auth.AuthCredential;
 import com.google.firebase.auth.GoogleAuthProvider;
 
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * Firebase Realtime Database 레포지토리
@@ -35,6 +75,35 @@ public class FirebaseRepository {
 
     private final FirebaseAuth auth;
     private final DatabaseReference database;
+    private final TemplateCatalog templates;
+
+    // 스냅샷 → 모델 변환/정렬용 (메인 스레드 밖에서 처리 후 결과만 메인으로 전달)
+    // 스레드 2개, 대기열 DECODE_QUEUE_CAPACITY 개, 가득 차면 변환하지 않고 onError 로 알림
+    // (호출 스레드 = 메인 스레드에서 변환하지 않도록 CallerRunsPolicy 는 쓰지 않음)
+    private static final int DECODE_QUEUE_CAPACITY = 32;
+    private final ThreadPoolExecutor decodeExecutor = createDecodeExecutor();
+    private final Map<String, Long> decodeTimesMs = new ConcurrentHashMap<>();  // 쿼리 → 마지막 변환 시간
+    private static final long SLOW_DECODE_MS = 16;  // 한 프레임
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Executor mainExecutor = mainHandler::post;
+
+    // Future 기한(deadline) 처리용
+    public static final long DEFAULT_READ_DEADLINE_MS = 10_000;
+    private final ScheduledExecutorService deadlineScheduler = Executors.newSingleThreadScheduledExecutor();
+
+    // 진행 중인 단일 조회 (key → 조회와 결과를 기다리는 리스너들)와 중복 제거 통계
+    private final Map<String, InFlightRead> inFlightReads = new HashMap<>();
+    private final AtomicLong issuedReadCount = new AtomicLong();
+    private final AtomicLong collapsedReadCount = new AtomicLong();
+
+    // 결과를 기다리지 않는 쓰기의 디스크 대기열 (Application 에서 연결)
+    private OutboundWriteQueue outbox;
+
+    // 유저 캐시 (users/{uid}/profile 상시 리스너로 갱신, 변경될 때마다 version 증가)
+    private String cachedUserId;
+    private DataSnapshot cachedUserSnapshot;
+    private long userCacheVersion;
+    private ValueEventListener userCacheListener;
 
     // 콜백 인터페이스
     public interface AuthCallback {
@@ -67,19 +136,118 @@ public class FirebaseRepository {
         void onError(String message);
     }
 
-    public interface ItemsCallback {
-        void onSuccess(List<Item> items);
+    public interface SimpleCallback {
+        void onSuccess();
         void onError(String message);
     }
 
-    public interface SimpleCallback {
-        void onSuccess();
+    public interface InventoryCallback {
+        void onSuccess(InventorySnapshot inventory);
         void onError(String message);
     }
 
+    public interface BattleContextCallback {
+        void onSuccess(BattleContext context);
+        void onError(String message);
+    }
+
+    /**
+     * Future API 실패 원인 (콜백의 onError 메시지에 해당)
+     */
+    public static class RepositoryException extends RuntimeException {
+        public RepositoryException(String message) {
+            super(message);
+        }
+    }
+
+    // 오프라인 캐시 크기 (기본 10MB → 인벤토리/기록이 많은 유저도 핵심 경로가 밀려나지 않게)
+    private static final long PERSISTENCE_CACHE_BYTES = 30L * 1024 * 1024;
+
+    // 영양 기록 날짜 버킷 이전이 끝난 유저 (끝나기 전에는 옛 평평한 경로도 함께 조회)
+    private final Set<String> nutritionMigratedUsers = ConcurrentHashMap.newKeySet();
+    private NutritionRecordMigration nutritionMigration;
+
+    // keepSynced 중인 일일 퀘스트 날짜 (유저 캐시 대상 유저 기준)
+    private String syncedQuestDate;
+
+    // 콜드 스타트 → 첫 데이터 표시까지 걸린 시간 (아직 없으면 -1)
+    private long timeToDataMs = -1;
+
     private FirebaseRepository() {
         auth = FirebaseAuth.getInstance();
-        database = FirebaseDatabase.getInstance().getReference();
+
+        // 디스크 캐시는 다른 사용보다 먼저 설정해야 함 (이 생성자가 첫 사용 지점)
+        FirebaseDatabase firebaseDatabase = FirebaseDatabase.getInstance();
+        if (BuildConfig.RTDB_PERSISTENCE) {
+            firebaseDatabase.setPersistenceEnabled(true);
+            firebaseDatabase.setPersistenceCacheSizeBytes(PERSISTENCE_CACHE_BYTES);
+        }
+        database = firebaseDatabase.getReference();
+        templates = new TemplateCatalog(this, database);
+    }
+
+    /**
+     * 자주 쓰는 경로를 항상 동기화 상태로 유지 (keepSynced)
+     * 디스크 캐시와 함께 쓰면 화면 진입 시 로컬 데이터로 바로 응답하고 서버 값은 뒤이어 반영됨
+     * 유저 본문(profile)은 유저 캐시 리스너가 이미 동기화하므로 여기서는 그 밖의 핵심 경로만 지정
+     *
+     * @param keep false 면 해제 (다른 유저로 바뀔 때)
+     */
+    private synchronized void primeHotPaths(String uid, boolean keep) {
+        DatabaseReference userRef = database.child("users").child(uid);
+        userRef.child("monsterQueue").keepSynced(keep);
+        userRef.child("inventory").keepSynced(keep);
+        if (keep) {
+            keepTodayQuestsSynced(uid);
+        } else if (syncedQuestDate != null) {
+            userRef.child("dailyQuests").child(syncedQuestDate).keepSynced(false);
+            syncedQuestDate = null;
+        }
+    }
+
+    /**
+     * 오늘 날짜의 일일 퀘스트 버킷을 keepSynced (날짜가 바뀌었으면 이전 날짜는 해제)
+     * 프로세스가 자정을 넘겨 살아 있어도 퀘스트 화면에 들어갈 때 오늘 버킷으로 옮겨짐
+     */
+    private synchronized void keepTodayQuestsSynced(String uid) {
+        String today = DailyQuest.getTodayDateString();
+        if (today.equals(syncedQuestDate)) return;
+
+        DatabaseReference questsRef = database.child("users").child(uid).child("dailyQuests");
+        if (syncedQuestDate != null) questsRef.child(syncedQuestDate).keepSynced(false);
+        questsRef.child(today).keepSynced(true);
+        syncedQuestDate = today;
+    }
+
+    /**
+     * 영양 기록 날짜 버킷 이전 시작 (이미 끝났으면 체크포인트만 읽고 종료)
+     */
+    private synchronized void startNutritionMigration(String uid) {
+        if (nutritionMigration != null) nutritionMigration.cancel();
+        if (nutritionMigratedUsers.contains(uid)) {
+            nutritionMigration = null;
+            return;
+        }
+        nutritionMigration = new NutritionRecordMigration(database.child("users").child(uid),
+                () -> nutritionMigratedUsers.add(uid));
+        nutritionMigration.start();
+    }
+
+    /**
+     * 첫 데이터 표시 시점 기록 (프로세스 시작 기준, 최초 1회만)
+     */
+    public synchronized void markTimeToData() {
+        if (timeToDataMs >= 0) return;
+        timeToDataMs = SystemClock.elapsedRealtime() - Process.getStartElapsedRealtime();
+        Log.i(TAG, "콜드 스타트 첫 데이터까지 " + timeToDataMs + "ms (오프라인 캐시 "
+                + (BuildConfig.RTDB_PERSISTENCE ? "켜짐" : "꺼짐") + ")");
+    }
+
+    /**
+     * 콜드 스타트 → 첫 데이터까지 걸린 시간 (ms, 아직 없으면 -1)
+     */
+    public synchronized long getTimeToDataMs() {
+        return timeToDataMs;
     }
 
     public static synchronized FirebaseRepository getInstance() {
@@ -114,460 +282,1486 @@ public class FirebaseRepository {
 
     // ========== 유저 ==========
 
+    // 유저 본문 필드(User) 노드 (users/{uid}/profile)
+    // 몬스터/인벤토리/기록 같은 큰 하위 트리와 분리해 유저 캐시 리스너가 이 노드만 동기화하도록 함
+    static final String PROFILE = "profile";
+
+    // 옛 형식에서 users/{uid} 바로 아래에 있던 본문 필드 (처음 읽을 때 profile 로 옮김)
+    private static final String[] LEGACY_PROFILE_FIELDS = {
+            "uid", "nickname", "level", "exp", "expToNextLevel", "hp", "maxHp",
+            "totalMonstersKilled", "totalDamageDealt", "healthyFoodCount", "unhealthyFoodCount",
+            "monsterQueueSize", "equippedWeaponId", "equippedWeaponName", "equippedWeaponPower",
+            "createdAt", "lastLoginAt"
+    };
+
+    // profile 생성 전에도 ServerValue.increment 로 먼저 쓰일 수 있는 필드 (생성할 때 기존 값에 더함)
+    private static final Set<String> PROFILE_INCREMENT_FIELDS = new HashSet<>(Arrays.asList(
+            "totalMonstersKilled", "totalDamageDealt", "healthyFoodCount", "unhealthyFoodCount",
+            "monsterQueueSize", "exp"));
+
+    private DatabaseReference profileRef(String uid) {
+        return database.child("users").child(uid).child(PROFILE);
+    }
+
+    /**
+     * 루트 기준 유저 본문 필드 경로 (users/{uid}/profile/{field})
+     */
+    static String profilePath(String uid, String field) {
+        return "users/" + uid + "/" + PROFILE + "/" + field;
+    }
+
     /**
      * 유저 생성 또는 조회
+     * 캐시가 준비돼 있으면 네트워크 없이 바로(동기) 전달, 아니면 profile 노드만 한 번 읽고 캐시 리스너 시작
      */
     public void getOrCreateUser(String uid, String nickname, UserCallback callback) {
+        deliver(getOrCreateUserAsync(uid, nickname), callback::onSuccess, callback::onError);
+    }
+
+    /**
+     * 유저 생성 또는 조회 (Future 버전, 캐시가 있으면 이미 완료된 Future)
+     * 읽기 전에 취소되면 리스너를 해제하고 접속 시간 기록/profile 생성도 하지 않음
+     */
+    public ListenableFuture<User> getOrCreateUserAsync(String uid, String nickname) {
+        User cached = getCachedUser(uid);
+        if (cached != null) return Futures.immediateFuture(cached);
+
+        DatabaseReference profileRef = profileRef(uid);
+        startUserCache(uid);
+
+        return Futures.transformAsync(readOnceAsync("users/" + uid + "/" + PROFILE, profileRef), snapshot -> {
+            if (!snapshot.hasChild("uid")) {
+                // 신규 유저 또는 옛 형식 유저 (카운터 증가만 먼저 쓰인 profile 도 아직 생성 전)
+                return createProfile(uid, nickname);
+            }
+            // 기존 유저 (세션당 한 번만 접속 시간 기록)
+            User user = User.fromMap(valueMap(snapshot));
+            if (user == null) throw new RepositoryException("유저 데이터 파싱 실패");
+            user.setLastLoginAt(System.currentTimeMillis());
+            profileRef.child("lastLoginAt").setValue(user.getLastLoginAt());
+            if (user.applyPendingLevelUps()) {
+                // 경험치만 반영되고 레벨 트랜잭션 전에 종료된 경우
+                settleLevel(uid, null, new SimpleCallback() {
+                    @Override
+                    public void onSuccess() {}
+                    @Override
+                    public void onError(String message) {
+                        Log.w(TAG, "레벨 정리 실패: " + message);
+                    }
+                });
+            }
+            return Futures.immediateFuture(user);
+        }, MoreExecutors.directExecutor());
+    }
+
+    /**
+     * profile 노드 생성
+     * 옛 형식 유저(users/{uid}/uid 가 있음)면 필드별로 읽어 그대로 옮기고(대기열 카운트가 없으면 대기열 크기로 채움),
+     * 없으면 신규 유저 (표시 필드 한 번만 읽음)
+     * uid 가 없을 때만 쓰는 트랜잭션이라 다른 기기가 먼저 만들었으면 그 값을 사용
+     */
+    private ListenableFuture<User> createProfile(String uid, String nickname) {
+        DatabaseReference userRef = database.child("users").child(uid);
+        AtomicBoolean queueCounted = new AtomicBoolean(false);
+
+        ListenableFuture<Map<String, Object>> legacy = Futures.transformAsync(readAsync(userRef.child("uid")),
+                marker -> marker.exists()
+                        ? readLegacyProfile(uid, queueCounted)
+                        : Futures.immediateFuture(new HashMap<>()),
+                MoreExecutors.directExecutor());
+
+        return Futures.transformAsync(legacy, values -> {
+            boolean migrating = !values.isEmpty();
+            Map<String, Object> profile = migrating ? values : User.createNewUser(uid, nickname).toMap();
+            profile.put("lastLoginAt", System.currentTimeMillis());
+            return writeProfileIfAbsent(uid, profile, migrating, queueCounted.get());
+        }, MoreExecutors.directExecutor());
+    }
+
+    /**
+     * 옛 형식 본문 필드를 필드별로 읽음 (users/{uid} 전체는 몬스터/기록까지 내려받으므로 읽지 않음)
+     * 대기열 카운트 필드가 없으면 대기열 크기로 채우고 queueCounted 를 표시
+     */
+    private ListenableFuture<Map<String, Object>> readLegacyProfile(String uid, AtomicBoolean queueCounted) {
         DatabaseReference userRef = database.child("users").child(uid);
+        List<ListenableFuture<DataSnapshot>> reads = new ArrayList<>(LEGACY_PROFILE_FIELDS.length);
+        for (String field : LEGACY_PROFILE_FIELDS) {
+            reads.add(readAsync(userRef.child(field)));
+        }
+
+        return Futures.transformAsync(Futures.allAsList(reads), fields -> {
+            Map<String, Object> values = new HashMap<>();
+            for (DataSnapshot field : fields) {
+                if (field.exists()) values.put(field.getKey(), field.getValue());
+            }
+            if (values.containsKey("monsterQueueSize")) {
+                return Futures.immediateFuture(values);
+            }
+            // 기존 배열형 대기열 유저: 카운트 필드가 없으면 대기열 크기로 채움
+            return Futures.transform(readAsync(monsterQueueRef(uid)), queue -> {
+                values.put("monsterQueueSize", queue.getChildrenCount());
+                queueCounted.set(true);
+                return values;
+            }, MoreExecutors.directExecutor());
+        }, MoreExecutors.directExecutor());
+    }
+
+    /**
+     * 생성 전에 먼저 쓰인 profile 값(카운터 증가, 장착 변경 등)을 새 본문에 합침
+     * 증가 필드는 더하고(대기열 크기로 채운 카운트는 이미 포함하므로 제외), 나머지는 먼저 쓰인 값이 최신
+     */
+    private static Map<String, Object> mergeProfileStub(Map<String, Object> profile, @Nullable Map<String, Object> stub,
+                                                boolean queueCounted) {
+        Map<String, Object> merged = new HashMap<>(profile);
+        if (stub == null) return merged;
+        for (Map.Entry<String, Object> entry : stub.entrySet()) {
+            String field = entry.getKey();
+            Object base = merged.get(field);
+            if (PROFILE_INCREMENT_FIELDS.contains(field)) {
+                if (queueCounted && field.equals("monsterQueueSize")) continue;
+                if (base instanceof Number && entry.getValue() instanceof Number) {
+                    merged.put(field, ((Number) base).longValue() + ((Number) entry.getValue()).longValue());
+                    continue;
+                }
+            }
+            merged.put(field, entry.getValue());
+        }
+        return merged;
+    }
 
-        userRef.addListenerForSingleValueEvent(new ValueEventListener() {
+    /**
+     * profile 이 아직 생성되지 않았을 때만 기록 (옮긴 경우 커밋 후 옛 필드 삭제)
+     * uid 없이 먼저 쓰인 값만 있으면 생성 전으로 보고 그 값을 합쳐 기록
+     */
+    private ListenableFuture<User> writeProfileIfAbsent(String uid, Map<String, Object> profile, boolean migrating,
+                                                        boolean queueCounted) {
+        SettableFuture<User> future = SettableFuture.create();
+        profileRef(uid).runTransaction(new Transaction.Handler() {
+            @NonNull
             @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                if (snapshot.exists()) {
-                    // 기존 유저
-                    User user = snapshot.getValue(User.class);
-                    if (user != null) {
-                        user.setLastLoginAt(System.currentTimeMillis());
-                        userRef.child("lastLoginAt").setValue(user.getLastLoginAt());
-                        callback.onSuccess(user);
-                    } else {
-                        callback.onError("유저 데이터 파싱 실패");
-                    }
-                } else {
-                    // 신규 유저 생성
-                    User newUser = User.createNewUser(uid, nickname);
-                    userRef.setValue(newUser.toMap())
-                            .addOnSuccessListener(aVoid -> callback.onSuccess(newUser))
-                            .addOnFailureListener(e -> callback.onError(e.getMessage()));
+            public Transaction.Result doTransaction(@NonNull MutableData currentData) {
+                if (currentData.hasChild("uid")) {
+                    return Transaction.abort();  // 다른 기기가 먼저 생성
                 }
+                Object current = currentData.getValue();
+                @SuppressWarnings("unchecked")
+                Map<String, Object> stub = current instanceof Map ? (Map<String, Object>) current : null;
+                currentData.setValue(mergeProfileStub(profile, stub, queueCounted));
+                return Transaction.success(currentData);
             }
 
             @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                callback.onError(error.getMessage());
+            public void onComplete(@Nullable DatabaseError error, boolean committed,
+                                   @Nullable DataSnapshot currentData) {
+                if (error != null) {
+                    future.setException(new RepositoryException(error.getMessage()));
+                    return;
+                }
+                if (committed && migrating) {
+                    Map<String, Object> cleanup = new HashMap<>();
+                    for (String field : LEGACY_PROFILE_FIELDS) {
+                        cleanup.put(field, null);
+                    }
+                    database.child("users").child(uid).updateChildren(cleanup)
+                            .addOnFailureListener(e -> Log.w(TAG, "옛 유저 필드 정리 실패: " + e.getMessage()));
+                }
+                User user = currentData != null ? User.fromMap(valueMap(currentData)) : null;
+                if (user != null) {
+                    future.set(user);
+                } else {
+                    future.setException(new RepositoryException("유저 데이터 파싱 실패"));
+                }
             }
         });
+        return future;
     }
 
     /**
-     * 유저 정보 업데이트
+     * 캐시된 유저 (캐시가 아직 없으면 null)
+     * 호출할 때마다 새 객체를 만들어 반환하므로 화면에서 수정해도 캐시에 영향 없음
      */
-    public void updateUser(User user, SimpleCallback callback) {
-        database.child("users").child(user.getUid())
-                .updateChildren(user.toMap())
-                .addOnSuccessListener(aVoid -> callback.onSuccess())
-                .addOnFailureListener(e -> callback.onError(e.getMessage()));
+    public synchronized User getCachedUser(String uid) {
+        if (uid == null || !uid.equals(cachedUserId)
+                || cachedUserSnapshot == null || !cachedUserSnapshot.hasChild("uid")) {
+            return null;
+        }
+        // 레벨 트랜잭션 전이면 쌓인 경험치로 레벨을 계산해서 전달
+        User user = User.fromMap(valueMap(cachedUserSnapshot));
+        if (user != null) user.applyPendingLevelUps();
+        return user;
     }
 
-    // ========== 몬스터 ==========
-
     /**
-     * 몬스터 저장 (대기열에 추가)
+     * 유저 캐시 버전 (서버/로컬 변경이 반영될 때마다 증가)
      */
-    public void saveMonster(Monster monster, MonsterCallback callback) {
-        String monsterId = monster.getId();
-        String ownerId = monster.getOwnerId();
-
-        database.child("monsters").child(monsterId)
-                .setValue(monster.toMap())
-                .addOnSuccessListener(aVoid -> {
-                    // 유저의 몬스터 대기열에 추가
-                    database.child("users").child(ownerId).child("monsterQueue")
-                            .addListenerForSingleValueEvent(new ValueEventListener() {
-                                @Override
-                                public void onDataChange(@NonNull DataSnapshot snapshot) {
-                                    List<String> queue = new ArrayList<>();
-                                    if (snapshot.exists()) {
-                                        for (DataSnapshot child : snapshot.getChildren()) {
-                                            String existingId = child.getValue(String.class);
-                                            if (existingId != null) {
-                                                queue.add(existingId);
-                                            }
-                                        }
-                                    }
-                                    queue.add(monsterId);
-
-                                    // 대기열 저장
-                                    database.child("users").child(ownerId).child("monsterQueue")
-                                            .setValue(queue)
-                                            .addOnSuccessListener(v -> callback.onSuccess(monster))
-                                            .addOnFailureListener(e -> callback.onError(e.getMessage()));
-                                }
-
-                                @Override
-                                public void onCancelled(@NonNull DatabaseError error) {
-                                    callback.onError(error.getMessage());
-                                }
-                            });
-                })
-                .addOnFailureListener(e -> callback.onError(e.getMessage()));
+    public synchronized long getUserCacheVersion() {
+        return userCacheVersion;
     }
 
     /**
-     * 유저의 활성 몬스터 조회 (대기열 첫 번째)
+     * users/{uid}/profile 상시 리스너 시작 (다른 유저로 바뀌면 이전 리스너 해제)
+     * 본문 필드만 동기화하므로 몬스터/인벤토리/기록이 늘어나도 받는 양이 같고, 이 기기의 쓰기도 즉시 반영됨
      */
-    public void getActiveMonster(String userId, MonsterCallback callback) {
-        database.child("users").child(userId).child("monsterQueue")
-                .addListenerForSingleValueEvent(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        if (!snapshot.exists() || snapshot.getChildrenCount() == 0) {
-                            callback.onError("활성 몬스터 없음");
-                            return;
-                        }
+    private synchronized void startUserCache(String uid) {
+        if (uid.equals(cachedUserId) && userCacheListener != null) return;
 
-                        // 첫 번째 몬스터 ID 가져오기
-                        String monsterId = null;
-                        for (DataSnapshot child : snapshot.getChildren()) {
-                            monsterId = child.getValue(String.class);
-                            break;  // 첫 번째만 가져옴
-                        }
-
-                        if (monsterId == null) {
-                            callback.onError("활성 몬스터 없음");
-                            return;
-                        }
+        if (cachedUserId != null && userCacheListener != null) {
+            profileRef(cachedUserId).removeEventListener(userCacheListener);
+        }
+        if (cachedUserId != null && !uid.equals(cachedUserId)) {
+            primeHotPaths(cachedUserId, false);
+        }
 
-                        final String finalMonsterId = monsterId;
-                        database.child("monsters").child(monsterId)
-                                .addListenerForSingleValueEvent(new ValueEventListener() {
-                                    @Override
-                                    public void onDataChange(@NonNull DataSnapshot snapshot) {
-                                        Monster monster = snapshot.getValue(Monster.class);
-                                        if (monster != null && !"defeated".equals(monster.getStatus())) {
-                                            callback.onSuccess(monster);
-                                        } else {
-                                            // 처치된 몬스터 - 대기열에서 제거하고 다음 몬스터 조회
-                                            removeMonsterFromQueue(userId, finalMonsterId, new SimpleCallback() {
-                                                @Override
-                                                public void onSuccess() {
-                                                    getActiveMonster(userId, callback);  // 재귀 호출로 다음 몬스터 조회
-                                                }
-                                                @Override
-                                                public void onError(String message) {
-                                                    callback.onError("활성 몬스터 없음");
-                                                }
-                                            });
-                                        }
-                                    }
-
-                                    @Override
-                                    public void onCancelled(@NonNull DatabaseError error) {
-                                        callback.onError(error.getMessage());
-                                    }
-                                });
+        cachedUserId = uid;
+        cachedUserSnapshot = null;
+        primeHotPaths(uid, true);
+        startNutritionMigration(uid);
+        migrateLegacyMonsters(uid);
+        startExpirySweeper(uid);
+        userCacheListener = new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                synchronized (FirebaseRepository.this) {
+                    if (uid.equals(cachedUserId)) {
+                        cachedUserSnapshot = snapshot;
+                        userCacheVersion++;
                     }
+                }
+            }
 
-                    @Override
-                    public void onCancelled(@NonNull DatabaseError error) {
-                        callback.onError(error.getMessage());
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Log.w(TAG, "유저 캐시 리스너 취소: " + error.getMessage());
+                synchronized (FirebaseRepository.this) {
+                    if (uid.equals(cachedUserId)) {
+                        cachedUserSnapshot = null;
+                        userCacheListener = null;
                     }
-                });
+                }
+            }
+        };
+        profileRef(uid).addValueEventListener(userCacheListener);
     }
 
     /**
-     * 몬스터 대기열 크기 조회
+     * 장착 무기 정보만 업데이트 (카운터 등 다른 필드를 덮어쓰지 않음)
      */
-    public void getMonsterQueueSize(String userId, MonsterQueueCallback callback) {
-        database.child("users").child(userId).child("monsterQueue")
-                .addListenerForSingleValueEvent(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        int size = 0;
-                        if (snapshot.exists()) {
-                            size = (int) snapshot.getChildrenCount();
-                        }
-                        callback.onSuccess(size);
-                    }
+    public void updateEquippedWeapon(User user, SimpleCallback callback) {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("equippedWeaponId", user.getEquippedWeaponId());
+        updates.put("equippedWeaponName", user.getEquippedWeaponName());
+        updates.put("equippedWeaponPower", user.getEquippedWeaponPower());
 
-                    @Override
-                    public void onCancelled(@NonNull DatabaseError error) {
-                        callback.onError(error.getMessage());
-                    }
-                });
+        profileRef(user.getUid()).updateChildren(updates)
+                .addOnSuccessListener(aVoid -> callback.onSuccess())
+                .addOnFailureListener(e -> callback.onError(e.getMessage()));
     }
 
-    /**
-     * 몬스터 대기열에서 특정 몬스터 제거
-     */
-    public void removeMonsterFromQueue(String userId, String monsterId, SimpleCallback callback) {
-        database.child("users").child(userId).child("monsterQueue")
-                .addListenerForSingleValueEvent(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        List<String> queue = new ArrayList<>();
-                        if (snapshot.exists()) {
-                            for (DataSnapshot child : snapshot.getChildren()) {
-                                String existingId = child.getValue(String.class);
-                                if (existingId != null && !existingId.equals(monsterId)) {
-                                    queue.add(existingId);
-                                }
-                            }
-                        }
+    // ========== 유저 카운터 ==========
 
-                        database.child("users").child(userId).child("monsterQueue")
-                                .setValue(queue)
-                                .addOnSuccessListener(v -> callback.onSuccess())
-                                .addOnFailureListener(e -> callback.onError(e.getMessage()));
-                    }
+    // 서버에서 원자적으로 증가시키는 유저 카운터 필드
+    public static final String COUNTER_MONSTERS_KILLED = "totalMonstersKilled";
+    public static final String COUNTER_DAMAGE_DEALT = "totalDamageDealt";
+    public static final String COUNTER_HEALTHY_FOOD = "healthyFoodCount";
+    public static final String COUNTER_UNHEALTHY_FOOD = "unhealthyFoodCount";
 
-                    @Override
-                    public void onCancelled(@NonNull DatabaseError error) {
-                        callback.onError(error.getMessage());
-                    }
-                });
+    /**
+     * 카운터 증가 경로를 업데이트 맵에 추가 (루트 기준 경로)
+     */
+    private void putCounterIncrement(Map<String, Object> updates, String userId, String counter, long delta) {
+        updates.put(profilePath(userId, counter), ServerValue.increment(delta));
     }
 
     /**
-     * 몬스터 HP 업데이트 (전투 시)
+     * 경험치 지급 (커밋된 값이 로컬 User에도 반영됨)
      */
-    public void updateMonsterHp(String monsterId, int newHp, SimpleCallback callback) {
-        database.child("monsters").child(monsterId).child("hp").setValue(newHp)
-                .addOnSuccessListener(aVoid -> callback.onSuccess())
-                .addOnFailureListener(e -> callback.onError(e.getMessage()));
+    public void grantExp(String userId, User user, int amount, SimpleCallback callback) {
+        applyExpGain(userId, user, amount, callback);
     }
 
     /**
-     * 몬스터 처치 처리 (대기열에서 제거)
+     * 경험치 획득
+     * exp 는 쓰기 대기열에 increment 로 넣어 오프라인/앱 종료에도 유실되지 않게 하고,
+     * 반영된 뒤 settleLevel() 트랜잭션으로 레벨을 맞춤 (그 전에 앱이 종료되면 다음 로드 때 맞춤)
+     * local 이 있으면 바로 더하고, 레벨 트랜잭션이 끝나면 서버 값으로 갱신
      */
-    public void defeatMonster(String monsterId, String ownerId, SimpleCallback callback) {
-        database.child("monsters").child(monsterId).child("status").setValue("defeated")
-                .addOnSuccessListener(aVoid -> {
-                    // 대기열에서 몬스터 제거
-                    removeMonsterFromQueue(ownerId, monsterId, new SimpleCallback() {
-                        @Override
-                        public void onSuccess() {
-                            // 처치 수 증가
-                            database.child("users").child(ownerId).child("totalMonstersKilled")
-                                    .addListenerForSingleValueEvent(new ValueEventListener() {
-                                        @Override
-                                        public void onDataChange(@NonNull DataSnapshot snapshot) {
-                                            Integer count = snapshot.getValue(Integer.class);
-                                            database.child("users").child(ownerId)
-                                                    .child("totalMonstersKilled").setValue((count != null ? count : 0) + 1);
-                                        }
-
-                                        @Override
-                                        public void onCancelled(@NonNull DatabaseError error) {}
-                                    });
-                            callback.onSuccess();
-                        }
+    private void applyExpGain(String userId, @Nullable User local, int amount, SimpleCallback callback) {
+        Map<String, Object> updates = new HashMap<>();
+        putExpIncrement(updates, userId, local, amount);
+        enqueueWrites(updates, settleLevelAfter(userId, local, callback));
+    }
 
-                        @Override
-                        public void onError(String message) {
-                            callback.onError(message);
-                        }
-                    });
-                })
-                .addOnFailureListener(e -> callback.onError(e.getMessage()));
+    private void putExpIncrement(Map<String, Object> updates, String userId, @Nullable User local, int amount) {
+        updates.put(profilePath(userId, "exp"), ServerValue.increment(amount));
+        if (local != null) {
+            local.addExp(amount);
+        }
     }
 
-    // ========== 아이템 ==========
+    /**
+     * 쓰기가 반영되면 레벨 트랜잭션을 이어서 실행하는 콜백 (쓰기가 버려지면 바로 onError)
+     */
+    private SimpleCallback settleLevelAfter(String userId, @Nullable User local, SimpleCallback callback) {
+        return new SimpleCallback() {
+            @Override
+            public void onSuccess() {
+                settleLevel(userId, local, callback);
+            }
+
+            @Override
+            public void onError(String message) {
+                callback.onError(message);
+            }
+        };
+    }
 
     /**
-     * 아이템 저장 (인벤토리에 추가)
+     * 쌓인 exp 로 레벨업을 profile 트랜잭션으로 적용
+     * level/exp/expToNextLevel/maxHp/hp 를 서버의 현재 값 기준으로 한 번에 계산하므로
+     * 다른 기기에서 동시에 경험치를 얻어도 레벨업이 어긋나지 않음 (local 이 있으면 서버 값을 반영)
+     * 레벨업할 것이 없으면 쓰지 않음
      */
-    public void saveItem(Item item, ItemCallback callback) {
-        String path;
-        switch (item.getType()) {
-            case WEAPON:
-                path = "inventory/weapons";
-                break;
-            case POTION:
-                path = "inventory/potions";
-                break;
-            default:
-                path = "inventory/buffs";
-                break;
-        }
+    @SuppressWarnings("unchecked")
+    private void settleLevel(String userId, @Nullable User local, SimpleCallback callback) {
+        profileRef(userId).runTransaction(new Transaction.Handler() {
+            @NonNull
+            @Override
+            public Transaction.Result doTransaction(@NonNull MutableData currentData) {
+                Object value = currentData.getValue();
+                if (!(value instanceof Map)) {
+                    // 로컬 캐시에 없을 수 있음 - 서버 값으로 재시도되도록 그대로 커밋
+                    return Transaction.success(currentData);
+                }
+                User user = User.fromMap((Map<String, Object>) value);
+                if (user == null || !user.applyPendingLevelUps()) {
+                    return Transaction.abort();
+                }
+                currentData.child("exp").setValue(user.getExp());
+                currentData.child("level").setValue(user.getLevel());
+                currentData.child("expToNextLevel").setValue(user.getExpToNextLevel());
+                currentData.child("maxHp").setValue(user.getMaxHp());
+                currentData.child("hp").setValue(user.getHp());
+                return Transaction.success(currentData);
+            }
 
-        database.child("users").child(item.getOwnerId())
-                .child(path).child(item.getId())
-                .setValue(item.toMap())
-                .addOnSuccessListener(aVoid -> callback.onSuccess(item))
-                .addOnFailureListener(e -> callback.onError(e.getMessage()));
+            @Override
+            public void onComplete(@Nullable DatabaseError error, boolean committed,
+                                   @Nullable DataSnapshot currentData) {
+                if (error != null) {
+                    callback.onError(error.getMessage());
+                    return;
+                }
+                User settled = currentData != null && currentData.hasChild("uid")
+                        ? User.fromMap(valueMap(currentData)) : null;
+                if (settled == null) {
+                    callback.onError("유저 정보를 찾을 수 없습니다");
+                    return;
+                }
+                if (local != null) {
+                    local.setExp(settled.getExp());
+                    local.setLevel(settled.getLevel());
+                    local.setExpToNextLevel(settled.getExpToNextLevel());
+                    local.setMaxHp(settled.getMaxHp());
+                    local.setHp(settled.getHp());
+                }
+                callback.onSuccess();
+            }
+        });
     }
 
     /**
-     * 무기 목록 조회
+     * 전투 승리 기록
+     * 처치 수/데미지/경험치 증가 + 전투 기록 + 처치 퀘스트 진행을 한 번의 업데이트로 쓰기 대기열에 넣고,
+     * 반영되면 레벨 트랜잭션까지 끝난 뒤 콜백 (버려지거나 레벨 트랜잭션이 실패하면 onError)
      */
-    public void getWeapons(String userId, ItemsCallback callback) {
-        database.child("users").child(userId).child("inventory/weapons")
-                .addListenerForSingleValueEvent(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        List<Item> items = new ArrayList<>();
-                        for (DataSnapshot child : snapshot.getChildren()) {
-                            Item item = child.getValue(Item.class);
-                            if (item != null) {
-                                item.setType(Item.ItemType.WEAPON);
-                                items.add(item);
-                            }
-                        }
-                        callback.onSuccess(items);
-                    }
+    public void recordVictory(String userId, User user, Monster monster, int expGain, SimpleCallback callback) {
+        Map<String, Object> updates = new HashMap<>();
+        putCounterIncrement(updates, userId, COUNTER_MONSTERS_KILLED, 1);
+        putCounterIncrement(updates, userId, COUNTER_DAMAGE_DEALT, monster.getMaxHp());
+        user.setTotalMonstersKilled(user.getTotalMonstersKilled() + 1);
+        user.setTotalDamageDealt(user.getTotalDamageDealt() + monster.getMaxHp());
+        putExpIncrement(updates, userId, user, expGain);
+
+        BattleLog log = BattleLog.createVictoryLog(userId, monster, expGain);
+        updates.put("users/" + userId + "/battleLogs/" + log.getId(), log.toMap());
+        putQuestProgress(updates, userId, DailyQuest.QuestType.DEFEAT_MONSTER.name(), 1);
+
+        // 쓰기 대기열로 (실패 시 재시도, 반영되면 레벨 정리 후 콜백)
+        enqueueWrites(updates, settleLevelAfter(userId, user, callback));
+    }
 
-                    @Override
-                    public void onCancelled(@NonNull DatabaseError error) {
-                        callback.onError(error.getMessage());
-                    }
-                });
+    // ========== 몬스터 ==========
+
+    // 유저 트리로 옮기기 전 전역 몬스터 노드, 이동 완료 표시 (users/{uid} 기준)
+    private static final String LEGACY_MONSTERS = "monsters";
+    private static final String MONSTER_SHARD_MIGRATION = "migrations/monsterShards";
+
+    private DatabaseReference monsterQueueRef(String userId) {
+        return database.child("users").child(userId).child("monsterQueue");
     }
 
     /**
-     * 포션 목록 조회
+     * 루트 기준 몬스터 경로 (users/{uid}/monsters/{id}, 대기열과 같은 유저 트리에 둠)
      */
-    public void getPotions(String userId, ItemsCallback callback) {
-        database.child("users").child(userId).child("inventory/potions")
-                .addListenerForSingleValueEvent(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        List<Item> items = new ArrayList<>();
-                        for (DataSnapshot child : snapshot.getChildren()) {
-                            Item item = child.getValue(Item.class);
-                            if (item != null) {
-                                item.setType(Item.ItemType.POTION);
-                                items.add(item);
-                            }
-                        }
-                        callback.onSuccess(items);
-                    }
+    static String monsterPath(String ownerId, String monsterId) {
+        return "users/" + ownerId + "/monsters/" + monsterId;
+    }
 
-                    @Override
-                    public void onCancelled(@NonNull DatabaseError error) {
-                        callback.onError(error.getMessage());
-                    }
-                });
+    /**
+     * 전역 노드 값 위에 유저 트리에 먼저 쓰인 필드를 덮어씀 (둘 다 없으면 null)
+     */
+    @Nullable
+    private static Map<String, Object> mergeLegacyMonster(@Nullable Map<String, Object> legacy,
+                                                          @Nullable Map<String, Object> partial) {
+        if (legacy == null) return partial;
+        Map<String, Object> merged = new HashMap<>(legacy);
+        if (partial != null) merged.putAll(partial);
+        return merged;
     }
 
     /**
-     * 버프 아이템 목록 조회
+     * 대기열에 남은 몬스터를 전역 monsters/{id} 에서 users/{uid}/monsters/{id} 로 한 번에 이동
+     * 대기열 + 유저 트리 몬스터를 읽고, 옮길 몬스터만 전역 노드에서 읽어
+     * 이동/삭제/완료 표시를 한 번의 다중 경로 업데이트로 기록 (실패하면 다음 로그인 때 다시 시도)
+     * 대기열에서 빠진(처치/만료) 몬스터는 다시 읽히지 않으므로 옮기지 않음
      */
-    public void getBuffs(String userId, ItemsCallback callback) {
-        database.child("users").child(userId).child("inventory/buffs")
-                .addListenerForSingleValueEvent(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        List<Item> items = new ArrayList<>();
-                        for (DataSnapshot child : snapshot.getChildren()) {
-                            Item item = child.getValue(Item.class);
-                            if (item != null) {
-                                item.setType(Item.ItemType.BUFF);
-                                items.add(item);
-                            }
-                        }
-                        callback.onSuccess(items);
-                    }
+    private void migrateLegacyMonsters(String uid) {
+        DatabaseReference userRef = database.child("users").child(uid);
 
-                    @Override
-                    public void onCancelled(@NonNull DatabaseError error) {
-                        callback.onError(error.getMessage());
+        ListenableFuture<Map<String, Object>> moves = Futures.transformAsync(
+                readAsync(userRef.child(MONSTER_SHARD_MIGRATION)),
+                done -> {
+                    if (Boolean.TRUE.equals(done.getValue(Boolean.class))) {
+                        return Futures.<Map<String, Object>>immediateFuture(Collections.emptyMap());
+                    }
+                    return Futures.transformAsync(
+                            Futures.allAsList(readAsync(monsterQueueRef(uid)), readAsync(userRef.child("monsters"))),
+                            snapshots -> readLegacyMoves(uid, snapshots.get(0), snapshots.get(1)),
+                            MoreExecutors.directExecutor());
+                },
+                MoreExecutors.directExecutor());
+
+        Futures.addCallback(moves, new FutureCallback<Map<String, Object>>() {
+            @Override
+            public void onSuccess(Map<String, Object> updates) {
+                if (updates.isEmpty()) return;
+                database.updateChildren(updates)
+                        .addOnFailureListener(e -> Log.w(TAG, "몬스터 이동 실패: " + e.getMessage()));
+            }
+
+            @Override
+            public void onFailure(@NonNull Throwable t) {
+                Log.w(TAG, "몬스터 이동 조회 실패: " + t.getMessage());
+            }
+        }, MoreExecutors.directExecutor());
+    }
+
+    private ListenableFuture<Map<String, Object>> readLegacyMoves(String uid, DataSnapshot queue,
+                                                                  DataSnapshot shard) {
+        List<String> pendingIds = new ArrayList<>();
+        for (DataSnapshot entry : queue.getChildren()) {
+            String monsterId = entry.getValue(String.class);
+            if (monsterId != null && !shard.child(monsterId).hasChild("id")) pendingIds.add(monsterId);
+        }
+
+        List<ListenableFuture<DataSnapshot>> reads = new ArrayList<>(pendingIds.size());
+        for (String monsterId : pendingIds) {
+            reads.add(readAsync(database.child(LEGACY_MONSTERS).child(monsterId)));
+        }
+
+        return Futures.transform(Futures.allAsList(reads), legacy -> {
+            Map<String, Object> updates = new HashMap<>();
+            for (DataSnapshot snapshot : legacy) {
+                Map<String, Object> merged = mergeLegacyMonster(valueMap(snapshot),
+                        valueMap(shard.child(snapshot.getKey())));
+                if (snapshot.exists() && merged != null) {
+                    updates.put(monsterPath(uid, snapshot.getKey()), merged);
+                    updates.put(LEGACY_MONSTERS + "/" + snapshot.getKey(), null);
+                }
+            }
+            // 옮길 것이 없어도 완료 표시는 남김
+            updates.put("users/" + uid + "/" + MONSTER_SHARD_MIGRATION, true);
+            return updates;
+        }, MoreExecutors.directExecutor());
+    }
+
+    /**
+     * 만료 색인 (대기열 키 → {monsterId, expiresAt}), orderByChild("expiresAt") 로 만료분만 조회
+     * ".indexOn": "expiresAt" 규칙 필요
+     */
+    private DatabaseReference monsterExpiryRef(String userId) {
+        return database.child("users").child(userId).child("monsterExpiry");
+    }
+
+    /**
+     * 몬스터 저장 (대기열에 추가)
+     * 몬스터 본문 + 대기열 항목(push 키, 생성 순서) + 대기열 카운트를 한 번의 다중 경로 업데이트로 기록
+     */
+    public void saveMonster(Monster monster, MonsterCallback callback) {
+        Map<String, Object> updates = new HashMap<>();
+        putMonsterEnqueue(updates, monster);
+
+        updateWithTemplates(updates, new SimpleCallback() {
+            @Override
+            public void onSuccess() { callback.onSuccess(monster); }
+            @Override
+            public void onError(String message) { callback.onError(message); }
+        });
+    }
+
+    /**
+     * 몬스터 저장 + 대기열 추가에 필요한 경로를 업데이트 맵에 추가 (루트 기준 경로)
+     * 바코드가 있으면 인스턴스만 저장하고 템플릿은 templates/{barcode} 에 (없을 때만, updateWithTemplates 로 기록)
+     * 만료 시각이 있으면 같은 대기열 키로 만료 색인도 기록
+     */
+    private void putMonsterEnqueue(Map<String, Object> updates, Monster monster) {
+        String ownerId = monster.getOwnerId();
+        String queueKey = monsterQueueRef(ownerId).push().getKey();
+
+        templates.putMonster(updates, monsterPath(ownerId, monster.getId()), monster);
+        updates.put("users/" + ownerId + "/monsterQueue/" + queueKey, monster.getId());
+        updates.put(profilePath(ownerId, "monsterQueueSize"), ServerValue.increment(1));
+
+        if (monster.getExpiresAt() > 0) {
+            Map<String, Object> expiry = new HashMap<>();
+            expiry.put("monsterId", monster.getId());
+            expiry.put("expiresAt", monster.getExpiresAt());
+            updates.put("users/" + ownerId + "/monsterExpiry/" + queueKey, expiry);
+        }
+    }
+
+    /**
+     * 유저의 활성 몬스터 조회 (대기열 첫 번째)
+     */
+    public void getActiveMonster(String userId, MonsterCallback callback) {
+        deliver(getActiveMonsterAsync(userId), callback::onSuccess, callback::onError);
+    }
+
+    /**
+     * 유저의 활성 몬스터 조회 (Future 버전)
+     * 단계마다 이어 붙인 Future 라 취소되면 진행 중인 조회의 리스너를 해제하고 이후 정리/이동 쓰기는 하지 않음
+     */
+    public ListenableFuture<Monster> getActiveMonsterAsync(String userId) {
+        ListenableFuture<DataSnapshot> queueHead = readOnceAsync(
+                "users/" + userId + "/monsterQueue?orderByKey&limitToFirst=1",
+                monsterQueueRef(userId).orderByKey().limitToFirst(1));
+
+        return Futures.transformAsync(queueHead, snapshot -> {
+            DataSnapshot head = null;
+            for (DataSnapshot child : snapshot.getChildren()) {
+                head = child;
+            }
+
+            String monsterId = head != null ? head.getValue(String.class) : null;
+            if (monsterId == null) throw new RepositoryException("활성 몬스터 없음");
+
+            final String headKey = head.getKey();
+            return Futures.transformAsync(
+                    readOnceAsync(monsterPath(userId, monsterId), database.child(monsterPath(userId, monsterId))),
+                    monsterSnapshot -> {
+                        if (!monsterSnapshot.hasChild("id")) {
+                            // 아직 옮기지 않은 몬스터 - 전역 노드에서 읽고 유저 트리로 이동
+                            return readLegacyMonster(userId, headKey, monsterId, valueMap(monsterSnapshot));
+                        }
+                        return Futures.transformAsync(
+                                loadTemplates(monsterSnapshot, 0, TemplateCatalog.KIND_MONSTER),
+                                ignored -> onQueueHead(userId, headKey, monsterId,
+                                        Monster.fromMap(templates.hydrate(valueMap(monsterSnapshot),
+                                                TemplateCatalog.KIND_MONSTER))),
+                                MoreExecutors.directExecutor());
+                    },
+                    MoreExecutors.directExecutor());
+        }, MoreExecutors.directExecutor());
+    }
+
+    /**
+     * 전역 monsters/{id} 에서 읽어 유저 트리로 이동 후 대기열 맨 앞 확인
+     * 이동 전에 유저 트리에 상태/HP 만 먼저 쓰였으면 그 값이 더 최신이므로 덮어씀
+     */
+    private ListenableFuture<Monster> readLegacyMonster(String userId, String headKey, String monsterId,
+                                                        @Nullable Map<String, Object> partial) {
+        ListenableFuture<DataSnapshot> legacy = readOnceAsync(LEGACY_MONSTERS + "/" + monsterId,
+                database.child(LEGACY_MONSTERS).child(monsterId));
+
+        return Futures.transformAsync(legacy, snapshot -> {
+            Map<String, Object> merged = mergeLegacyMonster(valueMap(snapshot), partial);
+            if (snapshot.exists()) {
+                Map<String, Object> updates = new HashMap<>();
+                updates.put(monsterPath(userId, monsterId), merged);
+                updates.put(LEGACY_MONSTERS + "/" + monsterId, null);
+                database.updateChildren(updates)
+                        .addOnFailureListener(e -> Log.w(TAG, "몬스터 이동 실패: " + e.getMessage()));
+            }
+            Monster monster = merged != null ? Monster.fromMap(merged) : null;
+            return onQueueHead(userId, headKey, monsterId, monster);
+        }, MoreExecutors.directExecutor());
+    }
+
+    /**
+     * 대기열 맨 앞 몬스터 확인 (살아 있으면 반환, 처치/만료면 정리 후 다음 몬스터 조회)
+     */
+    private ListenableFuture<Monster> onQueueHead(String userId, String headKey, String monsterId,
+                                                  @Nullable Monster monster) {
+        if (monster != null && monster.getName() == null) {
+            // 템플릿 형식인데 템플릿을 읽지 못함 (다음 조회 때 다시 시도)
+            return Futures.immediateFailedFuture(new RepositoryException("몬스터 정보를 불러오지 못했습니다"));
+        }
+        boolean expired = monster != null && monster.isExpired(System.currentTimeMillis());
+        if (monster != null && !expired && !"defeated".equals(monster.getStatus())) {
+            return Futures.immediateFuture(monster);
+        }
+
+        // 처치/만료된 몬스터 - 대기열 맨 앞에서 제거하고 다음 몬스터 조회
+        // 만료라면 뒤따르는 만료분도 색인으로 한 번에 정리해 하나씩 건너뛰지 않음
+        ListenableFuture<Void> swept = expired ? sweepExpiredMonstersAsync(userId) : Futures.immediateFuture(null);
+        ListenableFuture<Void> removed = Futures.transformAsync(swept,
+                ignored -> removeQueueEntryAsync(userId, headKey, monsterId), MoreExecutors.directExecutor());
+        return Futures.transformAsync(
+                Futures.catching(removed, RepositoryException.class, e -> {
+                    throw new RepositoryException("활성 몬스터 없음");
+                }, MoreExecutors.directExecutor()),
+                ignored -> getActiveMonsterAsync(userId),
+                MoreExecutors.directExecutor());
+    }
+
+    /**
+     * 몬스터 대기열 크기 조회 (유지되는 카운트만 읽음)
+     */
+    public void getMonsterQueueSize(String userId, MonsterQueueCallback callback) {
+        deliver(getMonsterQueueSizeAsync(userId), callback::onSuccess, callback::onError);
+    }
+
+    public ListenableFuture<Integer> getMonsterQueueSizeAsync(String userId) {
+        return Futures.transform(
+                readOnceAsync(profilePath(userId, "monsterQueueSize"), profileRef(userId).child("monsterQueueSize")),
+                snapshot -> {
+                    Integer size = snapshot.getValue(Integer.class);
+                    return size != null ? Math.max(0, size) : 0;
+                },
+                MoreExecutors.directExecutor());
+    }
+
+    /**
+     * 몬스터 대기열에서 특정 몬스터 제거
+     */
+    public void removeMonsterFromQueue(String userId, String monsterId, SimpleCallback callback) {
+        monsterQueueRef(userId).orderByValue().equalTo(monsterId).limitToFirst(1)
+                .addListenerForSingleValueEvent(new ValueEventListener() {
+                    @Override
+                    public void onDataChange(@NonNull DataSnapshot snapshot) {
+                        for (DataSnapshot child : snapshot.getChildren()) {
+                            removeQueueEntry(userId, child.getKey(), monsterId, callback);
+                            return;
+                        }
+                        callback.onSuccess();  // 이미 대기열에 없음
+                    }
+
+                    @Override
+                    public void onCancelled(@NonNull DatabaseError error) {
+                        callback.onError(error.getMessage());
                     }
                 });
     }
 
     /**
-     * 특정 무기 조회
+     * 대기열 항목 하나를 트랜잭션으로 제거 (같은 키의 만료 색인도 삭제)
+     * 동시에 여러 곳에서 제거해도 실제로 지운 쪽만 카운트를 감소시킴
+     */
+    private void removeQueueEntry(String userId, String queueKey, String monsterId, SimpleCallback callback) {
+        removeQueueEntry(userId, queueKey, monsterId, null, callback);
+    }
+
+    /**
+     * 대기열 항목 제거, 이 호출이 실제로 지웠으면 removedKeys 에 queueKey 를 추가
+     */
+    private void removeQueueEntry(String userId, String queueKey, String monsterId,
+                                  @Nullable Set<String> removedKeys, SimpleCallback callback) {
+        AtomicBoolean removed = new AtomicBoolean(false);
+
+        monsterQueueRef(userId).child(queueKey).runTransaction(new Transaction.Handler() {
+            @NonNull
+            @Override
+            public Transaction.Result doTransaction(@NonNull MutableData currentData) {
+                removed.set(false);
+                String current = currentData.getValue(String.class);
+                if (current == null) {
+                    // 로컬 캐시에 없을 수 있음 - 서버 값으로 재시도되도록 그대로 커밋
+                    return Transaction.success(currentData);
+                }
+                if (!current.equals(monsterId)) {
+                    return Transaction.abort();
+                }
+                currentData.setValue(null);
+                removed.set(true);
+                return Transaction.success(currentData);
+            }
+
+            @Override
+            public void onComplete(@Nullable DatabaseError error, boolean committed,
+                                   @Nullable DataSnapshot currentData) {
+                if (error != null) {
+                    callback.onError(error.getMessage());
+                    return;
+                }
+                if (committed) {
+                    Map<String, Object> cleanup = new HashMap<>();
+                    cleanup.put("monsterExpiry/" + queueKey, null);
+                    if (removed.get()) {
+                        cleanup.put(PROFILE + "/monsterQueueSize", ServerValue.increment(-1));
+                        if (removedKeys != null) removedKeys.add(queueKey);
+                    }
+                    database.child("users").child(userId).updateChildren(cleanup);
+                }
+                callback.onSuccess();
+            }
+        });
+    }
+
+    private ListenableFuture<Void> removeQueueEntryAsync(String userId, String queueKey, String monsterId) {
+        SettableFuture<Void> future = SettableFuture.create();
+        removeQueueEntry(userId, queueKey, monsterId, new SimpleCallback() {
+            @Override
+            public void onSuccess() { future.set(null); }
+            @Override
+            public void onError(String message) { future.setException(new RepositoryException(message)); }
+        });
+        return future;
+    }
+
+    /**
+     * 몬스터 HP 업데이트 (전투 시)
+     */
+    public void updateMonsterHp(String ownerId, String monsterId, int newHp, SimpleCallback callback) {
+        database.child(monsterPath(ownerId, monsterId)).child("hp").setValue(newHp)
+                .addOnSuccessListener(aVoid -> callback.onSuccess())
+                .addOnFailureListener(e -> callback.onError(e.getMessage()));
+    }
+
+    /**
+     * 몬스터 처치 처리 (대기열에서 제거)
+     * 처치 수 등 카운터는 recordVictory()에서 기록
+     */
+    public void defeatMonster(String monsterId, String ownerId, SimpleCallback callback) {
+        database.child(monsterPath(ownerId, monsterId)).child("status").setValue("defeated")
+                .addOnSuccessListener(aVoid -> removeMonsterFromQueue(ownerId, monsterId, callback))
+                .addOnFailureListener(e -> callback.onError(e.getMessage()));
+    }
+
+    // ========== 몬스터 만료 ==========
+
+    private static final int EXPIRY_SWEEP_BATCH = 20;
+    private static final long EXPIRY_SWEEP_INTERVAL_MS = 10 * 60 * 1000L;
+
+    private final Handler sweepHandler = new Handler(Looper.getMainLooper());
+    private Runnable sweepTask;
+
+    /**
+     * 만료 정리 주기 실행 시작 (다른 유저로 바뀌면 이전 주기 중단)
+     */
+    private synchronized void startExpirySweeper(String uid) {
+        if (sweepTask != null) sweepHandler.removeCallbacks(sweepTask);
+
+        sweepTask = new Runnable() {
+            @Override
+            public void run() {
+                Runnable self = this;
+                sweepExpiredMonsters(uid, new SimpleCallback() {
+                    @Override
+                    public void onSuccess() {
+                        reschedule();
+                    }
+                    @Override
+                    public void onError(String message) {
+                        Log.w(TAG, "몬스터 만료 정리 실패: " + message);
+                        reschedule();
+                    }
+                    private void reschedule() {
+                        synchronized (FirebaseRepository.this) {
+                            if (sweepTask == self) sweepHandler.postDelayed(self, EXPIRY_SWEEP_INTERVAL_MS);
+                        }
+                    }
+                });
+            }
+        };
+        sweepHandler.post(sweepTask);
+    }
+
+    /**
+     * 만료된 몬스터 정리 (만료 색인에서 EXPIRY_SWEEP_BATCH 개씩, 만료분이 남지 않을 때까지)
+     * 대기열 항목은 removeQueueEntry 트랜잭션으로 지워 처치와 동시에 일어나도 카운트가 한 번만 줄고,
+     * 그 뒤 몬스터 상태(expired)와 색인 삭제를 한 번의 다중 경로 업데이트로 기록
+     * (상태는 이번에 실제로 대기열에서 지운 몬스터만 - 그 사이 처치된 몬스터의 defeated 를 덮지 않음)
+     * 중간에 중단돼도 남은 색인으로 다음 정리 때 다시 처리됨 (이미 지운 항목은 건너뜀)
+     */
+    public void sweepExpiredMonsters(String userId, SimpleCallback callback) {
+        monsterExpiryRef(userId)
+                .orderByChild("expiresAt")
+                .endAt(System.currentTimeMillis())
+                .limitToFirst(EXPIRY_SWEEP_BATCH)
+                .addListenerForSingleValueEvent(new ValueEventListener() {
+                    @Override
+                    public void onDataChange(@NonNull DataSnapshot snapshot) {
+                        Map<String, String> expired = new LinkedHashMap<>();
+                        for (DataSnapshot child : snapshot.getChildren()) {
+                            String monsterId = child.child("monsterId").getValue(String.class);
+                            if (monsterId != null) expired.put(child.getKey(), monsterId);
+                        }
+                        if (expired.isEmpty()) {
+                            callback.onSuccess();
+                            return;
+                        }
+                        boolean hasMore = snapshot.getChildrenCount() >= EXPIRY_SWEEP_BATCH;
+                        expireBatch(userId, expired, new SimpleCallback() {
+                            @Override
+                            public void onSuccess() {
+                                if (hasMore) {
+                                    sweepExpiredMonsters(userId, callback);
+                                } else {
+                                    callback.onSuccess();
+                                }
+                            }
+                            @Override
+                            public void onError(String message) {
+                                callback.onError(message);
+                            }
+                        });
+                    }
+
+                    @Override
+                    public void onCancelled(@NonNull DatabaseError error) {
+                        callback.onError(error.getMessage());
+                    }
+                });
+    }
+
+    /**
+     * 만료 정리 (Future 버전, 정리가 실패해도 성공으로 완료 - 조회 흐름은 계속 진행)
+     */
+    private ListenableFuture<Void> sweepExpiredMonstersAsync(String userId) {
+        SettableFuture<Void> future = SettableFuture.create();
+        sweepExpiredMonsters(userId, new SimpleCallback() {
+            @Override
+            public void onSuccess() { future.set(null); }
+            @Override
+            public void onError(String message) {
+                Log.w(TAG, "몬스터 만료 정리 실패: " + message);
+                future.set(null);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * 만료 묶음 처리 (대기열 키 → 몬스터 id)
+     */
+    private void expireBatch(String userId, Map<String, String> expired, SimpleCallback callback) {
+        AtomicInteger remaining = new AtomicInteger(expired.size());
+        AtomicBoolean failed = new AtomicBoolean(false);
+        Set<String> removedKeys = ConcurrentHashMap.newKeySet();
+
+        for (Map.Entry<String, String> entry : expired.entrySet()) {
+            removeQueueEntry(userId, entry.getKey(), entry.getValue(), removedKeys, new SimpleCallback() {
+                @Override
+                public void onSuccess() {
+                    done();
+                }
+                @Override
+                public void onError(String message) {
+                    failed.set(true);
+                    done();
+                }
+                private void done() {
+                    if (remaining.decrementAndGet() > 0) return;
+                    if (failed.get()) {
+                        callback.onError("대기열 정리 실패");
+                        return;
+                    }
+                    Map<String, Object> updates = new HashMap<>(expired.size() * 3);
+                    for (Map.Entry<String, String> item : expired.entrySet()) {
+                        if (removedKeys.contains(item.getKey())) {
+                            updates.put(monsterPath(userId, item.getValue()) + "/status", "expired");
+                        }
+                        updates.put("users/" + userId + "/monsterExpiry/" + item.getKey(), null);
+                    }
+                    database.updateChildren(updates)
+                            .addOnSuccessListener(aVoid -> callback.onSuccess())
+                            .addOnFailureListener(e -> callback.onError(e.getMessage()));
+                }
+            });
+        }
+    }
+
+    // ========== 아이템 ==========
+
+    /**
+     * 아이템 타입별 인벤토리 경로
+     */
+    static String inventoryPath(Item.ItemType type) {
+        switch (type) {
+            case WEAPON:
+                return "inventory/weapons";
+            case POTION:
+                return "inventory/potions";
+            default:
+                return "inventory/buffs";
+        }
+    }
+
+    /**
+     * 아이템 저장 (인벤토리에 추가)
+     */
+    public void saveItem(Item item, ItemCallback callback) {
+        Map<String, Object> updates = new HashMap<>();
+        templates.putItem(updates,
+                "users/" + item.getOwnerId() + "/" + inventoryPath(item.getType()) + "/" + item.getId(), item);
+
+        updateWithTemplates(updates, new SimpleCallback() {
+            @Override
+            public void onSuccess() { callback.onSuccess(item); }
+            @Override
+            public void onError(String message) { callback.onError(message); }
+        });
+    }
+
+    /**
+     * 인벤토리 전체 조회 (한 번 읽기)
+     * 타입별 분류와 정렬은 백그라운드 스레드에서 처리하고 메인 스레드로 결과 전달
+     */
+    public void getInventorySnapshot(String userId, InventoryCallback callback) {
+        deliver(getInventorySnapshotAsync(userId), callback::onSuccess, callback::onError);
+    }
+
+    public ListenableFuture<InventorySnapshot> getInventorySnapshotAsync(String userId) {
+        return Futures.transformAsync(
+                readOnceAsync("users/" + userId + "/inventory", database.child("users").child(userId).child("inventory")),
+                snapshot -> Futures.transformAsync(loadTemplates(snapshot, 2, TemplateCatalog.KIND_ITEM),
+                        ignored -> decodeAsync("inventory", () -> new InventorySnapshot(
+                                readItems(snapshot.child("weapons"), Item.ItemType.WEAPON),
+                                readItems(snapshot.child("potions"), Item.ItemType.POTION),
+                                readItems(snapshot.child("buffs"), Item.ItemType.BUFF))),
+                        MoreExecutors.directExecutor()),
+                MoreExecutors.directExecutor());
+    }
+
+    /**
+     * 인벤토리 버킷 → 아이템 목록 (템플릿 형식이면 템플릿과 합쳐 변환)
+     */
+    private List<Item> readItems(DataSnapshot bucket, Item.ItemType type) {
+        List<Item> items = new ArrayList<>();
+        for (DataSnapshot child : bucket.getChildren()) {
+            Item item = Item.fromMap(templates.hydrate(valueMap(child), TemplateCatalog.KIND_ITEM));
+            if (item != null) {
+                item.setType(type);
+                items.add(item);
+            }
+        }
+        return items;
+    }
+
+    /**
+     * 특정 무기 조회
+     */
+    public void getWeapon(String userId, String weaponId, ItemCallback callback) {
+        readOnce("users/" + userId + "/inventory/weapons/" + weaponId,
+                database.child("users").child(userId).child("inventory/weapons").child(weaponId),
+                new ValueEventListener() {
+                    @Override
+                    public void onDataChange(@NonNull DataSnapshot snapshot) {
+                        templates.load(snapshot, 0, TemplateCatalog.KIND_ITEM, () -> {
+                            Item item = Item.fromMap(templates.hydrate(valueMap(snapshot), TemplateCatalog.KIND_ITEM));
+                            if (item != null) {
+                                item.setType(Item.ItemType.WEAPON);
+                                callback.onSuccess(item);
+                            } else {
+                                callback.onError("무기를 찾을 수 없습니다");
+                            }
+                        });
+                    }
+
+                    @Override
+                    public void onCancelled(@NonNull DatabaseError error) {
+                        callback.onError(error.getMessage());
+                    }
+                });
+    }
+
+    /**
+     * 무기 내구도 업데이트
+     */
+    public void updateWeaponDurability(String userId, String weaponId, int durability, SimpleCallback callback) {
+        database.child("users").child(userId).child("inventory/weapons").child(weaponId)
+                .child("durability").setValue(durability)
+                .addOnSuccessListener(aVoid -> callback.onSuccess())
+                .addOnFailureListener(e -> callback.onError(e.getMessage()));
+    }
+
+    /**
+     * 무기 삭제 (파괴)
+     */
+    public void deleteWeapon(String userId, String weaponId, SimpleCallback callback) {
+        database.child("users").child(userId).child("inventory/weapons").child(weaponId)
+                .removeValue()
+                .addOnSuccessListener(aVoid -> callback.onSuccess())
+                .addOnFailureListener(e -> callback.onError(e.getMessage()));
+    }
+
+    /**
+     * 유저의 장착 무기 해제
+     */
+    public void unequipWeapon(String userId, SimpleCallback callback) {
+        // 여러 필드를 한 번에 업데이트 (원자적 연산)
+        java.util.Map<String, Object> updates = new java.util.HashMap<>();
+        updates.put("equippedWeaponId", null);
+        updates.put("equippedWeaponName", null);
+        updates.put("equippedWeaponPower", 0);
+
+        profileRef(userId).updateChildren(updates)
+                .addOnSuccessListener(aVoid -> callback.onSuccess())
+                .addOnFailureListener(e -> callback.onError(e.getMessage()));
+    }
+
+    /**
+     * 아이템 사용 (수량 감소)
+     */
+    public void useItem(String userId, Item item, SimpleCallback callback) {
+        DatabaseReference itemRef = database.child("users").child(userId)
+                .child(inventoryPath(item.getType())).child(item.getId());
+
+        if (item.getQuantity() <= 1) {
+            // 마지막 아이템 → 삭제
+            itemRef.removeValue()
+                    .addOnSuccessListener(aVoid -> callback.onSuccess())
+                    .addOnFailureListener(e -> callback.onError(e.getMessage()));
+        } else {
+            // 수량 감소
+            itemRef.child("quantity").setValue(item.getQuantity() - 1)
+                    .addOnSuccessListener(aVoid -> callback.onSuccess())
+                    .addOnFailureListener(e -> callback.onError(e.getMessage()));
+        }
+    }
+
+    /**
+     * 쓰기 대기열 연결 (Application 시작 시 한 번)
+     */
+    public void attachOutbox(OutboundWriteQueue outbox) {
+        this.outbox = outbox;
+    }
+
+    /**
+     * 쓰기 대기열 상태 (연결 전이면 null)
+     */
+    @Nullable
+    public OutboundWriteQueue getOutbox() {
+        return outbox;
+    }
+
+    /**
+     * 결과를 기다리지 않는 쓰기 (디스크에 저장 후 재시도/병합하며 반영)
+     * 대기열이 연결되지 않았으면 바로 업데이트하고 실패는 로그로만 남김
+     */
+    public void enqueueWrites(Map<String, Object> updates) {
+        if (outbox != null) {
+            outbox.enqueue(updates);
+            return;
+        }
+        database.updateChildren(updates)
+                .addOnFailureListener(e -> Log.w(TAG, "쓰기 실패: " + e.getMessage()));
+    }
+
+    /**
+     * 쓰기 대기열에 넣고 실제로 반영되면 콜백 (재시도 끝에 버려지면 onError)
+     */
+    public void enqueueWrites(Map<String, Object> updates, SimpleCallback callback) {
+        if (outbox != null) {
+            outbox.enqueue(updates, callback);
+            return;
+        }
+        applyUpdates(updates, callback);
+    }
+
+    /**
+     * 템플릿을 먼저 (없을 때만) 만든 뒤 나머지 경로를 한 번의 다중 경로 업데이트로 기록
+     * 템플릿은 여러 유저가 공유하므로 다중 경로 업데이트로 덮어쓰지 않음
+     */
+    private void updateWithTemplates(Map<String, Object> updates, SimpleCallback callback) {
+        Futures.addCallback(templates.createMissing(updates), new FutureCallback<Void>() {
+            @Override
+            public void onSuccess(Void ignored) {
+                applyUpdates(updates, callback);
+            }
+
+            @Override
+            public void onFailure(@NonNull Throwable t) {
+                callback.onError(t.getMessage());
+            }
+        }, MoreExecutors.directExecutor());
+    }
+
+    /**
+     * 다중 경로 업데이트 반영 (루트 기준 경로, 값이 null이면 삭제)
+     * 쓰기 대기열 등 미리 모아둔 변경을 한 번에 기록할 때 사용
+     */
+    public void applyUpdates(Map<String, Object> updates, SimpleCallback callback) {
+        database.updateChildren(updates)
+                .addOnSuccessListener(aVoid -> callback.onSuccess())
+                .addOnFailureListener(e -> callback.onError(e.getMessage()));
+    }
+
+    // ========== 스냅샷 변환 ==========
+
+    private static ThreadPoolExecutor createDecodeExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(2, 2, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(DECODE_QUEUE_CAPACITY),
+                runnable -> new Thread(() -> {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    runnable.run();
+                }, "snapshot-decode"),
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * 스냅샷 → 모델 변환(정렬 포함)을 변환 스레드에서 수행하고 결과를 메인 스레드로 전달
+     * 쿼리별 변환 시간을 기록하고, 한 프레임을 넘기면 경고 로그
+     * 변환 대기열이 가득 차면 변환을 버리고 onError 로 알림
+     */
+    private <T> void decodeOffMain(String query, Supplier<T> decoder,
+                                   Consumer<T> onDecoded, Consumer<String> onError) {
+        try {
+            decodeExecutor.execute(() -> decode(query, decoder, onDecoded, onError));
+        } catch (RejectedExecutionException e) {
+            Log.w(TAG, "스냅샷 변환 대기열 포화: " + query);
+            mainHandler.post(() -> onError.accept("요청이 많아 잠시 후 다시 시도해주세요"));
+        }
+    }
+
+    private <T> void decode(String query, Supplier<T> decoder,
+                            Consumer<T> onDecoded, Consumer<String> onError) {
+        long start = SystemClock.elapsedRealtime();
+        T result;
+        try {
+            result = decoder.get();
+        } catch (RuntimeException e) {
+            Log.e(TAG, "스냅샷 변환 실패: " + query, e);
+            mainHandler.post(() -> onError.accept("데이터 변환 실패"));
+            return;
+        }
+        long elapsed = SystemClock.elapsedRealtime() - start;
+        decodeTimesMs.put(query, elapsed);
+        if (elapsed > SLOW_DECODE_MS) {
+            Log.w(TAG, "스냅샷 변환 " + elapsed + "ms: " + query);
+        }
+        mainHandler.post(() -> onDecoded.accept(result));
+    }
+
+    /**
+     * decodeOffMain 의 Future 버전 (메인 스레드에서 완료)
+     */
+    private <T> ListenableFuture<T> decodeAsync(String query, Supplier<T> decoder) {
+        SettableFuture<T> future = SettableFuture.create();
+        decodeOffMain(query, decoder, future::set, message -> future.setException(new RepositoryException(message)));
+        return future;
+    }
+
+    /**
+     * 쿼리별 마지막 변환 시간 (ms)
+     */
+    public Map<String, Long> getDecodeTimesMs() {
+        return new HashMap<>(decodeTimesMs);
+    }
+
+    /**
+     * 스냅샷 값을 Map 으로 (객체 노드가 아니면 null)
+     * 모델의 fromMap 과 함께 리플렉션 getValue(Class) 대신 사용
+     */
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> valueMap(DataSnapshot snapshot) {
+        Object value = snapshot.getValue();
+        return value instanceof Map ? (Map<String, Object>) value : null;
+    }
+
+    // ========== 조회 중복 제거 ==========
+
+    /**
+     * 진행 중인 단일 조회 하나 (실제로 붙인 리스너 + 결과를 기다리는 리스너들)
+     */
+    private static final class InFlightRead {
+        final Query query;
+        final List<ValueEventListener> waiters = new ArrayList<>();
+        ValueEventListener listener;
+
+        InFlightRead(Query query) {
+            this.query = query;
+        }
+    }
+
+    /**
+     * 단일 조회 (같은 key 의 조회가 진행 중이면 새로 요청하지 않고 그 결과를 함께 받음)
+     * key 는 경로 + 쿼리 조건을 모두 담아야 함 (예: "users/{uid}/monsterQueue?orderByKey&limitToFirst=1")
+     * 스냅샷은 불변이므로 공유하고, 모델 변환은 호출자마다 따로 수행 (모델 객체는 화면에서 수정됨)
+     */
+    private void readOnce(String key, Query query, ValueEventListener listener) {
+        InFlightRead read;
+        synchronized (inFlightReads) {
+            InFlightRead existing = inFlightReads.get(key);
+            if (existing != null) {
+                existing.waiters.add(listener);
+                collapsedReadCount.incrementAndGet();
+                return;
+            }
+            read = new InFlightRead(query);
+            read.waiters.add(listener);
+            inFlightReads.put(key, read);
+        }
+        issuedReadCount.incrementAndGet();
+
+        read.listener = new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                for (ValueEventListener waiter : takeWaiters(key, read)) {
+                    waiter.onDataChange(snapshot);
+                }
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                for (ValueEventListener waiter : takeWaiters(key, read)) {
+                    waiter.onCancelled(error);
+                }
+            }
+        };
+        query.addListenerForSingleValueEvent(read.listener);
+    }
+
+    /**
+     * readOnce 의 Future 버전
+     * 취소되면 대기 목록에서 빠지고, 더 기다리는 쪽이 없으면 조회 리스너도 해제
+     */
+    private ListenableFuture<DataSnapshot> readOnceAsync(String key, Query query) {
+        SettableFuture<DataSnapshot> future = SettableFuture.create();
+        ValueEventListener waiter = new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                future.set(snapshot);
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                future.setException(new RepositoryException(error.getMessage()));
+            }
+        };
+        future.addListener(() -> {
+            if (future.isCancelled()) dropWaiter(key, waiter);
+        }, MoreExecutors.directExecutor());
+        readOnce(key, query, waiter);
+        return future;
+    }
+
+    private List<ValueEventListener> takeWaiters(String key, InFlightRead read) {
+        synchronized (inFlightReads) {
+            if (inFlightReads.get(key) == read) inFlightReads.remove(key);
+            if (read.waiters.size() > 1) {
+                Log.d(TAG, "조회 " + read.waiters.size() + "건 합침: " + key);
+            }
+            return new ArrayList<>(read.waiters);
+        }
+    }
+
+    private void dropWaiter(String key, ValueEventListener waiter) {
+        InFlightRead abandoned = null;
+        synchronized (inFlightReads) {
+            InFlightRead read = inFlightReads.get(key);
+            if (read == null || !read.waiters.remove(waiter)) return;
+            if (read.waiters.isEmpty()) {
+                inFlightReads.remove(key);
+                abandoned = read;
+            }
+        }
+        if (abandoned != null && abandoned.listener != null) {
+            abandoned.query.removeEventListener(abandoned.listener);
+        }
+    }
+
+    /**
+     * 실제로 요청한 조회 수
+     */
+    public long getIssuedReadCount() {
+        return issuedReadCount.get();
+    }
+
+    /**
+     * 진행 중인 같은 조회에 합쳐져 요청하지 않은 조회 수
+     */
+    public long getCollapsedReadCount() {
+        return collapsedReadCount.get();
+    }
+
+    // ========== Future API ==========
+    // 콜백 대신 ListenableFuture 를 반환하여 Futures.allAsList/whenAllSucceed 로 병렬 조합,
+    // withDeadline 으로 기한 지정, cancel() 로 취소 가능. 결과를 UI 에 쓸 때는 mainExecutor() 로 받음
+
+    /**
+     * 메인 스레드 Executor (Futures.addCallback 등에 사용)
+     */
+    public Executor mainExecutor() {
+        return mainExecutor;
+    }
+
+    /**
+     * 단일 조회를 Future 로 (취소되면 리스너 해제)
      */
-    public void getWeapon(String userId, String weaponId, ItemCallback callback) {
-        database.child("users").child(userId).child("inventory/weapons").child(weaponId)
-                .addListenerForSingleValueEvent(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        Item item = snapshot.getValue(Item.class);
-                        if (item != null) {
-                            item.setType(Item.ItemType.WEAPON);
-                            callback.onSuccess(item);
-                        } else {
-                            callback.onError("무기를 찾을 수 없습니다");
-                        }
-                    }
+    public ListenableFuture<DataSnapshot> readAsync(Query query) {
+        SettableFuture<DataSnapshot> future = SettableFuture.create();
+        ValueEventListener listener = new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                future.set(snapshot);
+            }
 
-                    @Override
-                    public void onCancelled(@NonNull DatabaseError error) {
-                        callback.onError(error.getMessage());
-                    }
-                });
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                future.setException(error.toException());
+            }
+        };
+        future.addListener(() -> {
+            if (future.isCancelled()) query.removeEventListener(listener);
+        }, MoreExecutors.directExecutor());
+        query.addListenerForSingleValueEvent(listener);
+        return future;
     }
 
     /**
-     * 무기 내구도 업데이트
+     * 템플릿 조회의 Future 버전 (템플릿 조회가 실패해도 성공으로 완료 - 해당 항목은 템플릿 없이 변환)
      */
-    public void updateWeaponDurability(String userId, String weaponId, int durability, SimpleCallback callback) {
-        database.child("users").child(userId).child("inventory/weapons").child(weaponId)
-                .child("durability").setValue(durability)
-                .addOnSuccessListener(aVoid -> callback.onSuccess())
-                .addOnFailureListener(e -> callback.onError(e.getMessage()));
+    private ListenableFuture<Void> loadTemplates(DataSnapshot snapshot, int depth, String kind) {
+        SettableFuture<Void> future = SettableFuture.create();
+        templates.load(snapshot, depth, kind, () -> future.set(null));
+        return future;
     }
 
     /**
-     * 무기 삭제 (파괴)
+     * Future 결과를 콜백으로 전달 (완료한 스레드에서 바로 호출 - Firebase 콜백/변환 결과는 메인 스레드)
+     * Future 로 만든 조회의 콜백 버전에서 사용
      */
-    public void deleteWeapon(String userId, String weaponId, SimpleCallback callback) {
-        database.child("users").child(userId).child("inventory/weapons").child(weaponId)
-                .removeValue()
-                .addOnSuccessListener(aVoid -> callback.onSuccess())
-                .addOnFailureListener(e -> callback.onError(e.getMessage()));
+    private static <T> void deliver(ListenableFuture<T> future, Consumer<T> success, Consumer<String> failure) {
+        Futures.addCallback(future, new FutureCallback<T>() {
+            @Override
+            public void onSuccess(T result) {
+                success.accept(result);
+            }
+
+            @Override
+            public void onFailure(@NonNull Throwable t) {
+                failure.accept(t.getMessage());
+            }
+        }, MoreExecutors.directExecutor());
     }
 
     /**
-     * 유저의 장착 무기 해제
+     * 기한 지정 (기한을 넘기면 TimeoutException 으로 실패하고 원래 작업은 취소)
      */
-    public void unequipWeapon(String userId, SimpleCallback callback) {
-        // 여러 필드를 한 번에 업데이트 (원자적 연산)
-        java.util.Map<String, Object> updates = new java.util.HashMap<>();
-        updates.put("equippedWeaponId", null);
-        updates.put("equippedWeaponName", null);
-        updates.put("equippedWeaponPower", 0);
+    public <T> ListenableFuture<T> withDeadline(ListenableFuture<T> future, long timeoutMs) {
+        return Futures.withTimeout(future, timeoutMs, TimeUnit.MILLISECONDS, deadlineScheduler);
+    }
 
-        database.child("users").child(userId).updateChildren(updates)
-                .addOnSuccessListener(aVoid -> callback.onSuccess())
-                .addOnFailureListener(e -> callback.onError(e.getMessage()));
+    public ListenableFuture<Void> applyUpdatesAsync(Map<String, Object> updates) {
+        SettableFuture<Void> future = SettableFuture.create();
+        applyUpdates(updates, new SimpleCallback() {
+            @Override
+            public void onSuccess() { future.set(null); }
+            @Override
+            public void onError(String message) { future.setException(new RepositoryException(message)); }
+        });
+        return future;
     }
 
     /**
-     * 아이템 사용 (수량 감소)
+     * 실패 메시지 앞에 어떤 항목이 실패했는지 붙임
      */
-    public void useItem(String userId, Item item, SimpleCallback callback) {
-        String path;
-        switch (item.getType()) {
-            case WEAPON:
-                path = "inventory/weapons";
-                break;
-            case POTION:
-                path = "inventory/potions";
-                break;
-            default:
-                path = "inventory/buffs";
-                break;
-        }
+    private static <T> ListenableFuture<T> labelFailure(ListenableFuture<T> future, String label) {
+        return Futures.catching(future, RepositoryException.class, e -> {
+            throw new RepositoryException(label + e.getMessage());
+        }, MoreExecutors.directExecutor());
+    }
 
-        DatabaseReference itemRef = database.child("users").child(userId)
-                .child(path).child(item.getId());
+    /**
+     * 성공 시점까지의 경과 시간을 BattleContext 에 기록
+     */
+    private static <T> ListenableFuture<T> timed(ListenableFuture<T> future, BattleContext.Builder builder,
+                                                 String part, long start) {
+        return Futures.transform(future, value -> {
+            builder.timing(part, SystemClock.elapsedRealtime() - start);
+            return value;
+        }, MoreExecutors.directExecutor());
+    }
 
-        if (item.getQuantity() <= 1) {
-            // 마지막 아이템 → 삭제
-            itemRef.removeValue()
-                    .addOnSuccessListener(aVoid -> callback.onSuccess())
-                    .addOnFailureListener(e -> callback.onError(e.getMessage()));
-        } else {
-            // 수량 감소
-            itemRef.child("quantity").setValue(item.getQuantity() - 1)
-                    .addOnSuccessListener(aVoid -> callback.onSuccess())
-                    .addOnFailureListener(e -> callback.onError(e.getMessage()));
-        }
+    // ========== 전투 준비 ==========
+
+    /**
+     * 전투 데이터 일괄 조회
+     * 몬스터/유저/인벤토리를 동시에 요청하고 모두 도착하면 하나의 BattleContext로 전달
+     * (포션/버프/장착 무기는 인벤토리 한 번 읽기에서 골라냄). 항목별 소요 시간도 함께 기록
+     * 유저는 캐시가 있으면 바로, 대기열/인벤토리는 keepSynced 경로라 로컬 데이터로 먼저 응답함
+     * 기한(DEFAULT_READ_DEADLINE_MS) 안에 모이지 않으면 남은 조회를 취소하고 실패 처리
+     */
+    public void loadBattleContext(String userId, BattleContextCallback callback) {
+        final long start = SystemClock.elapsedRealtime();
+        final BattleContext.Builder builder = new BattleContext.Builder();
+
+        ListenableFuture<Monster> monsterFuture = timed(
+                labelFailure(getActiveMonsterAsync(userId), "몬스터 로드 실패: "),
+                builder, BattleContext.PART_MONSTER, start);
+        ListenableFuture<User> userFuture = timed(
+                labelFailure(getOrCreateUserAsync(userId, ""), "유저 로드 실패: "),
+                builder, BattleContext.PART_USER, start);
+        // 인벤토리는 실패해도 아이템 없이 전투
+        ListenableFuture<InventorySnapshot> inventoryFuture = timed(
+                Futures.catching(getInventorySnapshotAsync(userId), RepositoryException.class,
+                        e -> InventorySnapshot.empty(), MoreExecutors.directExecutor()),
+                builder, BattleContext.PART_INVENTORY, start);
+
+        ListenableFuture<BattleContext> contextFuture = withDeadline(
+                Futures.whenAllSucceed(monsterFuture, userFuture, inventoryFuture).call(() -> {
+                    User user = Futures.getDone(userFuture);
+                    InventorySnapshot inventory = Futures.getDone(inventoryFuture);
+                    return builder.monster(Futures.getDone(monsterFuture))
+                            .user(user)
+                            .potions(inventory.getPotions())
+                            .buffs(inventory.getBuffs())
+                            .equippedWeapon(inventory.findWeapon(user.getEquippedWeaponId()))
+                            .timing(BattleContext.PART_TOTAL, SystemClock.elapsedRealtime() - start)
+                            .build();
+                }, MoreExecutors.directExecutor()),
+                DEFAULT_READ_DEADLINE_MS);
+
+        Futures.addCallback(contextFuture, new FutureCallback<BattleContext>() {
+            @Override
+            public void onSuccess(BattleContext context) {
+                Log.d(TAG, "전투 데이터 로드: " + context.getTimingsMs() + " (최장: " + context.getSlowestPart() + ")");
+                callback.onSuccess(context);
+            }
+
+            @Override
+            public void onFailure(@NonNull Throwable t) {
+                callback.onError(t instanceof TimeoutException ? "전투 데이터 로드 시간 초과" : t.getMessage());
+            }
+        }, mainExecutor);
     }
 
     // ========== 전투 기록 ==========
 
     /**
-     * 전투 기록 콜백
+     * 전투 기록 페이지 콜백
+     * @param hasMore 더 오래된 기록이 남아 있는지
      */
-    public interface BattleLogsCallback {
-        void onSuccess(List<BattleLog> logs);
+    public interface BattleLogPageCallback {
+        void onSuccess(List<BattleLog> logs, boolean hasMore);
         void onError(String message);
     }
 
+    public static final int BATTLE_LOG_PAGE_SIZE = 15;
+
     /**
      * 전투 기록 저장
      */
@@ -580,32 +1774,55 @@ public class FirebaseRepository {
     }
 
     /**
-     * 전투 기록 조회 (최근 50개)
+     * 전투 기록 페이지 조회 (최신순)
+     * (timestamp, id) 커서 기준으로 그보다 오래된 기록을 pageSize 개까지 받음
+     * 서버에서 범위를 자르려면 users/$uid/battleLogs 에 ".indexOn": ["timestamp"] 규칙 필요
+     *
+     * @param before 이전 페이지의 마지막(가장 오래된) 기록, 첫 페이지면 null
      */
-    public void getBattleLogs(String userId, BattleLogsCallback callback) {
-        database.child("users").child(userId).child("battleLogs")
-                .orderByChild("timestamp")
-                .limitToLast(50)
-                .addListenerForSingleValueEvent(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        List<BattleLog> logs = new ArrayList<>();
-                        for (DataSnapshot child : snapshot.getChildren()) {
-                            BattleLog log = child.getValue(BattleLog.class);
-                            if (log != null) {
-                                logs.add(log);
-                            }
+    public void getBattleLogPage(String userId, @Nullable BattleLog before, int pageSize,
+                                 BattleLogPageCallback callback) {
+        Query query = database.child("users").child(userId).child("battleLogs")
+                .orderByChild("timestamp");
+
+        // 다음 페이지 존재 여부 확인용으로 1개 더, 커서는 포함되어 오므로 또 1개 더
+        if (before != null) {
+            query = query.endAt(before.getTimestamp(), before.getId()).limitToLast(pageSize + 2);
+        } else {
+            query = query.limitToLast(pageSize + 1);
+        }
+
+        String key = "users/" + userId + "/battleLogs?orderByChild=timestamp"
+                + (before != null ? "&endAt=" + before.getTimestamp() + "," + before.getId() : "")
+                + "&limitToLast=" + (before != null ? pageSize + 2 : pageSize + 1);
+        readOnce(key, query, new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                decodeOffMain("battleLogPage", () -> {
+                    List<BattleLog> logs = new ArrayList<>();
+                    for (DataSnapshot child : snapshot.getChildren()) {
+                        if (before != null && child.getKey() != null && child.getKey().equals(before.getId())) continue;
+                        BattleLog log = BattleLog.fromMap(valueMap(child));
+                        if (log != null) {
+                            logs.add(log);
                         }
-                        // 최신순 정렬
-                        logs.sort((a, b) -> Long.compare(b.getTimestamp(), a.getTimestamp()));
-                        callback.onSuccess(logs);
                     }
 
-                    @Override
-                    public void onCancelled(@NonNull DatabaseError error) {
-                        callback.onError(error.getMessage());
-                    }
-                });
+                    // 오름차순으로 오므로 뒤집어서 최신순
+                    Collections.reverse(logs);
+                    return logs;
+                }, logs -> {
+                    // 넘치는 가장 오래된 것은 다음 페이지로
+                    boolean hasMore = logs.size() > pageSize;
+                    callback.onSuccess(hasMore ? new ArrayList<>(logs.subList(0, pageSize)) : logs, hasMore);
+                }, callback::onError);
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                callback.onError(error.getMessage());
+            }
+        });
     }
 
     // ========== 일일 퀘스트 ==========
@@ -622,34 +1839,49 @@ public class FirebaseRepository {
      * 오늘의 일일 퀘스트 조회 (없으면 생성)
      */
     public void getTodayQuests(String userId, QuestsCallback callback) {
+        synchronized (this) {
+            if (userId.equals(cachedUserId)) keepTodayQuestsSynced(userId);
+        }
         String today = DailyQuest.getTodayDateString();
+        DatabaseReference todayRef = database.child("users").child(userId).child("dailyQuests").child(today);
 
-        database.child("users").child(userId).child("dailyQuests").child(today)
-                .addListenerForSingleValueEvent(new ValueEventListener() {
+        todayRef.addListenerForSingleValueEvent(new ValueEventListener() {
                     @Override
                     public void onDataChange(@NonNull DataSnapshot snapshot) {
                         List<DailyQuest> quests = new ArrayList<>();
 
-                        if (snapshot.exists() && snapshot.getChildrenCount() > 0) {
-                            // 기존 퀘스트 로드
-                            for (DataSnapshot child : snapshot.getChildren()) {
-                                DailyQuest quest = child.getValue(DailyQuest.class);
-                                if (quest != null) {
-                                    quests.add(quest);
-                                }
+                        // 기존 퀘스트 로드 (진행도 증가만 기록된 노드, 모르는 타입은 건너뜀)
+                        for (DataSnapshot child : snapshot.getChildren()) {
+                            DailyQuest quest = DailyQuest.fromMap(valueMap(child));
+                            if (quest != null && DailyQuest.parseType(quest.getQuestType()) != null) {
+                                quest.normalizeProgress();
+                                quests.add(quest);
                             }
-                            callback.onSuccess(quests);
-                        } else {
-                            // 새 퀘스트 생성
-                            DailyQuest[] newQuests = DailyQuest.generateDailyQuests(userId);
-                            for (DailyQuest quest : newQuests) {
-                                database.child("users").child(userId)
-                                        .child("dailyQuests").child(today).child(quest.getId())
-                                        .setValue(quest.toMap());
+                        }
+
+                        if (quests.isEmpty()) {
+                            // 새 퀘스트 생성 - 생성 전에 쌓인 진행도는 유지하고 나머지 필드만 기록
+                            Map<String, Object> updates = new HashMap<>();
+                            for (DailyQuest quest : DailyQuest.generateDailyQuests(userId)) {
+                                Integer pending = snapshot.child(quest.getId())
+                                        .child("currentProgress").getValue(Integer.class);
+                                if (pending != null) {
+                                    quest.setCurrentProgress(pending);
+                                    quest.normalizeProgress();
+                                }
+
+                                Map<String, Object> fields = quest.toMap();
+                                fields.remove("currentProgress");
+                                fields.remove("completed");
+                                for (Map.Entry<String, Object> field : fields.entrySet()) {
+                                    updates.put(quest.getId() + "/" + field.getKey(), field.getValue());
+                                }
                                 quests.add(quest);
                             }
-                            callback.onSuccess(quests);
+                            todayRef.updateChildren(updates)
+                                    .addOnFailureListener(e -> Log.w(TAG, "오늘 퀘스트 기록 실패: " + e.getMessage()));
                         }
+                        callback.onSuccess(quests);
                     }
 
                     @Override
@@ -690,32 +1922,66 @@ public class FirebaseRepository {
                 .addOnFailureListener(e -> callback.onError(e.getMessage()));
     }
 
+    /**
+     * 퀘스트 진행도 증가 경로를 업데이트 맵에 추가 (루트 기준 경로)
+     * 목표치 초과/완료 여부는 읽을 때 DailyQuest.normalizeProgress()로 정리
+     */
+    private void putQuestProgress(Map<String, Object> updates, String userId, String questType, int amount) {
+        String today = DailyQuest.getTodayDateString();
+        String questId = DailyQuest.getQuestId(questType, today);
+        if (questId == null) {
+            Log.w(TAG, "알 수 없는 퀘스트 타입: " + questType);
+            return;
+        }
+        updates.put("users/" + userId + "/dailyQuests/" + today + "/"
+                + questId + "/currentProgress", ServerValue.increment(amount));
+    }
+
     /**
      * 특정 타입의 퀘스트 진행 (스캔, 처치 등)
      */
     public void progressQuestByType(String userId, String questType, int amount, SimpleCallback callback) {
-        String today = DailyQuest.getTodayDateString();
+        Map<String, Object> updates = new HashMap<>();
+        putQuestProgress(updates, userId, questType, amount);
 
-        database.child("users").child(userId).child("dailyQuests").child(today)
-                .addListenerForSingleValueEvent(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        for (DataSnapshot child : snapshot.getChildren()) {
-                            DailyQuest quest = child.getValue(DailyQuest.class);
-                            if (quest != null && quest.getQuestType().equals(questType) && !quest.isCompleted()) {
-                                quest.addProgress(amount);
-                                updateQuestProgress(userId, quest.getId(), quest.getCurrentProgress(), quest.isCompleted(), callback);
-                                return;
-                            }
-                        }
-                        callback.onSuccess();  // 해당 타입 퀘스트 없음
-                    }
+        database.updateChildren(updates)
+                .addOnSuccessListener(aVoid -> callback.onSuccess())
+                .addOnFailureListener(e -> callback.onError(e.getMessage()));
+    }
 
-                    @Override
-                    public void onCancelled(@NonNull DatabaseError error) {
-                        callback.onError(error.getMessage());
-                    }
-                });
+    // ========== 스캔 커밋 ==========
+
+    /**
+     * 스캔 결과 일괄 저장
+     * 영양 기록 + 몬스터(대기열) 또는 아이템 + 퀘스트 진행도 + 음식 카운터를 한 번의 원자적 다중 경로 업데이트로 기록
+     *
+     * @param questDeltas 퀘스트 타입(QuestType.name()) → 증가량
+     */
+    public void commitScan(NutritionRecord record, FoodAnalyzer.AnalysisResult result,
+                           Map<String, Integer> questDeltas, SimpleCallback callback) {
+        String userId = record.getOwnerId();
+        // 기록 + 일별 집계(9) + 카운터 + 몬스터(3)/아이템 + 퀘스트 → 16개 이상이므로 재해시 없게 미리 확보
+        Map<String, Object> updates = new HashMap<>(32);
+
+        updates.put(nutritionRecordPath(record), record.toMap());
+        putNutritionRollup(updates, record);
+        putCounterIncrement(updates, userId,
+                result.isMonster() ? COUNTER_UNHEALTHY_FOOD : COUNTER_HEALTHY_FOOD, 1);
+
+        if (result.isMonster()) {
+            putMonsterEnqueue(updates, result.getMonster());
+        } else {
+            Item item = result.getItem();
+            templates.putItem(updates, "users/" + userId + "/" + inventoryPath(item.getType()) + "/" + item.getId(), item);
+        }
+
+        if (questDeltas != null) {
+            for (Map.Entry<String, Integer> delta : questDeltas.entrySet()) {
+                putQuestProgress(updates, userId, delta.getKey(), delta.getValue());
+            }
+        }
+
+        updateWithTemplates(updates, callback);
     }
 
     // ========== 영양 기록 ==========
@@ -729,38 +1995,76 @@ public class FirebaseRepository {
     }
 
     /**
-     * 영양 기록 저장
+     * 일별 영양 통계 콜백 (날짜 → 통계, 기록 없는 날은 빠짐)
+     */
+    public interface NutritionDailyCallback {
+        void onSuccess(Map<String, NutritionStats> dailyStats);
+        void onError(String message);
+    }
+
+    /**
+     * 영양 기록 저장 (일별 집계도 같은 업데이트에서 증가)
      */
     public void saveNutritionRecord(NutritionRecord record, SimpleCallback callback) {
-        database.child("users").child(record.getOwnerId())
-                .child("nutritionRecords").child(record.getId())
-                .setValue(record.toMap())
+        Map<String, Object> updates = new HashMap<>();
+        updates.put(nutritionRecordPath(record), record.toMap());
+        putNutritionRollup(updates, record);
+
+        database.updateChildren(updates)
                 .addOnSuccessListener(aVoid -> callback.onSuccess())
                 .addOnFailureListener(e -> callback.onError(e.getMessage()));
     }
 
     /**
-     * 오늘의 영양 기록 조회
+     * 루트 기준 기록 경로 (users/{uid}/nutritionRecords/{yyyy-MM-dd}/{id})
      */
-    public void getTodayNutritionRecords(String userId, NutritionRecordsCallback callback) {
-        String today = NutritionRecord.getTodayDateString();
+    static String nutritionRecordPath(NutritionRecord record) {
+        return "users/" + record.getOwnerId() + "/nutritionRecords/" + record.getDate() + "/" + record.getId();
+    }
 
-        database.child("users").child(userId).child("nutritionRecords")
-                .orderByChild("date")
-                .equalTo(today)
-                .addListenerForSingleValueEvent(new ValueEventListener() {
+    /**
+     * 기록 1건만큼 users/{uid}/nutritionDaily/{date} 집계를 원자적으로 증가
+     */
+    private static void putNutritionRollup(Map<String, Object> updates, NutritionRecord record) {
+        String base = "users/" + record.getOwnerId() + "/nutritionDaily/" + record.getDate() + "/";
+        updates.put(base + NutritionStats.ROLLUP_CALORIES, ServerValue.increment(record.getCalories()));
+        updates.put(base + NutritionStats.ROLLUP_PROTEIN, ServerValue.increment(record.getProtein()));
+        updates.put(base + NutritionStats.ROLLUP_CARBOHYDRATE, ServerValue.increment(record.getCarbohydrate()));
+        updates.put(base + NutritionStats.ROLLUP_FAT, ServerValue.increment(record.getFat()));
+        updates.put(base + NutritionStats.ROLLUP_SUGAR, ServerValue.increment(record.getSugar()));
+        updates.put(base + NutritionStats.ROLLUP_SODIUM, ServerValue.increment(record.getSodium()));
+        updates.put(base + NutritionStats.ROLLUP_FIBER, ServerValue.increment(record.getFiber()));
+        updates.put(base + (record.getIsHealthy() ? NutritionStats.ROLLUP_HEALTHY : NutritionStats.ROLLUP_UNHEALTHY),
+                ServerValue.increment(1));
+        updates.put(base + NutritionStats.ROLLUP_TOTAL, ServerValue.increment(1));
+    }
+
+    /**
+     * 기간별 일별 영양 통계 조회 (날짜 키 범위, 양 끝 포함)
+     * 기록 수와 관계없이 하루당 작은 노드 하나만 받음
+     */
+    public void getDailyNutritionStats(String userId, String startDate, String endDate,
+                                       NutritionDailyCallback callback) {
+        readOnce("users/" + userId + "/nutritionDaily?orderByKey&startAt=" + startDate + "&endAt=" + endDate,
+                database.child("users").child(userId).child("nutritionDaily")
+                        .orderByKey()
+                        .startAt(startDate)
+                        .endAt(endDate),
+                new ValueEventListener() {
                     @Override
                     public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        List<NutritionRecord> records = new ArrayList<>();
-                        for (DataSnapshot child : snapshot.getChildren()) {
-                            NutritionRecord record = child.getValue(NutritionRecord.class);
-                            if (record != null) {
-                                records.add(record);
+                        decodeOffMain("nutritionDaily", () -> {
+                            Map<String, NutritionStats> dailyStats = new LinkedHashMap<>();
+                            for (DataSnapshot child : snapshot.getChildren()) {
+                                Object value = child.getValue();
+                                if (value instanceof Map) {
+                                    @SuppressWarnings("unchecked")
+                                    Map<String, Object> rollup = (Map<String, Object>) value;
+                                    dailyStats.put(child.getKey(), NutritionStats.fromRollup(rollup));
+                                }
                             }
-                        }
-                        // 시간순 정렬
-                        records.sort((a, b) -> Long.compare(b.getTimestamp(), a.getTimestamp()));
-                        callback.onSuccess(records);
+                            return dailyStats;
+                        }, callback::onSuccess, callback::onError);
                     }
 
                     @Override
@@ -771,34 +2075,91 @@ public class FirebaseRepository {
     }
 
     /**
-     * 최근 N일간 영양 기록 조회
+     * 오늘의 영양 기록 조회
+     */
+    public void getTodayNutritionRecords(String userId, NutritionRecordsCallback callback) {
+        String today = NutritionRecord.getTodayDateString();
+        getNutritionRecordsRange(userId, today, today, callback);
+    }
+
+    /**
+     * 최근 N일간 영양 기록 조회 (오늘 포함)
      */
     public void getRecentNutritionRecords(String userId, int days, NutritionRecordsCallback callback) {
-        long startTime = System.currentTimeMillis() - (days * 24L * 60 * 60 * 1000);
+        getNutritionRecordsRange(userId, NutritionRecord.getDateStringDaysAgo(days - 1),
+                NutritionRecord.getTodayDateString(), callback);
+    }
 
-        database.child("users").child(userId).child("nutritionRecords")
-                .orderByChild("timestamp")
-                .startAt(startTime)
-                .addListenerForSingleValueEvent(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        List<NutritionRecord> records = new ArrayList<>();
-                        for (DataSnapshot child : snapshot.getChildren()) {
-                            NutritionRecord record = child.getValue(NutritionRecord.class);
-                            if (record != null) {
-                                records.add(record);
-                            }
+    /**
+     * 기간별 영양 기록 조회 (날짜 버킷 키 범위, 양 끝 포함, 최신순)
+     * 날짜 버킷 이전이 끝나지 않은 유저는 옛 평평한 기록도 함께 조회해 합침
+     */
+    public void getNutritionRecordsRange(String userId, String startDate, String endDate,
+                                         NutritionRecordsCallback callback) {
+        DatabaseReference recordsRef = database.child("users").child(userId).child("nutritionRecords");
+        Query bucketQuery = recordsRef.orderByKey().startAt(startDate).endAt(endDate);
+
+        if (nutritionMigratedUsers.contains(userId)) {
+            readOnce("users/" + userId + "/nutritionRecords?orderByKey&startAt=" + startDate + "&endAt=" + endDate,
+                    bucketQuery,
+                    new ValueEventListener() {
+                        @Override
+                        public void onDataChange(@NonNull DataSnapshot snapshot) {
+                            decodeOffMain("nutritionRange", () -> readNutritionBuckets(snapshot, null),
+                                    callback::onSuccess, callback::onError);
                         }
-                        // 시간순 정렬
-                        records.sort((a, b) -> Long.compare(b.getTimestamp(), a.getTimestamp()));
-                        callback.onSuccess(records);
-                    }
 
-                    @Override
-                    public void onCancelled(@NonNull DatabaseError error) {
-                        callback.onError(error.getMessage());
-                    }
-                });
+                        @Override
+                        public void onCancelled(@NonNull DatabaseError error) {
+                            callback.onError(error.getMessage());
+                        }
+                    });
+            return;
+        }
+
+        Query legacyQuery = recordsRef.orderByChild("date").startAt(startDate).endAt(endDate);
+        ListenableFuture<List<DataSnapshot>> reads = withDeadline(
+                Futures.allAsList(readAsync(bucketQuery), readAsync(legacyQuery)),
+                DEFAULT_READ_DEADLINE_MS);
+
+        Futures.addCallback(reads, new FutureCallback<List<DataSnapshot>>() {
+            @Override
+            public void onSuccess(List<DataSnapshot> snapshots) {
+                decodeOffMain("nutritionRange", () -> readNutritionBuckets(snapshots.get(0), snapshots.get(1)),
+                        callback::onSuccess, callback::onError);
+            }
+
+            @Override
+            public void onFailure(@NonNull Throwable t) {
+                callback.onError(t instanceof TimeoutException ? "영양 기록 조회 시간 초과" : t.getMessage());
+            }
+        }, mainExecutor);
+    }
+
+    /**
+     * 날짜 버킷 범위 스냅샷 + (이전 중이면) 옛 평평한 기록 스냅샷 → 기록 목록 (최신순, id 중복 제거)
+     */
+    private static List<NutritionRecord> readNutritionBuckets(DataSnapshot buckets, @Nullable DataSnapshot legacy) {
+        Map<String, NutritionRecord> byId = new LinkedHashMap<>();
+        for (DataSnapshot bucket : buckets.getChildren()) {
+            if (!NutritionRecordMigration.isDateKey(bucket.getKey())) continue;
+            for (DataSnapshot child : bucket.getChildren()) {
+                NutritionRecord record = NutritionRecord.fromMap(valueMap(child));
+                if (record != null) byId.put(child.getKey(), record);
+            }
+        }
+        if (legacy != null) {
+            for (DataSnapshot child : legacy.getChildren()) {
+                if (NutritionRecordMigration.isDateKey(child.getKey()) || byId.containsKey(child.getKey())) continue;
+                NutritionRecord record = NutritionRecord.fromMap(valueMap(child));
+                if (record != null) byId.put(child.getKey(), record);
+            }
+        }
+
+        List<NutritionRecord> records = new ArrayList<>(byId.values());
+        // 시간순 정렬
+        records.sort((a, b) -> Long.compare(b.getTimestamp(), a.getTimestamp()));
+        return records;
     }
 
     // ========== 출석 보상 ==========
@@ -825,12 +2186,13 @@ public class FirebaseRepository {
     public void getTodayAttendance(String userId, AttendanceCallback callback) {
         String today = AttendanceReward.getTodayDateString();
 
-        database.child("users").child(userId).child("attendance").child(today)
-                .addListenerForSingleValueEvent(new ValueEventListener() {
+        readOnce("users/" + userId + "/attendance/" + today,
+                database.child("users").child(userId).child("attendance").child(today),
+                new ValueEventListener() {
                     @Override
                     public void onDataChange(@NonNull DataSnapshot snapshot) {
                         if (snapshot.exists()) {
-                            AttendanceReward reward = snapshot.getValue(AttendanceReward.class);
+                            AttendanceReward reward = AttendanceReward.fromMap(valueMap(snapshot));
                             callback.onSuccess(reward);
                         } else {
                             callback.onError("오늘 출석 기록 없음");
@@ -846,68 +2208,64 @@ public class FirebaseRepository {
 
     /**
      * 출석 체크 수행
+     * 오늘/어제 기록을 동시에 조회한 뒤 출석 처리
      */
     public void checkAttendance(String userId, AttendanceCallback callback) {
         String today = AttendanceReward.getTodayDateString();
         String yesterday = AttendanceReward.getYesterdayDateString();
+        DatabaseReference attendanceRef = database.child("users").child(userId).child("attendance");
 
-        // 먼저 오늘 이미 출석했는지 확인
-        database.child("users").child(userId).child("attendance").child(today)
-                .addListenerForSingleValueEvent(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        if (snapshot.exists()) {
-                            // 이미 출석함
-                            AttendanceReward reward = snapshot.getValue(AttendanceReward.class);
-                            callback.onSuccess(reward);
-                            return;
-                        }
+        ListenableFuture<List<DataSnapshot>> reads = withDeadline(
+                Futures.allAsList(readAsync(attendanceRef.child(today)), readAsync(attendanceRef.child(yesterday))),
+                DEFAULT_READ_DEADLINE_MS);
 
-                        // 어제 출석 기록 확인 (연속 출석 계산)
-                        database.child("users").child(userId).child("attendance").child(yesterday)
-                                .addListenerForSingleValueEvent(new ValueEventListener() {
-                                    @Override
-                                    public void onDataChange(@NonNull DataSnapshot yesterdaySnapshot) {
-                                        int consecutiveDays = 1;
-                                        int totalDays = 1;
-
-                                        if (yesterdaySnapshot.exists()) {
-                                            AttendanceReward yesterdayReward = yesterdaySnapshot.getValue(AttendanceReward.class);
-                                            if (yesterdayReward != null) {
-                                                consecutiveDays = yesterdayReward.getConsecutiveDays() + 1;
-                                                totalDays = yesterdayReward.getTotalDays() + 1;
-                                            }
-                                        } else {
-                                            // 어제 출석 안함 - 연속 초기화, 총 일수는 조회 필요
-                                            consecutiveDays = 1;
-                                            // 간단하게 처리: 총 일수는 연속과 별개로 카운트
-                                        }
-
-                                        // 새 출석 보상 생성
-                                        AttendanceReward reward = AttendanceReward.createTodayReward(userId, consecutiveDays, totalDays);
-
-                                        // Firebase에 저장
-                                        database.child("users").child(userId).child("attendance").child(today)
-                                                .setValue(reward.toMap())
-                                                .addOnSuccessListener(aVoid -> {
-                                                    // 보상 지급
-                                                    applyAttendanceReward(userId, reward, callback);
-                                                })
-                                                .addOnFailureListener(e -> callback.onError(e.getMessage()));
-                                    }
-
-                                    @Override
-                                    public void onCancelled(@NonNull DatabaseError error) {
-                                        callback.onError(error.getMessage());
-                                    }
-                                });
-                    }
+        Futures.addCallback(reads, new FutureCallback<List<DataSnapshot>>() {
+            @Override
+            public void onSuccess(List<DataSnapshot> snapshots) {
+                DataSnapshot todaySnapshot = snapshots.get(0);
+                DataSnapshot yesterdaySnapshot = snapshots.get(1);
 
-                    @Override
-                    public void onCancelled(@NonNull DatabaseError error) {
-                        callback.onError(error.getMessage());
+                if (todaySnapshot.exists()) {
+                    // 이미 출석함
+                    AttendanceReward reward = AttendanceReward.fromMap(valueMap(todaySnapshot));
+                    callback.onSuccess(reward);
+                    return;
+                }
+
+                // 어제 출석 기록으로 연속 출석 계산
+                int consecutiveDays = 1;
+                int totalDays = 1;
+
+                if (yesterdaySnapshot.exists()) {
+                    AttendanceReward yesterdayReward = AttendanceReward.fromMap(valueMap(yesterdaySnapshot));
+                    if (yesterdayReward != null) {
+                        consecutiveDays = yesterdayReward.getConsecutiveDays() + 1;
+                        totalDays = yesterdayReward.getTotalDays() + 1;
                     }
-                });
+                } else {
+                    // 어제 출석 안함 - 연속 초기화, 총 일수는 조회 필요
+                    consecutiveDays = 1;
+                    // 간단하게 처리: 총 일수는 연속과 별개로 카운트
+                }
+
+                // 새 출석 보상 생성
+                AttendanceReward reward = AttendanceReward.createTodayReward(userId, consecutiveDays, totalDays);
+
+                // Firebase에 저장
+                attendanceRef.child(today)
+                        .setValue(reward.toMap())
+                        .addOnSuccessListener(aVoid -> {
+                            // 보상 지급
+                            applyAttendanceReward(userId, reward, callback);
+                        })
+                        .addOnFailureListener(e -> callback.onError(e.getMessage()));
+            }
+
+            @Override
+            public void onFailure(@NonNull Throwable t) {
+                callback.onError(t instanceof TimeoutException ? "출석 확인 시간 초과" : t.getMessage());
+            }
+        }, mainExecutor);
     }
 
     /**
@@ -915,44 +2273,25 @@ public class FirebaseRepository {
      */
     private void applyAttendanceReward(String userId, AttendanceReward reward, AttendanceCallback callback) {
         if (AttendanceReward.REWARD_EXP.equals(reward.getRewardType())) {
-            // EXP 보상
-            database.child("users").child(userId).addListenerForSingleValueEvent(new ValueEventListener() {
+            // EXP 보상 (increment 로 쓰기 대기열에 넣고 레벨은 서버 값으로 계산하므로 유저를 먼저 읽지 않음)
+            applyExpGain(userId, null, reward.getRewardAmount(), new SimpleCallback() {
                 @Override
-                public void onDataChange(@NonNull DataSnapshot snapshot) {
-                    User user = snapshot.getValue(User.class);
-                    if (user != null) {
-                        user.addExp(reward.getRewardAmount());
-                        updateUser(user, new SimpleCallback() {
-                            @Override
-                            public void onSuccess() {
-                                callback.onSuccess(reward);
-                            }
-                            @Override
-                            public void onError(String message) {
-                                callback.onSuccess(reward);  // 보상 지급 실패해도 출석은 성공
-                            }
-                        });
-                    } else {
-                        callback.onSuccess(reward);
-                    }
+                public void onSuccess() {
+                    callback.onSuccess(reward);
                 }
-
                 @Override
-                public void onCancelled(@NonNull DatabaseError error) {
-                    callback.onSuccess(reward);
+                public void onError(String message) {
+                    callback.onSuccess(reward);  // 보상 지급 실패해도 출석은 성공
                 }
             });
         } else if (AttendanceReward.REWARD_POTION.equals(reward.getRewardType())) {
-            // 포션 보상
+            // 포션 보상 (쓰기 대기열로 지급, 실패해도 재시도)
+            Map<String, Object> updates = new HashMap<>();
             for (int i = 0; i < reward.getRewardAmount(); i++) {
                 Item potion = Item.createAttendancePotion(userId);
-                saveItem(potion, new ItemCallback() {
-                    @Override
-                    public void onSuccess(Item item) {}
-                    @Override
-                    public void onError(String message) {}
-                });
+                updates.put("users/" + userId + "/" + inventoryPath(potion.getType()) + "/" + potion.getId(), potion.toMap());
             }
+            enqueueWrites(updates);
             callback.onSuccess(reward);
         } else {
             callback.onSuccess(reward);
@@ -960,26 +2299,37 @@ public class FirebaseRepository {
     }
 
     /**
-     * 이번 주 출석 기록 조회
+     * 이번 주 출석 기록 조회 (월~일 7일 범위만 다운로드)
      */
     public void getWeeklyAttendance(String userId, AttendanceListCallback callback) {
         List<String> weekDates = AttendanceReward.getThisWeekDates();
-        List<AttendanceReward> rewards = new ArrayList<>();
+        getAttendanceRange(userId, weekDates.get(0), weekDates.get(weekDates.size() - 1), callback);
+    }
 
-        database.child("users").child(userId).child("attendance")
-                .addListenerForSingleValueEvent(new ValueEventListener() {
+    /**
+     * 기간 출석 기록 조회 (날짜 키 "yyyy-MM-dd" 범위, 양 끝 포함, 날짜순)
+     * 계정 사용 기간과 관계없이 범위 안의 기록만 받음
+     */
+    public void getAttendanceRange(String userId, String startDate, String endDate,
+                                   AttendanceListCallback callback) {
+        readOnce("users/" + userId + "/attendance?orderByKey&startAt=" + startDate + "&endAt=" + endDate,
+                database.child("users").child(userId).child("attendance")
+                        .orderByKey()
+                        .startAt(startDate)
+                        .endAt(endDate),
+                new ValueEventListener() {
                     @Override
                     public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        for (String date : weekDates) {
-                            DataSnapshot dateSnapshot = snapshot.child(date);
-                            if (dateSnapshot.exists()) {
-                                AttendanceReward reward = dateSnapshot.getValue(AttendanceReward.class);
+                        decodeOffMain("attendanceRange", () -> {
+                            List<AttendanceReward> rewards = new ArrayList<>();
+                            for (DataSnapshot dateSnapshot : snapshot.getChildren()) {
+                                AttendanceReward reward = AttendanceReward.fromMap(valueMap(dateSnapshot));
                                 if (reward != null) {
                                     rewards.add(reward);
                                 }
                             }
-                        }
-                        callback.onSuccess(rewards);
+                            return rewards;
+                        }, callback::onSuccess, callback::onError);
                     }
 
                     @Override
@@ -993,14 +2343,16 @@ public class FirebaseRepository {
      * 최근 출석 기록 조회 (연속 일수 확인용)
      */
     public void getLatestAttendance(String userId, AttendanceCallback callback) {
-        database.child("users").child(userId).child("attendance")
-                .orderByChild("claimedAt")
-                .limitToLast(1)
-                .addListenerForSingleValueEvent(new ValueEventListener() {
+        // 날짜 키는 사전순 = 시간순이므로 마지막 키 하나만 받음
+        readOnce("users/" + userId + "/attendance?orderByKey&limitToLast=1",
+                database.child("users").child(userId).child("attendance")
+                        .orderByKey()
+                        .limitToLast(1),
+                new ValueEventListener() {
                     @Override
                     public void onDataChange(@NonNull DataSnapshot snapshot) {
                         for (DataSnapshot child : snapshot.getChildren()) {
-                            AttendanceReward reward = child.getValue(AttendanceReward.class);
+                            AttendanceReward reward = AttendanceReward.fromMap(valueMap(child));
                             if (reward != null) {
                                 callback.onSuccess(reward);
                                 return;
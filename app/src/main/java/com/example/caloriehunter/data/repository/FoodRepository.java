@@ -1,52 +1,151 @@
 package com.example.caloriehunter.data.repository;
 
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.example.caloriehunter.BuildConfig;
 import com.example.caloriehunter.data.api.OpenFoodFactsApi;
+import com.example.caloriehunter.data.api.OpenFoodFactsResponseAdapter;
+import com.example.caloriehunter.data.api.RevalidatingCacheInterceptor;
 import com.example.caloriehunter.data.model.NutritionData;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
 
+import okhttp3.Cache;
+import okhttp3.Interceptor;
 import okhttp3.OkHttpClient;
+import okhttp3.ResponseBody;
 import okhttp3.logging.HttpLoggingInterceptor;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
 import retrofit2.Call;
 import retrofit2.Callback;
 import retrofit2.Response;
 import retrofit2.Retrofit;
 import retrofit2.converter.gson.GsonConverterFactory;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 음식 데이터 레포지토리
  * Open Food Facts API로 바코드 조회
+ * 조회 결과는 메모리 LRU + 디스크에 캐시 (재스캔은 네트워크 없이 응답, 만료돼도 오프라인이면 이전 값 사용)
+ * 만료된 지 오래되지 않은 값은 바로 응답하고 백그라운드에서 재검증 (HTTP 캐시의 ETag 조건부 요청 → 304 면 본문 없음)
+ * 캐시(메모리 → 디스크)에 만료 전 값이 없으면 오프라인 제품 DB(메모리 매핑)를 찾고, 거기도 없을 때만 네트워크 요청
+ * (만료된 캐시 값이 DB 를 만든 시각보다 새로우면 DB 대신 그 값을 사용)
  */
 public class FoodRepository {
 
+    private static final String TAG = "FoodRepository";
     private static final String OPEN_FOOD_FACTS_BASE_URL = "https://world.openfoodfacts.org/";
 
+    // 캐시 유지 시간 기본값 (제품 정보는 거의 안 바뀜, "제품 없음"은 DB 등록될 수 있으므로 짧게)
+    private static final long DEFAULT_CACHE_TTL_MS = 7L * 24 * 60 * 60 * 1000;
+    private static final long DEFAULT_NOT_FOUND_TTL_MS = 10L * 60 * 1000;
+    // 만료 후 이 기간 안이면 이전 값으로 바로 응답하고 백그라운드 재검증 (그 이후는 응답을 기다림)
+    private static final long DEFAULT_MAX_STALE_MS = 30L * 24 * 60 * 60 * 1000;
+    private static final String NOT_FOUND_MESSAGE = "제품을 찾을 수 없습니다";
+
+    // 오프라인 제품 DB 파일 (내려받은 파일이 있으면 우선, 없으면 APK 에셋 - 압축하지 않도록 설정됨)
+    private static final String OFFLINE_DB_FILE = "offline_products.pdb";
+
+    // OkHttp 디스크 캐시 (재검증용 응답 저장, 필드 제한 응답은 수 KB 라 수천 개)
+    private static final String HTTP_CACHE_DIR = "http_cache";
+    private static final long HTTP_CACHE_BYTES = 10L * 1024 * 1024;
+
     private static FoodRepository instance;
-    private final OpenFoodFactsApi openFoodFactsApi;
+    private final OkHttpClient client;
+    private volatile OpenFoodFactsApi openFoodFactsApi;
+    private volatile Cache httpCache;
+
+    private final BarcodeCache cache = new BarcodeCache();
+    private volatile long cacheTtlMs = DEFAULT_CACHE_TTL_MS;
+    private volatile long notFoundTtlMs = DEFAULT_NOT_FOUND_TTL_MS;
+    private volatile long maxStaleMs = DEFAULT_MAX_STALE_MS;
+
+    // 백그라운드 재검증 중인 바코드 (같은 바코드 중복 요청 방지)
+    private final Set<String> revalidating = ConcurrentHashMap.newKeySet();
+
+    // 오프라인 제품 DB (열기 전이거나 파일이 없으면 null)
+    private volatile OfflineProductDb offlineDb;
+    private static final String OFFLINE_SOURCE = "offline";
+    private static final float OFFLINE_CONFIDENCE = 0.8f;   // 덤프 시점 값이라 실시간 조회(0.9)보다 낮게
+
+    // 캐시 통계
+    private final AtomicLong memoryHitCount = new AtomicLong();
+    private final AtomicLong diskHitCount = new AtomicLong();
+    private final AtomicLong offlineHitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong staleServedCount = new AtomicLong();
+    private final AtomicLong revalidationCount = new AtomicLong();
+
+    // 네트워크 통계 (응답 본문 전송 바이트, 압축된 크기 기준) + 응답 파싱 시간
+    private final AtomicLong responseCount = new AtomicLong();
+    private final AtomicLong responseBytes = new AtomicLong();
+    private final OpenFoodFactsResponseAdapter responseAdapter = new OpenFoodFactsResponseAdapter();
+    private final RevalidatingCacheInterceptor revalidatingCache = new RevalidatingCacheInterceptor();
 
     public interface FoodCallback {
         void onSuccess(NutritionData data);
         void onError(String message);
     }
 
-    private FoodRepository() {
-        // OkHttp 클라이언트 설정
-        HttpLoggingInterceptor logging = new HttpLoggingInterceptor();
-        logging.setLevel(HttpLoggingInterceptor.Level.BODY);
+    /**
+     * Future API 실패 (메시지는 콜백 onError 와 같음)
+     */
+    public static class LookupException extends RuntimeException {
+        public LookupException(String message) {
+            super(message);
+        }
+    }
 
-        OkHttpClient client = new OkHttpClient.Builder()
-                .addInterceptor(logging)
+    private FoodRepository() {
+        // OkHttp 클라이언트 설정 (본문 로깅은 디버그 빌드에서만, 릴리스는 로깅 없음)
+        OkHttpClient.Builder clientBuilder = new OkHttpClient.Builder()
+                .addNetworkInterceptor(revalidatingCache)
+                .addNetworkInterceptor(this::countResponseBytes)
                 .connectTimeout(15, TimeUnit.SECONDS)
-                .readTimeout(15, TimeUnit.SECONDS)
-                .build();
+                .readTimeout(15, TimeUnit.SECONDS);
+        if (BuildConfig.DEBUG) {
+            HttpLoggingInterceptor logging = new HttpLoggingInterceptor();
+            logging.setLevel(HttpLoggingInterceptor.Level.BODY);
+            clientBuilder.addInterceptor(logging);
+        }
+        client = clientBuilder.build();
+        openFoodFactsApi = createApi(client);
+    }
 
-        // Open Food Facts API
+    /**
+     * Open Food Facts API (응답은 필요한 필드만 스트리밍 파싱)
+     */
+    private OpenFoodFactsApi createApi(OkHttpClient client) {
+        Gson gson = new GsonBuilder()
+                .registerTypeAdapter(OpenFoodFactsApi.OpenFoodFactsResponse.class, responseAdapter)
+                .create();
         Retrofit openFoodFactsRetrofit = new Retrofit.Builder()
                 .baseUrl(OPEN_FOOD_FACTS_BASE_URL)
                 .client(client)
-                .addConverterFactory(GsonConverterFactory.create())
+                .addConverterFactory(GsonConverterFactory.create(gson))
                 .build();
-        openFoodFactsApi = openFoodFactsRetrofit.create(OpenFoodFactsApi.class);
+        return openFoodFactsRetrofit.create(OpenFoodFactsApi.class);
     }
 
     public static synchronized FoodRepository getInstance() {
@@ -57,32 +156,324 @@ public class FoodRepository {
     }
 
     /**
-     * 바코드로 음식 조회 (Open Food Facts API)
+     * 응답 본문을 읽는 만큼 전송 바이트 집계 (네트워크 인터셉터라 gzip 해제 전 크기)
+     */
+    private okhttp3.Response countResponseBytes(Interceptor.Chain chain) throws IOException {
+        okhttp3.Response response = chain.proceed(chain.request());
+        ResponseBody body = response.body();
+        if (body == null) return response;
+
+        responseCount.incrementAndGet();
+        BufferedSource counted = Okio.buffer(new ForwardingSource(body.source()) {
+            @Override
+            public long read(Buffer sink, long byteCount) throws IOException {
+                long read = super.read(sink, byteCount);
+                if (read > 0) responseBytes.addAndGet(read);
+                return read;
+            }
+        });
+        return response.newBuilder()
+                .body(ResponseBody.create(counted, body.contentType(), body.contentLength()))
+                .build();
+    }
+
+    /**
+     * 디스크 캐시 사용 (Application 에서 한 번 호출, 호출 전에는 메모리 캐시만 사용)
+     * 조회 결과 캐시와 함께 HTTP 캐시도 붙임 (이후 요청부터 조건부 요청 가능)
+     */
+    public synchronized void attachCache(Context context) {
+        File cacheDir = context.getApplicationContext().getCacheDir();
+        cache.attach(cacheDir);
+        if (httpCache == null) {
+            httpCache = new Cache(new File(cacheDir, HTTP_CACHE_DIR), HTTP_CACHE_BYTES);
+            openFoodFactsApi = createApi(client.newBuilder().cache(httpCache).build());
+        }
+    }
+
+    /**
+     * 오프라인 제품 DB 열기 (Application 에서 한 번 호출, 백그라운드 스레드에서 매핑)
+     * filesDir 에 내려받은 파일이 있으면 그것을, 없으면 APK 에셋을 사용. 둘 다 없으면 네트워크만 사용
+     */
+    public void attachOfflineDb(Context context) {
+        Context appContext = context.getApplicationContext();
+        new Thread(() -> {
+            File downloaded = new File(appContext.getFilesDir(), OFFLINE_DB_FILE);
+            if (downloaded.isFile()) {
+                useOfflineDb(downloaded);
+                return;
+            }
+            try (AssetFileDescriptor asset = appContext.getAssets().openFd(OFFLINE_DB_FILE);
+                 FileChannel channel = new FileInputStream(asset.getFileDescriptor()).getChannel()) {
+                // 매핑은 채널을 닫아도 유지됨
+                offlineDb = OfflineProductDb.map(channel, asset.getStartOffset(), asset.getLength());
+                Log.i(TAG, "오프라인 제품 DB(에셋) " + offlineDb.size() + "개");
+            } catch (FileNotFoundException e) {
+                Log.i(TAG, "오프라인 제품 DB 없음");
+            } catch (IOException e) {
+                Log.w(TAG, "오프라인 제품 DB 열기 실패", e);
+            }
+        }, "offline-product-db").start();
+    }
+
+    /**
+     * 내려받은 오프라인 제품 DB 파일 사용 (이후 조회부터 적용)
+     */
+    public void useOfflineDb(File file) {
+        try (FileChannel channel = new FileInputStream(file).getChannel()) {
+            offlineDb = OfflineProductDb.map(channel, 0, channel.size());
+            Log.i(TAG, "오프라인 제품 DB " + offlineDb.size() + "개: " + file);
+        } catch (IOException e) {
+            Log.w(TAG, "오프라인 제품 DB 열기 실패: " + file, e);
+        }
+    }
+
+    /**
+     * 캐시 유지 시간 설정 (ttlMs: 찾은 제품, notFoundTtlMs: "제품 없음")
+     */
+    public void setCacheTtl(long ttlMs, long notFoundTtlMs) {
+        this.cacheTtlMs = ttlMs;
+        this.notFoundTtlMs = notFoundTtlMs;
+    }
+
+    /**
+     * 만료 후 바로 응답하고 백그라운드 재검증할 기간 (0 이면 만료되면 항상 응답을 기다림)
+     */
+    public void setMaxStale(long maxStaleMs) {
+        this.maxStaleMs = maxStaleMs;
+    }
+
+    public long getMemoryHitCount() { return memoryHitCount.get(); }
+    public long getDiskHitCount() { return diskHitCount.get(); }
+    public long getOfflineHitCount() { return offlineHitCount.get(); }
+    public long getMissCount() { return missCount.get(); }
+    public long getStaleServedCount() { return staleServedCount.get(); }
+    public long getRevalidationCount() { return revalidationCount.get(); }
+
+    public long getNetworkResponseCount() { return responseCount.get(); }
+    public long getNetworkResponseBytes() { return responseBytes.get(); }
+    public long getResponseParseCount() { return responseAdapter.getParseCount(); }
+    public long getResponseParseNanos() { return responseAdapter.getTotalParseNanos(); }
+
+    // HTTP 캐시 통계 (304 = 재검증 성공으로 본문 전송 없음)
+    public long getHttpNotModifiedCount() { return revalidatingCache.getNotModifiedCount(); }
+    public long getHttpFullResponseCount() { return revalidatingCache.getFullResponseCount(); }
+    public long getHttpCacheHitCount() {
+        Cache current = httpCache;
+        return current != null ? current.hitCount() : 0;
+    }
+
+    /**
+     * 오프라인 제품 DB 조회 (DB 가 없거나, 만료된 캐시 값이 DB 를 만든 시각보다 새로우면 null)
+     * 레코드를 찾았을 때만 NutritionData 를 만듦
+     */
+    @Nullable
+    private NutritionData lookupOffline(String barcode, @Nullable BarcodeCache.Entry stale) {
+        OfflineProductDb db = offlineDb;
+        if (db == null) return null;
+        if (stale != null && !stale.isNotFound() && stale.savedAt >= db.getBuiltAt()) return null;
+        int index = db.indexOf(barcode);
+        if (index < 0) return null;
+        return new NutritionData.Builder()
+                .foodName(db.getName(index))
+                .barcode(barcode)
+                .calories(db.getCalories(index))
+                .protein(db.getProtein(index))
+                .fat(db.getFat(index))
+                .saturatedFat(db.getSaturatedFat(index))
+                .transFat(db.getTransFat(index))
+                .carbohydrates(db.getCarbohydrates(index))
+                .sugar(db.getSugar(index))
+                .fiber(db.getFiber(index))
+                .sodium(db.getSodium(index))
+                .source(OFFLINE_SOURCE)
+                .confidence(OFFLINE_CONFIDENCE)
+                .build();
+    }
+
+    /**
+     * 찾은 제품이 만료된 지 maxStale 이내면 바로 응답 가능 ("제품 없음"은 새로 등록됐을 수 있어 기다림)
+     */
+    private boolean canServeWhileRevalidating(BarcodeCache.Entry entry) {
+        if (entry.isNotFound()) return false;
+        return System.currentTimeMillis() - entry.savedAt < cacheTtlMs + maxStaleMs;
+    }
+
+    /**
+     * 백그라운드 재검증 (결과는 캐시에만 반영, 실패하면 이전 값 유지)
+     */
+    private void revalidate(String barcode) {
+        if (!revalidating.add(barcode)) return;
+        revalidationCount.incrementAndGet();
+        fetchBarcode(barcode, null, new FoodCallback() {
+            @Override
+            public void onSuccess(NutritionData data) {
+                revalidating.remove(barcode);
+            }
+
+            @Override
+            public void onError(String message) {
+                revalidating.remove(barcode);
+                Log.d(TAG, "백그라운드 재검증 실패: " + barcode + " " + message);
+            }
+        });
+    }
+
+    /**
+     * 바코드로 영양 정보 검색 (로컬 → Open Food Facts 순서, 헤지 없음)
+     * 예전 콜백 API 호환용. 화면에서는 searchLocalAsync/fetchAsync 를 소스로 쓰는 NutritionResolver 사용
      */
+    @Deprecated
     public void searchByBarcode(String barcode, FoodCallback callback) {
-        openFoodFactsApi.getProductByBarcode(barcode).enqueue(new Callback<OpenFoodFactsApi.OpenFoodFactsResponse>() {
+        ListenableFuture<NutritionData> lookup = Futures.catchingAsync(searchLocalAsync(barcode),
+                LookupException.class, e -> fetchAsync(barcode), MoreExecutors.directExecutor());
+        Futures.addCallback(lookup, new FutureCallback<NutritionData>() {
+            @Override
+            public void onSuccess(NutritionData data) {
+                callback.onSuccess(data);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                callback.onError(t.getMessage() != null ? t.getMessage() : "알 수 없는 오류");
+            }
+        }, MoreExecutors.directExecutor());
+    }
+
+    // ========== Future API ==========
+    // NutritionResolver 가 로컬/네트워크를 따로 시작하고 취소하기 위해 사용
+
+    /**
+     * 로컬만 조회 (메모리 → 디스크 → 오프라인 제품 DB). 없으면 LookupException
+     * 만료된 지 maxStale 이내인 캐시 값은 바로 응답하고 백그라운드 재검증 (그보다 오래됐으면 실패 → 네트워크 소스가 이어받음)
+     */
+    public ListenableFuture<NutritionData> searchLocalAsync(String barcode) {
+        SettableFuture<NutritionData> future = SettableFuture.create();
+        BarcodeCache.Entry cached = cache.peek(barcode);
+        if (cached != null && isFresh(cached)) {
+            memoryHitCount.incrementAndGet();
+            completeFrom(future, cached);
+            return future;
+        }
+
+        cache.load(barcode, entry -> {
+            if (entry != null && isFresh(entry)) {
+                diskHitCount.incrementAndGet();
+                completeFrom(future, entry);
+                return;
+            }
+            BarcodeCache.Entry stale = entry != null ? entry : cached;
+            NutritionData offline = lookupOffline(barcode, stale);
+            if (offline != null) {
+                offlineHitCount.incrementAndGet();
+                future.set(offline);
+            } else if (stale != null && canServeWhileRevalidating(stale)) {
+                staleServedCount.incrementAndGet();
+                future.set(BarcodeCache.copyOf(stale.data));
+                revalidate(barcode);
+            } else {
+                future.setException(new LookupException("로컬 캐시에 없음"));
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Open Food Facts 조회 (실패하면 만료된 캐시 값으로 응답, 취소하면 요청도 취소)
+     * 캐시 값은 메모리에 없으면 디스크에서 읽음. 만료 전 "제품 없음" 이면 요청 없이 바로 실패
+     */
+    public ListenableFuture<NutritionData> fetchAsync(String barcode) {
+        SettableFuture<NutritionData> future = SettableFuture.create();
+        BarcodeCache.Entry cached = cache.peek(barcode);
+        if (cached != null) {
+            fetchInto(future, barcode, cached);
+        } else {
+            cache.load(barcode, entry -> {
+                if (!future.isDone()) fetchInto(future, barcode, entry);
+            });
+        }
+        return future;
+    }
+
+    private void fetchInto(SettableFuture<NutritionData> future, String barcode, @Nullable BarcodeCache.Entry cached) {
+        if (cached != null && cached.isNotFound() && isFresh(cached)) {
+            future.setException(new LookupException(NOT_FOUND_MESSAGE));
+            return;
+        }
+
+        missCount.incrementAndGet();
+        Call<OpenFoodFactsApi.OpenFoodFactsResponse> request = fetchBarcode(barcode, cached, new FoodCallback() {
+            @Override
+            public void onSuccess(NutritionData data) { future.set(data); }
+            @Override
+            public void onError(String message) { future.setException(new LookupException(message)); }
+        });
+        future.addListener(() -> {
+            if (future.isCancelled()) request.cancel();
+        }, MoreExecutors.directExecutor());
+    }
+
+    private static void completeFrom(SettableFuture<NutritionData> future, BarcodeCache.Entry entry) {
+        if (entry.isNotFound()) {
+            future.setException(new LookupException(NOT_FOUND_MESSAGE));
+        } else {
+            future.set(BarcodeCache.copyOf(entry.data));
+        }
+    }
+
+    private boolean isFresh(BarcodeCache.Entry entry) {
+        long ttl = entry.isNotFound() ? notFoundTtlMs : cacheTtlMs;
+        return System.currentTimeMillis() - entry.savedAt < ttl;
+    }
+
+    /**
+     * Open Food Facts API 조회 후 캐시에 저장
+     * 요청이 실패하면 만료된 캐시라도 있으면 그 값으로 응답 (오프라인 재스캔)
+     */
+    private Call<OpenFoodFactsApi.OpenFoodFactsResponse> fetchBarcode(String barcode, BarcodeCache.Entry stale,
+                                                                      FoodCallback callback) {
+        long bytesBefore = responseBytes.get();
+        long parseNanosBefore = responseAdapter.getTotalParseNanos();
+        Call<OpenFoodFactsApi.OpenFoodFactsResponse> request = openFoodFactsApi.getProductByBarcode(barcode);
+        request.enqueue(new Callback<OpenFoodFactsApi.OpenFoodFactsResponse>() {
             @Override
             public void onResponse(Call<OpenFoodFactsApi.OpenFoodFactsResponse> call,
                                    Response<OpenFoodFactsApi.OpenFoodFactsResponse> response) {
+                // 동시 요청이 있으면 합쳐서 보이지만 스캔은 보통 한 번에 하나
+                Log.d(TAG, "바코드 응답 " + (responseBytes.get() - bytesBefore) + "B, 파싱 "
+                        + (responseAdapter.getTotalParseNanos() - parseNanosBefore) / 1000 + "us");
                 if (response.isSuccessful() && response.body() != null) {
                     OpenFoodFactsApi.OpenFoodFactsResponse data = response.body();
 
                     if (data.status == 1 && data.product != null) {
                         NutritionData nutrition = convertFromOpenFoodFacts(data.product, barcode);
+                        cache.put(barcode, nutrition);
                         callback.onSuccess(nutrition);
                     } else {
-                        callback.onError("제품을 찾을 수 없습니다");
+                        cache.put(barcode, null);
+                        callback.onError(NOT_FOUND_MESSAGE);
                     }
-                } else {
+                } else if (!deliverStale(stale, callback)) {
                     callback.onError("API 응답 오류: " + response.code());
                 }
             }
 
             @Override
             public void onFailure(Call<OpenFoodFactsApi.OpenFoodFactsResponse> call, Throwable t) {
-                callback.onError("네트워크 오류: " + t.getMessage());
+                if (call.isCanceled()) {
+                    callback.onError("요청 취소됨");
+                } else if (!deliverStale(stale, callback)) {
+                    callback.onError("네트워크 오류: " + t.getMessage());
+                }
             }
         });
+        return request;
+    }
+
+    private boolean deliverStale(BarcodeCache.Entry stale, FoodCallback callback) {
+        if (stale == null || stale.isNotFound()) return false;
+        staleServedCount.incrementAndGet();
+        callback.onSuccess(BarcodeCache.copyOf(stale.data));
+        return true;
     }
 
     /**
@@ -90,6 +481,8 @@ public class FoodRepository {
      */
     private NutritionData convertFromOpenFoodFacts(OpenFoodFactsApi.Product product, String barcode) {
         OpenFoodFactsApi.Nutriments n = product.nutriments;
+        // 영양 정보 없는 제품은 신뢰도를 낮춰 NutritionResolver 가 다른 소스를 기다리게 함
+        float confidence = n != null ? 0.9f : 0.3f;
 
         // 음식명 결정 (한국어 우선)
         String foodName = product.product_name_ko;
@@ -114,7 +507,7 @@ public class FoodRepository {
                 .fiber(n != null ? n.fiber_100g : 0)
                 .sodium(n != null ? n.getSodiumMg() : 0)
                 .source("openfoodfacts")
-                .confidence(0.9f)
+                .confidence(confidence)
                 .build();
     }
 }
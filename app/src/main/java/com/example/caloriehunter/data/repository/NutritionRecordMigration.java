@@ -0,0 +1,162 @@
+package com.example.caloriehunter.data.repository;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.Query;
+import com.google.firebase.database.ServerValue;
+import com.google.firebase.database.ValueEventListener;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 영양 기록 저장 구조 이전
+ * users/{uid}/nutritionRecords/{id} → users/{uid}/nutritionRecords/{yyyy-MM-dd}/{id}
+ *
+ * 기존 기록을 CHUNK_SIZE 개씩 옮기며, 묶음 이동(새 경로 쓰기 + 옛 경로 삭제)과 체크포인트를
+ * 한 번의 다중 경로 업데이트로 기록하므로 중간에 앱이 종료돼도 다음 실행 때 이어서 진행
+ *
+ * 날짜 버킷 노드에는 date 자식이 없어 orderByChild("date") 에서 맨 앞(null)으로 정렬되므로
+ * 문자열 커서 이후 조회에는 옮기지 않은 기록만 걸림
+ * (기존 조회와 같이 nutritionRecords 의 ".indexOn": "date" 규칙 필요)
+ */
+class NutritionRecordMigration {
+
+    private static final String TAG = "NutritionMigration";
+
+    static final String CHECKPOINT_PATH = "migrations/nutritionByDate";
+    private static final int CHUNK_SIZE = 100;
+    private static final long CHUNK_INTERVAL_MS = 300;   // 묶음 사이 간격 (다른 요청에 대역폭 양보)
+    private static final long RETRY_DELAY_MS = 30_000;
+
+    private static final Pattern DATE_KEY = Pattern.compile("\\d{4}-\\d{2}-\\d{2}");
+
+    private final DatabaseReference userRef;
+    private final Runnable onComplete;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    private boolean cancelled = false;
+
+    NutritionRecordMigration(DatabaseReference userRef, Runnable onComplete) {
+        this.userRef = userRef;
+        this.onComplete = onComplete;
+    }
+
+    /**
+     * 날짜 버킷 키인지 (yyyy-MM-dd)
+     */
+    static boolean isDateKey(String key) {
+        return key != null && DATE_KEY.matcher(key).matches();
+    }
+
+    /**
+     * 체크포인트를 읽고 남은 부분부터 이어서 진행
+     */
+    void start() {
+        userRef.child(CHECKPOINT_PATH).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                if (Boolean.TRUE.equals(snapshot.child("done").getValue(Boolean.class))) {
+                    onComplete.run();
+                    return;
+                }
+                Long migrated = snapshot.child("migrated").getValue(Long.class);
+                runChunk(snapshot.child("cursorDate").getValue(String.class),
+                        snapshot.child("cursorKey").getValue(String.class),
+                        migrated != null ? migrated : 0);
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Log.w(TAG, "체크포인트 조회 실패: " + error.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 진행 중단 (로그아웃/유저 전환 시). 이미 보낸 묶음은 그대로 반영되며 다음 start() 에서 이어감
+     */
+    void cancel() {
+        cancelled = true;
+        handler.removeCallbacksAndMessages(null);
+    }
+
+    private void runChunk(String cursorDate, String cursorKey, long migrated) {
+        if (cancelled) return;
+
+        Query query = userRef.child("nutritionRecords").orderByChild("date");
+        query = cursorDate != null && cursorKey != null
+                ? query.startAfter(cursorDate, cursorKey)
+                : query.startAt("");
+
+        query.limitToFirst(CHUNK_SIZE).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                if (cancelled) return;
+                moveChunk(snapshot, cursorDate, cursorKey, migrated);
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Log.w(TAG, "기록 조회 실패: " + error.getMessage());
+                handler.postDelayed(() -> runChunk(cursorDate, cursorKey, migrated), RETRY_DELAY_MS);
+            }
+        });
+    }
+
+    private void moveChunk(DataSnapshot snapshot, String cursorDate, String cursorKey, long migrated) {
+        Map<String, Object> updates = new HashMap<>();
+        String lastDate = cursorDate;
+        String lastKey = cursorKey;
+        int moved = 0;
+
+        for (DataSnapshot child : snapshot.getChildren()) {
+            String key = child.getKey();
+            String date = child.child("date").getValue(String.class);
+            lastDate = date;
+            lastKey = key;
+            // 날짜 형식이 아니면 버킷을 만들 수 없으므로 그대로 두고 커서만 넘김
+            if (isDateKey(key) || !isDateKey(date)) continue;
+
+            updates.put("nutritionRecords/" + date + "/" + key, child.getValue());
+            updates.put("nutritionRecords/" + key, null);
+            moved++;
+        }
+
+        boolean done = snapshot.getChildrenCount() < CHUNK_SIZE;
+        long total = migrated + moved;
+
+        Map<String, Object> checkpoint = new HashMap<>();
+        checkpoint.put("cursorDate", lastDate);
+        checkpoint.put("cursorKey", lastKey);
+        checkpoint.put("migrated", total);
+        checkpoint.put("done", done);
+        checkpoint.put("updatedAt", ServerValue.TIMESTAMP);
+        updates.put(CHECKPOINT_PATH, checkpoint);
+
+        String nextDate = lastDate;
+        String nextKey = lastKey;
+        userRef.updateChildren(updates)
+                .addOnSuccessListener(aVoid -> {
+                    if (done) {
+                        Log.d(TAG, "영양 기록 이전 완료: " + total + "건");
+                        onComplete.run();
+                    } else {
+                        handler.postDelayed(() -> runChunk(nextDate, nextKey, total), CHUNK_INTERVAL_MS);
+                    }
+                })
+                .addOnFailureListener(e -> {
+                    // 묶음 전체가 반영되지 않았으므로 같은 커서에서 다시 시도
+                    Log.w(TAG, "기록 이전 실패: " + e.getMessage());
+                    handler.postDelayed(() -> runChunk(cursorDate, cursorKey, migrated), RETRY_DELAY_MS);
+                });
+    }
+}
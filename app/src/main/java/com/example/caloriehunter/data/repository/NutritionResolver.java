@@ -0,0 +1,291 @@
+package com.example.caloriehunter.data.repository;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.example.caloriehunter.data.model.NutritionData;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 여러 영양 정보 소스를 헤지(hedge)해서 조회 (예: 로컬 캐시 → Open Food Facts → Gemini)
+ *
+ * - 소스마다 시작 지연(hedgeDelayMs)과 기한(deadlineMs): 앞 소스가 지연 시간 안에 답하면 뒤 소스는 시작하지 않음
+ * - 실행 중인 소스가 모두 실패하면 다음 소스를 지연 없이 바로 시작 (최악 지연 = 합이 아니라 기한 중 최대 수준)
+ * - 신뢰도가 minConfidence 이상인 첫 결과를 사용하고 나머지 소스는 취소
+ * - 모두 기준 미달이면 그중 신뢰도가 가장 높은 결과, 결과가 하나도 없으면 실패
+ * - 어느 소스가 이겼는지, 소스별 걸린 시간을 Result 와 로그에 기록
+ */
+public class NutritionResolver {
+
+    private static final String TAG = "NutritionResolver";
+    public static final float DEFAULT_MIN_CONFIDENCE = 0.5f;
+
+    // 시작 지연/기한 타이머 (모든 인스턴스 공용)
+    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "nutrition-resolver");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 영양 정보 소스 (바코드 → Future, 취소되면 진행 중인 요청도 취소해야 함)
+     */
+    public interface Source {
+        ListenableFuture<NutritionData> lookup(String barcode);
+    }
+
+    /**
+     * 조회 결과
+     */
+    public static final class Result {
+        private final NutritionData data;
+        private final String winner;
+        private final long elapsedMs;
+        private final Map<String, Long> timings;
+
+        Result(NutritionData data, String winner, long elapsedMs, Map<String, Long> timings) {
+            this.data = data;
+            this.winner = winner;
+            this.elapsedMs = elapsedMs;
+            this.timings = Collections.unmodifiableMap(timings);
+        }
+
+        public NutritionData getData() { return data; }
+        public String getWinner() { return winner; }
+        public long getElapsedMs() { return elapsedMs; }
+
+        /**
+         * 끝난 소스별 걸린 시간 (시작부터 응답/실패까지 ms, 취소되거나 시작 안 한 소스는 없음)
+         */
+        public Map<String, Long> getTimings() { return timings; }
+    }
+
+    /**
+     * 모든 소스가 실패
+     */
+    public static class ResolveException extends RuntimeException {
+        public ResolveException(String message) {
+            super(message);
+        }
+    }
+
+    private static final class SourceSpec {
+        final String name;
+        final long hedgeDelayMs;
+        final long deadlineMs;
+        final Source source;
+
+        SourceSpec(String name, long hedgeDelayMs, long deadlineMs, Source source) {
+            this.name = name;
+            this.hedgeDelayMs = hedgeDelayMs;
+            this.deadlineMs = deadlineMs;
+            this.source = source;
+        }
+    }
+
+    private final List<SourceSpec> sources;
+    private final float minConfidence;
+
+    // 소스별 이긴 횟수
+    private final Map<String, AtomicLong> winCounts = new ConcurrentHashMap<>();
+
+    private NutritionResolver(Builder builder) {
+        this.sources = new ArrayList<>(builder.sources);
+        this.sources.sort((a, b) -> Long.compare(a.hedgeDelayMs, b.hedgeDelayMs));
+        this.minConfidence = builder.minConfidence;
+    }
+
+    public long getWinCount(String source) {
+        AtomicLong count = winCounts.get(source);
+        return count != null ? count.get() : 0;
+    }
+
+    /**
+     * 바코드 조회 시작 (결과 Future 를 취소하면 진행 중/예정된 소스 모두 취소)
+     */
+    public ListenableFuture<Result> resolve(String barcode) {
+        Attempt attempt = new Attempt(barcode);
+        attempt.begin();
+        return attempt.result;
+    }
+
+    /**
+     * 조회 한 번의 상태 (모든 변경은 this 로 동기화)
+     */
+    private final class Attempt {
+        final String barcode;
+        final SettableFuture<Result> result = SettableFuture.create();
+        final long startedAt = SystemClock.elapsedRealtime();
+
+        final long[] sourceStartedAt = new long[sources.size()];
+        final boolean[] started = new boolean[sources.size()];
+        final ListenableFuture<?>[] running = new ListenableFuture<?>[sources.size()];
+        final ScheduledFuture<?>[] scheduled = new ScheduledFuture<?>[sources.size()];
+        final Map<String, Long> timings = new LinkedHashMap<>();
+        final List<String> errors = new ArrayList<>();
+        int inFlight;
+
+        // 기준 미달이지만 가장 나은 결과
+        @Nullable NutritionData best;
+        @Nullable String bestSource;
+
+        Attempt(String barcode) {
+            this.barcode = barcode;
+        }
+
+        synchronized void begin() {
+            result.addListener(() -> {
+                if (result.isCancelled()) cancelAll();
+            }, MoreExecutors.directExecutor());
+
+            for (int i = 0; i < sources.size(); i++) {
+                if (started[i] || result.isDone()) continue;   // 앞 소스가 바로 끝나서 이미 시작됨
+                int index = i;
+                long delay = sources.get(i).hedgeDelayMs;
+                if (delay <= 0) {
+                    start(index);
+                } else {
+                    scheduled[index] = scheduler.schedule(() -> start(index), delay, TimeUnit.MILLISECONDS);
+                }
+            }
+            if (sources.isEmpty()) finish();
+        }
+
+        synchronized void start(int index) {
+            if (result.isDone() || started[index]) return;
+            started[index] = true;
+            if (scheduled[index] != null) scheduled[index].cancel(false);
+
+            SourceSpec spec = sources.get(index);
+            sourceStartedAt[index] = SystemClock.elapsedRealtime();
+            inFlight++;
+
+            ListenableFuture<NutritionData> lookup;
+            try {
+                lookup = spec.source.lookup(barcode);
+            } catch (RuntimeException e) {
+                lookup = Futures.immediateFailedFuture(e);
+            }
+            ListenableFuture<NutritionData> bounded =
+                    Futures.withTimeout(lookup, spec.deadlineMs, TimeUnit.MILLISECONDS, scheduler);
+            running[index] = bounded;
+
+            Futures.addCallback(bounded, new FutureCallback<NutritionData>() {
+                @Override
+                public void onSuccess(NutritionData data) {
+                    onFinished(index, data, null);
+                }
+
+                @Override
+                public void onFailure(Throwable t) {
+                    onFinished(index, null, t);
+                }
+            }, MoreExecutors.directExecutor());
+        }
+
+        synchronized void onFinished(int index, @Nullable NutritionData data, @Nullable Throwable error) {
+            if (result.isDone()) return;
+            SourceSpec spec = sources.get(index);
+            timings.put(spec.name, SystemClock.elapsedRealtime() - sourceStartedAt[index]);
+            inFlight--;
+
+            if (data != null && data.getConfidence() >= minConfidence) {
+                win(spec.name, data);
+                return;
+            }
+            if (data != null) {
+                if (best == null || data.getConfidence() > best.getConfidence()) {
+                    best = data;
+                    bestSource = spec.name;
+                }
+                errors.add(spec.name + ": 신뢰도 낮음");
+            } else {
+                errors.add(spec.name + ": " + describe(error));
+            }
+
+            // 실행 중인 소스가 없으면 다음 소스를 지연 없이 시작
+            if (inFlight == 0) {
+                for (int i = 0; i < sources.size(); i++) {
+                    if (!started[i]) {
+                        start(i);
+                        return;
+                    }
+                }
+                finish();
+            }
+        }
+
+        private void win(String source, NutritionData data) {
+            long elapsed = SystemClock.elapsedRealtime() - startedAt;
+            winCounts.computeIfAbsent(source, key -> new AtomicLong()).incrementAndGet();
+            Log.d(TAG, barcode + " → " + source + " " + elapsed + "ms " + timings);
+            result.set(new Result(data, source, elapsed, new LinkedHashMap<>(timings)));
+            cancelAll();
+        }
+
+        private void finish() {
+            if (best != null) {
+                win(bestSource, best);
+                return;
+            }
+            Log.d(TAG, barcode + " 조회 실패 " + timings + " " + errors);
+            result.setException(new ResolveException(errors.isEmpty() ? "조회할 소스가 없습니다" : String.join(", ", errors)));
+        }
+
+        synchronized void cancelAll() {
+            for (int i = 0; i < sources.size(); i++) {
+                if (scheduled[i] != null) scheduled[i].cancel(false);
+                if (running[i] != null) running[i].cancel(true);
+            }
+        }
+    }
+
+    private static String describe(@Nullable Throwable error) {
+        if (error instanceof TimeoutException) return "시간 초과";
+        if (error == null || error.getMessage() == null) return "알 수 없는 오류";
+        return error.getMessage();
+    }
+
+    public static class Builder {
+        private final List<SourceSpec> sources = new ArrayList<>();
+        private float minConfidence = DEFAULT_MIN_CONFIDENCE;
+
+        /**
+         * 소스 추가
+         * @param hedgeDelayMs 조회 시작 후 이 시간 안에 결과가 없으면 시작 (앞 소스가 모두 실패하면 바로 시작)
+         * @param deadlineMs 시작부터 이 시간 안에 응답이 없으면 실패로 보고 취소
+         */
+        public Builder source(String name, long hedgeDelayMs, long deadlineMs, Source source) {
+            sources.add(new SourceSpec(name, hedgeDelayMs, deadlineMs, source));
+            return this;
+        }
+
+        public Builder minConfidence(float minConfidence) {
+            this.minConfidence = minConfidence;
+            return this;
+        }
+
+        public NutritionResolver build() {
+            return new NutritionResolver(this);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.caloriehunter.data.repository;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 오프라인 제품 DB (읽기 전용, 메모리 매핑)
+ * tools/productdb 의 ProductDbBuilder 가 Open Food Facts 덤프(CSV/JSONL)로 만든 파일을 사용
+ *
+ * 파일 형식 (v1, big-endian)
+ * - 헤더 32바이트: magic "CHPD", version, recordCount, recordSize, namesOffset(long), builtAt(long)
+ * - 레코드 recordSize(48)바이트 × recordCount, GTIN 오름차순:
+ *   gtin(long) + 100g당 칼로리/단백질/지방/포화지방/트랜스지방/탄수화물/당류/식이섬유(g)/나트륨(mg) float 9개
+ *   + 이름 위치(int, namesOffset 기준)
+ * - 이름 테이블: 길이(u16) + UTF-8 바이트
+ *
+ * 조회는 매핑된 버퍼에서 GTIN 이진 탐색, 값은 레코드 번호로 바로 읽음 (이름 외에는 객체 생성 없음)
+ * NutritionData 로 만드는 것은 쓰는 쪽(FoodRepository)에서 찾았을 때만
+ */
+public final class OfflineProductDb {
+
+    static final int MAGIC = 0x43485044;   // "CHPD"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int RECORD_SIZE = 48;
+
+    private static final int OFFSET_CALORIES = 8;
+    private static final int OFFSET_PROTEIN = 12;
+    private static final int OFFSET_FAT = 16;
+    private static final int OFFSET_SATURATED_FAT = 20;
+    private static final int OFFSET_TRANS_FAT = 24;
+    private static final int OFFSET_CARBOHYDRATES = 28;
+    private static final int OFFSET_SUGAR = 32;
+    private static final int OFFSET_FIBER = 36;
+    private static final int OFFSET_SODIUM = 40;
+    private static final int OFFSET_NAME = 44;
+
+    private final ByteBuffer buffer;
+    private final int recordCount;
+    private final long namesOffset;
+    private final long builtAt;
+
+    private OfflineProductDb(ByteBuffer buffer) throws IOException {
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("오프라인 제품 DB 형식이 아님");
+        }
+        if (buffer.getInt(4) != VERSION || buffer.getInt(12) != RECORD_SIZE) {
+            throw new IOException("지원하지 않는 오프라인 제품 DB 버전: " + buffer.getInt(4));
+        }
+        this.buffer = buffer;
+        this.recordCount = buffer.getInt(8);
+        this.namesOffset = buffer.getLong(16);
+        this.builtAt = buffer.getLong(24);
+        if (HEADER_SIZE + (long) recordCount * RECORD_SIZE > namesOffset || namesOffset > buffer.capacity()) {
+            throw new IOException("오프라인 제품 DB 가 손상됨");
+        }
+    }
+
+    /**
+     * 파일 일부(offset 부터 length 바이트)를 읽기 전용으로 매핑
+     * (압축하지 않은 APK 에셋이면 AssetFileDescriptor 의 시작 위치/길이를 그대로 사용)
+     */
+    public static OfflineProductDb map(FileChannel channel, long offset, long length) throws IOException {
+        return new OfflineProductDb(channel.map(FileChannel.MapMode.READ_ONLY, offset, length));
+    }
+
+    /**
+     * 이미 메모리에 있는 버퍼로 열기 (테스트용)
+     */
+    static OfflineProductDb wrap(ByteBuffer buffer) throws IOException {
+        return new OfflineProductDb(buffer);
+    }
+
+    public int size() {
+        return recordCount;
+    }
+
+    public long getBuiltAt() {
+        return builtAt;
+    }
+
+    /**
+     * 바코드 문자열 → GTIN 숫자 (숫자 1~14자리가 아니면 -1)
+     * 앞자리 0 은 값에 영향 없으므로 UPC-A(12자리)와 같은 EAN-13 이 같은 키가 됨
+     */
+    public static long parseGtin(CharSequence barcode) {
+        int length = barcode.length();
+        if (length == 0 || length > 14) return -1;
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            char c = barcode.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * GTIN 레코드 번호 (없으면 -1)
+     */
+    public int indexOf(long gtin) {
+        int low = 0;
+        int high = recordCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midGtin = buffer.getLong(recordOffset(mid));
+            if (midGtin < gtin) {
+                low = mid + 1;
+            } else if (midGtin > gtin) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 바코드 레코드 번호 (바코드 형식이 아니거나 없으면 -1)
+     */
+    public int indexOf(CharSequence barcode) {
+        long gtin = parseGtin(barcode);
+        return gtin < 0 ? -1 : indexOf(gtin);
+    }
+
+    // ========== 레코드 값 (index 는 indexOf 결과, 100g 기준) ==========
+
+    public long getGtin(int index) { return buffer.getLong(recordOffset(index)); }
+    public float getCalories(int index) { return getFloat(index, OFFSET_CALORIES); }
+    public float getProtein(int index) { return getFloat(index, OFFSET_PROTEIN); }
+    public float getFat(int index) { return getFloat(index, OFFSET_FAT); }
+    public float getSaturatedFat(int index) { return getFloat(index, OFFSET_SATURATED_FAT); }
+    public float getTransFat(int index) { return getFloat(index, OFFSET_TRANS_FAT); }
+    public float getCarbohydrates(int index) { return getFloat(index, OFFSET_CARBOHYDRATES); }
+    public float getSugar(int index) { return getFloat(index, OFFSET_SUGAR); }
+    public float getFiber(int index) { return getFloat(index, OFFSET_FIBER); }
+    public float getSodium(int index) { return getFloat(index, OFFSET_SODIUM); }  // mg
+
+    /**
+     * 제품 이름 (문자열을 새로 만듦)
+     */
+    public String getName(int index) {
+        return readName(buffer.getInt(recordOffset(index) + OFFSET_NAME));
+    }
+
+    private float getFloat(int index, int field) {
+        return buffer.getFloat(recordOffset(index) + field);
+    }
+
+    private static int recordOffset(int index) {
+        return HEADER_SIZE + index * RECORD_SIZE;
+    }
+
+    private String readName(int nameOffset) {
+        int position = (int) (namesOffset + nameOffset);
+        int length = buffer.getShort(position) & 0xFFFF;
+        byte[] bytes = new byte[length];
+        ByteBuffer view = buffer.duplicate();
+        view.position(position + 2);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
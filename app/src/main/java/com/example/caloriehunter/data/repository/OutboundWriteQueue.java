@@ -0,0 +1,567 @@
+package com.example.caloriehunter.data.repository;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.example.caloriehunter.BuildConfig;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * 외부 쓰기 대기열 (디스크 저장 + 재시도)
+ * 결과를 화면에서 기다릴 필요 없는 쓰기(전투 보상, 전투 저널, 출석 포션 등)를 모아두었다가
+ * 한 번의 다중 경로 업데이트로 반영하고, 실패하면 지수 백오프 + 지터로 다시 시도
+ *
+ * 같은 경로에 대한 쓰기는 합쳐짐:
+ * - 값 쓰기는 마지막 값만 남음
+ * - ServerValue.increment 는 증가량을 더함
+ * - 하위 경로 쓰기는 대기 중인 상위 경로 값에 병합, 상위 경로 쓰기는 대기 중인 하위 경로를 대체
+ * - 삭제 대기 중인 경로 아래 쓰기는 버림 (지워질 노드를 일부만 되살리지 않도록)
+ *
+ * 묶음이 SPLIT_AFTER_ATTEMPTS 번 연속 실패하면 경로별로 나눠 보내고,
+ * 경로별로 MAX_ATTEMPTS 번 실패한 쓰기만 버림 (한 경로의 거부 때문에 나머지를 잃지 않도록)
+ */
+public class OutboundWriteQueue {
+
+    private static final String TAG = "OutboundWriteQueue";
+    private static final String PREFS_NAME = "outbound_writes";
+    private static final String KEY_WRITES = "writes";
+    private static final String KEY_TIMES = "times";
+
+    // 재시도 간격: 1초부터 2배씩, 최대 5분 (그 안에서 무작위)
+    private static final long BASE_BACKOFF_MS = 1_000;
+    private static final long MAX_BACKOFF_MS = 5 * 60 * 1_000;
+    // 묶음이 이 횟수만큼 연속 실패하면 경로별로 나눠 보냄
+    static final int SPLIT_AFTER_ATTEMPTS = 2;
+    // 경로별로 이 횟수만큼 연속 실패하면 서버가 거부하는 쓰기로 보고 그 경로만 버림 (권한/검증 오류)
+    static final int MAX_ATTEMPTS = 10;
+
+    private static OutboundWriteQueue instance;
+
+    private final SharedPreferences prefs;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Random random = new Random();
+
+    // 루트 기준 경로 → 값 (null 이면 삭제), 경로 → 처음 쌓인 시각
+    private Map<String, Object> pending = new LinkedHashMap<>();
+    private Map<String, Long> enqueuedAt = new HashMap<>();
+
+    // 반영 중인 묶음 (실패하면 pending 앞에 다시 합침)
+    private Map<String, Object> inFlight;
+    private Map<String, Long> inFlightEnqueuedAt;
+
+    // 반영 결과를 기다리는 콜백과 그 쓰기의 경로 (디스크에는 저장하지 않음)
+    private List<Waiter> waiting = new ArrayList<>();
+    private List<Waiter> inFlightWaiting;
+
+    private int attempt = 0;  // 연속 실패 횟수 (SPLIT_AFTER_ATTEMPTS 이상이면 경로별로 보냄)
+    private final Map<String, Integer> pathFailures = new HashMap<>();  // 경로별로 보낸 뒤 경로 → 연속 실패 횟수
+    private boolean flushScheduled = false;
+
+    public static synchronized OutboundWriteQueue getInstance(Context context) {
+        if (instance == null) {
+            instance = new OutboundWriteQueue(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private OutboundWriteQueue(Context context) {
+        this.prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        restore();
+        if (!pending.isEmpty()) {
+            scheduleFlush(0);
+        }
+    }
+
+    // ========== 기록 ==========
+
+    /**
+     * 쓰기 추가 (루트 기준 경로 → 값)
+     */
+    public void enqueue(Map<String, Object> updates) {
+        enqueue(updates, null);
+    }
+
+    /**
+     * 쓰기 추가, 이 쓰기가 들어간 묶음이 반영되면 callback 성공 (재시도 끝에 버려지면 실패)
+     */
+    public synchronized void enqueue(Map<String, Object> updates, @Nullable FirebaseRepository.SimpleCallback callback) {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, Object> entry : updates.entrySet()) {
+            coalesce(pending, enqueuedAt, entry.getKey(), entry.getValue(), now);
+        }
+        if (callback != null) waiting.add(new Waiter(callback, new HashSet<>(updates.keySet())));
+        persist();
+        if (inFlight == null && attempt == 0) {
+            scheduleFlush(0);
+        }
+    }
+
+    /**
+     * 대기 중인 쓰기 수 (반영 중인 것 포함)
+     */
+    public synchronized int getDepth() {
+        return pending.size() + (inFlight != null ? inFlight.size() : 0);
+    }
+
+    /**
+     * 가장 오래 기다린 쓰기의 대기 시간 (ms, 비어 있으면 0)
+     */
+    public synchronized long getOldestAgeMs() {
+        long oldest = Long.MAX_VALUE;
+        for (long time : enqueuedAt.values()) oldest = Math.min(oldest, time);
+        if (inFlightEnqueuedAt != null) {
+            for (long time : inFlightEnqueuedAt.values()) oldest = Math.min(oldest, time);
+        }
+        return oldest == Long.MAX_VALUE ? 0 : System.currentTimeMillis() - oldest;
+    }
+
+    /**
+     * 현재 연속 실패 횟수
+     */
+    public synchronized int getRetryAttempt() {
+        return attempt;
+    }
+
+    // ========== 반영 ==========
+
+    private void scheduleFlush(long delayMs) {
+        if (flushScheduled) return;
+        flushScheduled = true;
+        handler.postDelayed(this::flush, delayMs);
+    }
+
+    private synchronized void flush() {
+        flushScheduled = false;
+        if (inFlight != null || pending.isEmpty()) return;
+
+        inFlight = pending;
+        inFlightEnqueuedAt = enqueuedAt;
+        inFlightWaiting = waiting;
+        pending = new LinkedHashMap<>();
+        enqueuedAt = new HashMap<>();
+        waiting = new ArrayList<>();
+        persist();
+
+        if (attempt >= SPLIT_AFTER_ATTEMPTS) {
+            flushEachPath();
+        } else {
+            flushBatch();
+        }
+    }
+
+    /**
+     * 반영 중인 묶음을 한 번의 다중 경로 업데이트로 기록 (실패하면 묶음째 다시 대기열로)
+     */
+    private void flushBatch() {
+        FirebaseRepository.getInstance().applyUpdates(new HashMap<>(inFlight), new FirebaseRepository.SimpleCallback() {
+            @Override
+            public void onSuccess() {
+                List<Waiter> done;
+                synchronized (OutboundWriteQueue.this) {
+                    done = inFlightWaiting;
+                    pathFailures.keySet().removeAll(inFlight.keySet());
+                    inFlight = null;
+                    inFlightEnqueuedAt = null;
+                    inFlightWaiting = null;
+                    attempt = 0;
+                    persist();
+                    if (!pending.isEmpty()) scheduleFlush(0);
+                }
+                for (Waiter waiter : done) waiter.callback.onSuccess();
+            }
+
+            @Override
+            public void onError(String message) {
+                synchronized (OutboundWriteQueue.this) {
+                    attempt++;
+                    requeueInFlight(message);
+                }
+            }
+        });
+    }
+
+    /**
+     * 반영 중인 묶음을 경로마다 따로 기록하고, 모두 끝나면 경로별 결과로 정리
+     */
+    private void flushEachPath() {
+        Map<String, Object> sent = inFlight;
+        Map<String, String> failed = new HashMap<>();
+        int[] remaining = {sent.size()};
+        for (Map.Entry<String, Object> entry : sent.entrySet()) {
+            String path = entry.getKey();
+            Map<String, Object> single = new HashMap<>(2);
+            single.put(path, entry.getValue());
+            FirebaseRepository.getInstance().applyUpdates(single, new FirebaseRepository.SimpleCallback() {
+                @Override
+                public void onSuccess() {
+                    finishPath(null);
+                }
+
+                @Override
+                public void onError(String message) {
+                    finishPath(message != null ? message : "알 수 없는 오류");
+                }
+
+                private void finishPath(@Nullable String message) {
+                    synchronized (OutboundWriteQueue.this) {
+                        if (message != null) failed.put(path, message);
+                        if (--remaining[0] == 0) settleEachPath(failed);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * 경로별 기록 결과 반영
+     * 성공한 경로는 끝, 실패한 경로는 다시 대기열로 (MAX_ATTEMPTS 에 닿은 경로만 버림)
+     * 콜백은 자기 쓰기가 버려졌으면 실패, 다시 대기하면 계속 대기, 아니면 성공
+     */
+    private void settleEachPath(Map<String, String> failed) {
+        Map<String, Object> retry = new LinkedHashMap<>();
+        Map<String, Long> retryTimes = new HashMap<>();
+        Map<String, String> dropped = new HashMap<>();
+        settlePaths(inFlight, inFlightEnqueuedAt, failed, pathFailures, retry, retryTimes, dropped);
+
+        List<Waiter> succeeded = new ArrayList<>();
+        List<Waiter> rejected = new ArrayList<>();
+        List<Waiter> stillWaiting = new ArrayList<>();
+        for (Waiter waiter : inFlightWaiting) {
+            if (overlaps(waiter.paths, dropped.keySet())) {
+                rejected.add(waiter);
+            } else if (overlaps(waiter.paths, retry.keySet())) {
+                stillWaiting.add(waiter);
+            } else {
+                succeeded.add(waiter);
+            }
+        }
+        String dropMessage = dropped.isEmpty() ? null : dropped.values().iterator().next();
+        if (dropMessage != null) {
+            Log.e(TAG, "쓰기 " + dropped.keySet() + " " + MAX_ATTEMPTS + "회 실패, 버림: " + dropMessage);
+        }
+
+        inFlight = retry;
+        inFlightEnqueuedAt = retryTimes;
+        inFlightWaiting = stillWaiting;
+        if (retry.isEmpty()) {
+            // 남은 실패가 없으면 다시 묶어서 보냄
+            inFlight = null;
+            inFlightEnqueuedAt = null;
+            inFlightWaiting = null;
+            attempt = 0;
+            persist();
+            if (!pending.isEmpty()) scheduleFlush(0);
+        } else {
+            attempt++;
+            requeueInFlight(failed.get(retry.keySet().iterator().next()));
+        }
+
+        // 콜백은 잠금 밖에서 (콜백이 다시 enqueue 할 수 있음)
+        handler.post(() -> {
+            for (Waiter waiter : succeeded) waiter.callback.onSuccess();
+            for (Waiter waiter : rejected) waiter.callback.onError(dropMessage);
+        });
+    }
+
+    /**
+     * 경로별로 보낸 쓰기의 결과를 나눔
+     * 성공한 경로는 실패 횟수를 지우고, 실패한 경로는 횟수를 늘려 MAX_ATTEMPTS 에 닿으면 dropped(경로 → 메시지),
+     * 아니면 retry 에 남김
+     */
+    static void settlePaths(Map<String, Object> sent, Map<String, Long> sentTimes, Map<String, String> failed,
+                            Map<String, Integer> failures, Map<String, Object> retry,
+                            Map<String, Long> retryTimes, Map<String, String> dropped) {
+        for (Map.Entry<String, Object> entry : sent.entrySet()) {
+            String path = entry.getKey();
+            String message = failed.get(path);
+            if (message == null) {
+                failures.remove(path);
+                continue;
+            }
+            int count = failures.getOrDefault(path, 0) + 1;
+            if (count >= MAX_ATTEMPTS) {
+                failures.remove(path);
+                dropped.put(path, message);
+            } else {
+                failures.put(path, count);
+                retry.put(path, entry.getValue());
+                Long time = sentTimes.get(path);
+                if (time != null) retryTimes.put(path, time);
+            }
+        }
+    }
+
+    /**
+     * 두 경로 집합에 같은 경로나 상위/하위 관계인 경로가 있는지 (병합으로 경로가 합쳐져도 찾도록)
+     */
+    static boolean overlaps(Set<String> paths, Set<String> others) {
+        for (String path : paths) {
+            for (String other : others) {
+                if (path.equals(other) || path.startsWith(other + "/") || other.startsWith(path + "/")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 실패한 묶음을 pending 앞에 다시 합치고 백오프 후 재시도 예약
+     */
+    private void requeueInFlight(String message) {
+        // 실패한 묶음을 앞에 두고 그 사이 쌓인 쓰기를 다시 합침
+        Map<String, Object> merged = inFlight;
+        Map<String, Long> mergedTimes = inFlightEnqueuedAt;
+        for (Map.Entry<String, Object> entry : pending.entrySet()) {
+            Long time = enqueuedAt.get(entry.getKey());
+            coalesce(merged, mergedTimes, entry.getKey(), entry.getValue(),
+                    time != null ? time : System.currentTimeMillis());
+        }
+        inFlightWaiting.addAll(waiting);
+        pending = merged;
+        enqueuedAt = mergedTimes;
+        waiting = inFlightWaiting;
+        inFlight = null;
+        inFlightEnqueuedAt = null;
+        inFlightWaiting = null;
+        pathFailures.keySet().retainAll(pending.keySet());
+        persist();
+
+        long delay = nextBackoffMs();
+        Log.w(TAG, "쓰기 반영 실패 (" + attempt + "회), " + delay + "ms 후 재시도: " + message);
+        scheduleFlush(delay);
+    }
+
+    /**
+     * 지수 백오프 + 전체 지터 (0 ~ min(최대, 기본 * 2^시도))
+     */
+    private long nextBackoffMs() {
+        long ceiling = Math.min(MAX_BACKOFF_MS, BASE_BACKOFF_MS << Math.min(attempt, 20));
+        return (long) (random.nextDouble() * ceiling);
+    }
+
+    // ========== 병합 ==========
+
+    /**
+     * 경로 하나를 대기열에 합침
+     */
+    static void coalesce(Map<String, Object> writes, Map<String, Long> times,
+                         String path, Object value, long now) {
+        // 대기 중인 상위 경로가 있으면 그 값 안에 반영
+        for (Map.Entry<String, Object> entry : writes.entrySet()) {
+            String ancestor = entry.getKey();
+            if (path.startsWith(ancestor + "/")) {
+                if (entry.getValue() == null) return;  // 상위 경로 삭제 대기 중 - 삭제가 이김
+                String[] segments = path.substring(ancestor.length() + 1).split("/");
+                entry.setValue(setNested(entry.getValue(), segments, 0, value));
+                return;
+            }
+        }
+
+        // 이 경로 아래 대기 중인 쓰기는 대체됨
+        Long earliest = null;
+        Iterator<Map.Entry<String, Object>> iterator = writes.entrySet().iterator();
+        while (iterator.hasNext()) {
+            String existing = iterator.next().getKey();
+            if (existing.startsWith(path + "/")) {
+                iterator.remove();
+                Long time = times.remove(existing);
+                if (time != null && (earliest == null || time < earliest)) earliest = time;
+            }
+        }
+
+        writes.put(path, combine(writes.get(path), writes.containsKey(path), value));
+
+        long time = earliest != null ? earliest : now;
+        Long existingTime = times.get(path);
+        times.put(path, existingTime != null ? Math.min(existingTime, time) : time);
+    }
+
+    /**
+     * 같은 경로에 대한 이전 쓰기와 새 쓰기를 하나로
+     */
+    static Object combine(Object previous, boolean hadPrevious, Object value) {
+        Number delta = incrementOf(value);
+        if (delta == null || !hadPrevious) return value;
+
+        Number previousDelta = incrementOf(previous);
+        if (previousDelta != null) return incrementValue(add(previousDelta, delta));
+        if (previous instanceof Number) return add((Number) previous, delta);
+        return delta;  // 숫자가 아닌 값/삭제 위에 증가 → 증가량 자체가 값
+    }
+
+    private static Number add(Number a, Number b) {
+        boolean integral = (a instanceof Long || a instanceof Integer) && (b instanceof Long || b instanceof Integer);
+        return integral ? (Number) (a.longValue() + b.longValue()) : (Number) (a.doubleValue() + b.doubleValue());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object setNested(Object container, String[] segments, int index, Object value) {
+        Map<String, Object> map = container instanceof Map
+                ? new HashMap<>((Map<String, Object>) container)
+                : new HashMap<>();
+        String key = segments[index];
+        if (index == segments.length - 1) {
+            map.put(key, combine(map.get(key), map.containsKey(key), value));
+        } else {
+            map.put(key, setNested(map.get(key), segments, index + 1, value));
+        }
+        return map;
+    }
+
+    /**
+     * ServerValue.increment 값이면 증가량, 아니면 null
+     * (ServerValue.increment(n) 은 {".sv": {"increment": n}} 형태의 Map)
+     */
+    private static Number incrementOf(Object value) {
+        if (!(value instanceof Map)) return null;
+        Object sv = ((Map<?, ?>) value).get(".sv");
+        if (!(sv instanceof Map)) return null;
+        Object delta = ((Map<?, ?>) sv).get("increment");
+        return delta instanceof Number ? (Number) delta : null;
+    }
+
+    private static Map<String, Object> incrementValue(Number delta) {
+        Map<String, Object> sv = new HashMap<>();
+        sv.put("increment", delta);
+        Map<String, Object> value = new HashMap<>();
+        value.put(".sv", sv);
+        return value;
+    }
+
+    // ========== 디스크 ==========
+
+    /**
+     * 반영 중인 묶음 + 대기 중인 쓰기를 합쳐 저장 (프로세스가 죽어도 다음 실행 때 이어서 반영)
+     * RTDB 디스크 캐시가 켜져 있으면 반영 중인 묶음은 Firebase 가 직접 저장/재전송하므로 제외
+     * (둘 다 다시 보내면 ServerValue.increment 가 두 번 적용됨)
+     */
+    private void persist() {
+        Map<String, Object> all = new LinkedHashMap<>();
+        Map<String, Long> allTimes = new HashMap<>();
+        if (inFlight != null && !BuildConfig.RTDB_PERSISTENCE) {
+            all.putAll(inFlight);
+            allTimes.putAll(inFlightEnqueuedAt);
+        }
+        for (Map.Entry<String, Object> entry : pending.entrySet()) {
+            Long time = enqueuedAt.get(entry.getKey());
+            coalesce(all, allTimes, entry.getKey(), entry.getValue(), time != null ? time : System.currentTimeMillis());
+        }
+
+        if (all.isEmpty()) {
+            prefs.edit().remove(KEY_WRITES).remove(KEY_TIMES).apply();
+            return;
+        }
+
+        try {
+            JSONObject writes = new JSONObject();
+            for (Map.Entry<String, Object> entry : all.entrySet()) {
+                writes.put(entry.getKey(), toJson(entry.getValue()));
+            }
+            JSONObject times = new JSONObject();
+            for (Map.Entry<String, Long> entry : allTimes.entrySet()) {
+                times.put(entry.getKey(), entry.getValue());
+            }
+            prefs.edit()
+                    .putString(KEY_WRITES, writes.toString())
+                    .putString(KEY_TIMES, times.toString())
+                    .apply();
+        } catch (JSONException e) {
+            Log.w(TAG, "쓰기 대기열 저장 실패", e);
+        }
+    }
+
+    private void restore() {
+        String savedWrites = prefs.getString(KEY_WRITES, null);
+        if (savedWrites == null) return;
+
+        try {
+            JSONObject writes = new JSONObject(savedWrites);
+            JSONObject times = new JSONObject(prefs.getString(KEY_TIMES, "{}"));
+            Iterator<String> keys = writes.keys();
+            while (keys.hasNext()) {
+                String path = keys.next();
+                pending.put(path, fromJson(writes.get(path)));
+                enqueuedAt.put(path, times.optLong(path, System.currentTimeMillis()));
+            }
+        } catch (JSONException e) {
+            Log.w(TAG, "쓰기 대기열 복구 실패", e);
+            pending.clear();
+            enqueuedAt.clear();
+            prefs.edit().remove(KEY_WRITES).remove(KEY_TIMES).apply();
+        }
+    }
+
+    static Object toJson(Object value) throws JSONException {
+        if (value == null) return JSONObject.NULL;
+        if (value instanceof Map) {
+            JSONObject json = new JSONObject();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                json.put(String.valueOf(entry.getKey()), toJson(entry.getValue()));
+            }
+            return json;
+        }
+        if (value instanceof Iterable) {
+            JSONArray json = new JSONArray();
+            for (Object element : (Iterable<?>) value) {
+                json.put(toJson(element));
+            }
+            return json;
+        }
+        return value;
+    }
+
+    static Object fromJson(Object json) throws JSONException {
+        if (json == JSONObject.NULL) return null;
+        if (json instanceof JSONObject) {
+            JSONObject object = (JSONObject) json;
+            Map<String, Object> map = new HashMap<>();
+            Iterator<String> keys = object.keys();
+            while (keys.hasNext()) {
+                String key = keys.next();
+                map.put(key, fromJson(object.get(key)));
+            }
+            return map;
+        }
+        if (json instanceof JSONArray) {
+            JSONArray array = (JSONArray) json;
+            List<Object> list = new ArrayList<>(array.length());
+            for (int i = 0; i < array.length(); i++) {
+                list.add(fromJson(array.get(i)));
+            }
+            return list;
+        }
+        return json;
+    }
+
+    /**
+     * 반영 결과를 기다리는 콜백과 그 쓰기의 경로 (루트 기준)
+     */
+    private static final class Waiter {
+        final FirebaseRepository.SimpleCallback callback;
+        final Set<String> paths;
+
+        Waiter(FirebaseRepository.SimpleCallback callback, Set<String> paths) {
+            this.callback = callback;
+            this.paths = paths;
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package com.example.caloriehunter.data.repository;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.caloriehunter.data.model.Item;
+import com.example.caloriehunter.data.model.Monster;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.MutableData;
+import com.google.firebase.database.Transaction;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * 바코드별 몬스터/아이템 템플릿 (templates/{barcode}/{monster|item}/{내용 해시})
+ * 이름/등급/스탯/원본 영양소처럼 스캔 결과로 정해지는 부분은 한 번만 저장하고
+ * 유저별 인스턴스에는 바뀌는 값(HP/상태/내구도/수량 등)과 바코드, 템플릿 해시만 저장
+ *
+ * 템플릿은 내용 해시로 구분하므로 같은 바코드라도 영양 정보가 달라 스탯이 다르면 다른 템플릿이 됨
+ * (먼저 저장된 다른 스캔의 이름/최대 HP 로 합쳐지지 않음)
+ * 인스턴스에 name 이 없고 barcode 와 templateHash 가 있으면 템플릿 형식 (그 외는 예전처럼 전체 저장된 값)
+ * 템플릿은 없을 때만 트랜잭션으로 생성, 읽은 템플릿은 해시를 다시 계산해 맞을 때만 사용
+ * 읽은/쓴 템플릿은 메모리에 보관하며, 이미 아는 템플릿은 다시 확인하지 않음
+ *
+ * 여러 유저가 공유하는 노드라 서버 규칙으로 생성만 허용해야 함 (수정/삭제 불가):
+ *   "templates": { "$barcode": { "$kind": { "$hash": {
+ *       ".read": "auth != null",
+ *       ".write": "auth != null && !data.exists() && newData.exists()" } } } }
+ */
+class TemplateCatalog {
+
+    private static final String TAG = "TemplateCatalog";
+
+    static final String PATH = "templates";
+    static final String KIND_MONSTER = "monster";
+    static final String KIND_ITEM = "item";
+    // 인스턴스에 저장하는 템플릿 내용 해시 필드
+    static final String HASH_FIELD = "templateHash";
+
+    // RTDB 키로 쓸 수 있는 바코드만 템플릿 사용 (. $ # [ ] / 불가)
+    private static final Pattern TEMPLATE_KEY = Pattern.compile("[0-9A-Za-z_-]{1,64}");
+
+    private final FirebaseRepository repository;
+    private final DatabaseReference templatesRef;
+
+    // "바코드/종류/해시" → 템플릿 값
+    private final Map<String, Map<String, Object>> templates = new ConcurrentHashMap<>();
+
+    TemplateCatalog(FirebaseRepository repository, DatabaseReference root) {
+        this.repository = repository;
+        this.templatesRef = root.child(PATH);
+    }
+
+    static boolean hasTemplateKey(@Nullable String barcode) {
+        return barcode != null && TEMPLATE_KEY.matcher(barcode).matches();
+    }
+
+    private static String templateKey(String barcode, String kind, String hash) {
+        return barcode + "/" + kind + "/" + hash;
+    }
+
+    /**
+     * 템플릿 내용 해시 (SHA-256 앞 16자리)
+     * 키 순서대로 이어 붙이고 숫자는 double 로 맞춰서 RTDB 에서 읽은 값(Long/Double)과 쓴 값(int/float)이 같게 나옴
+     * null 필드는 저장되지 않으므로 제외
+     */
+    static String contentHash(Map<String, Object> template) {
+        StringBuilder canonical = new StringBuilder();
+        for (Map.Entry<String, Object> entry : new TreeMap<>(template).entrySet()) {
+            Object value = entry.getValue();
+            if (value == null) continue;
+            canonical.append(entry.getKey()).append('=')
+                    .append(value instanceof Number ? Double.toString(((Number) value).doubleValue()) : value)
+                    .append(';');
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(canonical.toString().getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(16);
+            for (int i = 0; i < 8; i++) {
+                hex.append(String.format("%02x", digest[i]));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);  // SHA-256 은 항상 있음
+        }
+    }
+
+    // ========== 쓰기 ==========
+
+    /**
+     * 몬스터를 path 에 기록 (바코드가 있으면 인스턴스 + 아직 모르는 템플릿, 없으면 전체)
+     */
+    void putMonster(Map<String, Object> updates, String path, Monster monster) {
+        if (!hasTemplateKey(monster.getBarcode())) {
+            updates.put(path, monster.toMap());
+            return;
+        }
+        putCompact(updates, path, monster.getBarcode(), KIND_MONSTER,
+                monster.toInstanceMap(), monster.toTemplateMap());
+    }
+
+    /**
+     * 아이템을 path 에 기록 (바코드가 있으면 인스턴스 + 아직 모르는 템플릿, 없으면 전체)
+     */
+    void putItem(Map<String, Object> updates, String path, Item item) {
+        if (!hasTemplateKey(item.getBarcode())) {
+            updates.put(path, item.toMap());
+            return;
+        }
+        putCompact(updates, path, item.getBarcode(), KIND_ITEM, item.toInstanceMap(), item.toTemplateMap());
+    }
+
+    private void putCompact(Map<String, Object> updates, String path, String barcode, String kind,
+                            Map<String, Object> instance, Map<String, Object> template) {
+        String hash = contentHash(template);
+        instance.put(HASH_FIELD, hash);
+        updates.put(path, instance);
+
+        String key = templateKey(barcode, kind, hash);
+        if (templates.containsKey(key)) return;
+        updates.put(PATH + "/" + key, template);
+    }
+
+    /**
+     * updates 에 담긴 템플릿 경로를 빼내 각각 없을 때만 생성 (나머지 쓰기보다 먼저 호출)
+     * 이미 있으면 서버 값을 그대로 두고 메모리에 보관, 하나라도 실패하면 Future 실패
+     */
+    @SuppressWarnings("unchecked")
+    ListenableFuture<Void> createMissing(Map<String, Object> updates) {
+        List<ListenableFuture<Void>> creates = new ArrayList<>();
+        Iterator<Map.Entry<String, Object>> it = updates.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Object> entry = it.next();
+            String path = entry.getKey();
+            if (!path.startsWith(PATH + "/") || !(entry.getValue() instanceof Map)) continue;
+            it.remove();
+            creates.add(createIfAbsent(path.substring(PATH.length() + 1), (Map<String, Object>) entry.getValue()));
+        }
+        if (creates.isEmpty()) return Futures.immediateFuture(null);
+        return Futures.transform(Futures.allAsList(creates), ignored -> null, MoreExecutors.directExecutor());
+    }
+
+    private ListenableFuture<Void> createIfAbsent(String key, Map<String, Object> template) {
+        SettableFuture<Void> future = SettableFuture.create();
+        templatesRef.child(key).runTransaction(new Transaction.Handler() {
+            @NonNull
+            @Override
+            public Transaction.Result doTransaction(@NonNull MutableData currentData) {
+                if (currentData.getValue() != null) return Transaction.abort();
+                currentData.setValue(template);
+                return Transaction.success(currentData);
+            }
+
+            @Override
+            public void onComplete(@Nullable DatabaseError error, boolean committed,
+                                   @Nullable DataSnapshot currentData) {
+                if (error != null) {
+                    future.setException(new FirebaseRepository.RepositoryException(error.getMessage()));
+                    return;
+                }
+                // 키가 내용 해시라 먼저 저장된 값이 있어도 같은 내용
+                templates.put(key, template);
+                future.set(null);
+            }
+        });
+        return future;
+    }
+
+    // ========== 읽기 ==========
+
+    /**
+     * 템플릿과 합친 값 (템플릿 형식이 아니거나 템플릿을 아직 모르면 그대로)
+     */
+    @Nullable
+    Map<String, Object> hydrate(@Nullable Map<String, Object> instance, String kind) {
+        String key = compactKey(instance, kind);
+        if (key == null) return instance;
+        return merge(instance, templates.get(key));
+    }
+
+    /**
+     * 인스턴스 값에 템플릿을 합침 (인스턴스 값이 우선, 템플릿 형식이 아니거나 템플릿이 없으면 그대로)
+     */
+    @Nullable
+    static Map<String, Object> merge(@Nullable Map<String, Object> instance, @Nullable Map<String, Object> template) {
+        if (template == null || !isCompact(instance)) return instance;
+
+        Map<String, Object> merged = new HashMap<>(template);
+        merged.putAll(instance);
+        return merged;
+    }
+
+    /**
+     * 템플릿 형식 인스턴스인지 (name 없이 barcode 와 templateHash 만 있음)
+     */
+    private static boolean isCompact(@Nullable Map<String, Object> instance) {
+        if (instance == null || instance.containsKey("name")) return false;
+        Object barcode = instance.get("barcode");
+        Object hash = instance.get(HASH_FIELD);
+        return barcode instanceof String && hasTemplateKey((String) barcode)
+                && hash instanceof String && hasTemplateKey((String) hash);
+    }
+
+    /**
+     * 템플릿 형식 인스턴스면 템플릿 키 (아니면 null)
+     */
+    @Nullable
+    private static String compactKey(@Nullable Map<String, Object> instance, String kind) {
+        if (!isCompact(instance)) return null;
+        return templateKey((String) instance.get("barcode"), kind, (String) instance.get(HASH_FIELD));
+    }
+
+    /**
+     * snapshot 아래(depth 단계까지)의 템플릿 형식 항목에 필요한 템플릿을 읽은 뒤 then 실행
+     * 템플릿 조회가 실패해도 then 은 실행됨 (해당 항목은 템플릿 없이 변환)
+     */
+    void load(DataSnapshot snapshot, int depth, String kind, Runnable then) {
+        Set<String> missing = new HashSet<>();
+        collectMissing(snapshot, depth, kind, missing);
+        if (missing.isEmpty()) {
+            then.run();
+            return;
+        }
+
+        List<String> keys = new ArrayList<>(missing);
+        List<ListenableFuture<DataSnapshot>> reads = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            reads.add(repository.readAsync(templatesRef.child(key)));
+        }
+        Futures.addCallback(Futures.successfulAsList(reads), new FutureCallback<List<DataSnapshot>>() {
+            @Override
+            public void onSuccess(List<DataSnapshot> results) {
+                for (int i = 0; i < results.size(); i++) {
+                    DataSnapshot result = results.get(i);
+                    Map<String, Object> template = result != null ? FirebaseRepository.valueMap(result) : null;
+                    if (template == null) continue;
+                    String key = keys.get(i);
+                    // 공유 노드라 내용이 키(해시)와 맞을 때만 사용
+                    if (!key.endsWith("/" + contentHash(template))) {
+                        Log.w(TAG, "템플릿 해시 불일치, 무시: " + key);
+                        continue;
+                    }
+                    templates.put(key, template);
+                }
+                then.run();
+            }
+
+            @Override
+            public void onFailure(@NonNull Throwable t) {
+                Log.w(TAG, "템플릿 조회 실패: " + t.getMessage());
+                then.run();
+            }
+        }, repository.mainExecutor());
+    }
+
+    private void collectMissing(DataSnapshot node, int depth, String kind, Set<String> out) {
+        if (node.hasChild("barcode")) {
+            String key = node.hasChild("name") ? null : compactKey(FirebaseRepository.valueMap(node), kind);
+            if (key != null && !templates.containsKey(key)) {
+                out.add(key);
+            }
+            return;
+        }
+        if (depth <= 0) return;
+        for (DataSnapshot child : node.getChildren()) {
+            if (child.hasChildren()) collectMissing(child, depth - 1, kind, out);
+        }
+    }
+}
@@ -4,6 +4,7 @@ import android.animation.ObjectAnimator;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
+import android.util.Log;
 import android.view.View;
 import android.view.animation.AccelerateDecelerateInterpolator;
 import android.widget.Toast;
@@ -12,14 +13,15 @@ import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 
 import com.example.caloriehunter.R;
-import com.example.caloriehunter.data.model.BattleLog;
-import com.example.caloriehunter.data.model.DailyQuest;
+import com.example.caloriehunter.data.model.BattleContext;
 import com.example.caloriehunter.data.model.Item;
 import com.example.caloriehunter.data.model.Monster;
 import com.example.caloriehunter.data.model.User;
+import com.example.caloriehunter.data.repository.BattleJournal;
 import com.example.caloriehunter.data.repository.FirebaseRepository;
 import com.example.caloriehunter.databinding.ActivityBattleBinding;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 
@@ -31,8 +33,11 @@ import java.util.Random;
  */
 public class BattleActivity extends AppCompatActivity {
 
+    private static final String TAG = "BattleActivity";
+
     private ActivityBattleBinding binding;
     private FirebaseRepository firebaseRepository;
+    private BattleJournal journal;  // 전투 중 인벤토리 변경 (종료 시 일괄 반영)
 
     private Monster monster;
     private User user;
@@ -68,6 +73,13 @@ public class BattleActivity extends AppCompatActivity {
             return;
         }
 
+        String userId = firebaseRepository.getCurrentUserId();
+        if (userId != null) {
+            journal = new BattleJournal(this, userId);
+            // 이전 전투에서 반영하지 못한 기록이 남아 있으면 먼저 반영
+            flushJournal();
+        }
+
         setupClickListeners();
         loadBattleData(monsterId);
     }
@@ -109,105 +121,36 @@ public class BattleActivity extends AppCompatActivity {
             return;
         }
 
-        // 몬스터 로드
-        firebaseRepository.getActiveMonster(userId, new FirebaseRepository.MonsterCallback() {
+        // 몬스터/유저/포션/버프/장착 무기 동시 로드
+        firebaseRepository.loadBattleContext(userId, new FirebaseRepository.BattleContextCallback() {
             @Override
-            public void onSuccess(Monster m) {
-                monster = m;
+            public void onSuccess(BattleContext context) {
+                monster = context.getMonster();
                 monsterCurrentHp = monster.getHp();
-                runOnUiThread(() -> updateMonsterUI());
-
-                // 유저 로드
-                loadUserData(userId);
-            }
+                user = context.getUser();
+                userCurrentHp = user.getHp();
+                potions = new ArrayList<>(context.getPotions());
+                buffs = new ArrayList<>(context.getBuffs());
+                equippedWeapon = context.getEquippedWeapon();
 
-            @Override
-            public void onError(String message) {
                 runOnUiThread(() -> {
-                    Toast.makeText(BattleActivity.this, "몬스터 로드 실패", Toast.LENGTH_SHORT).show();
-                    finish();
+                    updateMonsterUI();
+                    updatePlayerUI();
+                    updatePotionButton();
+                    updateBuffButton();
                 });
             }
-        });
-    }
-
-    private void loadUserData(String userId) {
-        firebaseRepository.getOrCreateUser(userId, "", new FirebaseRepository.UserCallback() {
-            @Override
-            public void onSuccess(User u) {
-                user = u;
-                userCurrentHp = user.getHp();
-                runOnUiThread(() -> updatePlayerUI());
-
-                // 포션 로드
-                loadPotions(userId);
-
-                // 버프 로드
-                loadBuffs(userId);
-
-                // 장착 무기 로드
-                loadEquippedWeapon(userId);
-            }
 
             @Override
             public void onError(String message) {
                 runOnUiThread(() -> {
-                    Toast.makeText(BattleActivity.this, "유저 로드 실패", Toast.LENGTH_SHORT).show();
+                    Toast.makeText(BattleActivity.this, message, Toast.LENGTH_SHORT).show();
                     finish();
                 });
             }
         });
     }
 
-    private void loadEquippedWeapon(String userId) {
-        if (user == null || user.getEquippedWeaponId() == null || user.getEquippedWeaponId().isEmpty()) {
-            equippedWeapon = null;
-            return;
-        }
-
-        firebaseRepository.getWeapon(userId, user.getEquippedWeaponId(), new FirebaseRepository.ItemCallback() {
-            @Override
-            public void onSuccess(Item item) {
-                equippedWeapon = item;
-            }
-
-            @Override
-            public void onError(String message) {
-                equippedWeapon = null;
-            }
-        });
-    }
-
-    private void loadPotions(String userId) {
-        firebaseRepository.getPotions(userId, new FirebaseRepository.ItemsCallback() {
-            @Override
-            public void onSuccess(List<Item> items) {
-                potions = items;
-                runOnUiThread(() -> updatePotionButton());
-            }
-
-            @Override
-            public void onError(String message) {
-                // 포션 없음
-            }
-        });
-    }
-
-    private void loadBuffs(String userId) {
-        firebaseRepository.getBuffs(userId, new FirebaseRepository.ItemsCallback() {
-            @Override
-            public void onSuccess(List<Item> items) {
-                buffs = items;
-                runOnUiThread(() -> updateBuffButton());
-            }
-
-            @Override
-            public void onError(String message) {
-                // 버프 없음
-            }
-        });
-    }
-
     private void updateMonsterUI() {
         if (monster == null) return;
 
@@ -303,10 +246,7 @@ public class BattleActivity extends AppCompatActivity {
     }
 
     private void reduceWeaponDurability() {
-        if (equippedWeapon == null) return;
-
-        String userId = firebaseRepository.getCurrentUserId();
-        if (userId == null) return;
+        if (equippedWeapon == null || journal == null) return;
 
         // 내구도 1 감소
         boolean isDestroyed = equippedWeapon.reduceDurability(1);
@@ -315,44 +255,30 @@ public class BattleActivity extends AppCompatActivity {
             // 무기 파괴!
             addBattleLog("💔 " + equippedWeapon.getName() + "이(가) 부서졌다!");
 
-            // Firebase에서 무기 삭제
-            firebaseRepository.deleteWeapon(userId, equippedWeapon.getId(), new FirebaseRepository.SimpleCallback() {
-                @Override
-                public void onSuccess() {}
-                @Override
-                public void onError(String message) {}
-            });
-
-            // 유저의 장착 무기 해제
-            firebaseRepository.unequipWeapon(userId, new FirebaseRepository.SimpleCallback() {
-                @Override
-                public void onSuccess() {
-                    user.setEquippedWeaponId(null);
-                    user.setEquippedWeaponName(null);
-                    user.setEquippedWeaponPower(0);
-                }
-                @Override
-                public void onError(String message) {}
-            });
-
+            // 무기 삭제 + 장착 해제 (전투 종료 시 반영)
+            journal.destroyWeapon(equippedWeapon.getId());
+            user.unequipWeapon();
             equippedWeapon = null;
 
             runOnUiThread(() -> {
                 Toast.makeText(this, "무기가 부서졌습니다!", Toast.LENGTH_SHORT).show();
             });
         } else {
-            // 내구도 업데이트
+            // 내구도 업데이트 (전투 종료 시 반영)
             addBattleLog("🔧 무기 내구도: " + equippedWeapon.getDurability() + "/" + equippedWeapon.getMaxDurability());
-            firebaseRepository.updateWeaponDurability(userId, equippedWeapon.getId(),
-                    equippedWeapon.getDurability(), new FirebaseRepository.SimpleCallback() {
-                @Override
-                public void onSuccess() {}
-                @Override
-                public void onError(String message) {}
-            });
+            journal.setWeaponDurability(equippedWeapon.getId(), equippedWeapon.getDurability());
         }
     }
 
+    /**
+     * 전투 저널 반영 (승리/패배/도망/화면 이탈 시)
+     */
+    private void flushJournal() {
+        if (journal == null || !journal.hasPending()) return;
+
+        journal.flush(firebaseRepository);
+    }
+
     private void monsterAttack() {
         int damage = monster.getAttack();
 
@@ -449,20 +375,9 @@ public class BattleActivity extends AppCompatActivity {
         updatePlayerUI();
         updatePotionButton();
 
-        // 포션 소비 (Firebase 동기화)
-        String userId = firebaseRepository.getCurrentUserId();
-        if (userId != null) {
-            firebaseRepository.useItem(userId, potion, new FirebaseRepository.SimpleCallback() {
-                @Override
-                public void onSuccess() {
-                    // 이미 로컬에서 제거됨
-                }
-
-                @Override
-                public void onError(String message) {
-                    // 실패해도 진행 (로컬 상태 우선)
-                }
-            });
+        // 포션 소비 (전투 종료 시 반영)
+        if (journal != null) {
+            journal.consumeItem(potion);
         }
 
         // 몬스터 반격
@@ -488,20 +403,9 @@ public class BattleActivity extends AppCompatActivity {
         buffs.remove(index);
         updateBuffButton();
 
-        // 버프 소비 (Firebase 동기화)
-        String userId = firebaseRepository.getCurrentUserId();
-        if (userId != null) {
-            firebaseRepository.useItem(userId, buff, new FirebaseRepository.SimpleCallback() {
-                @Override
-                public void onSuccess() {
-                    // 이미 로컬에서 제거됨
-                }
-
-                @Override
-                public void onError(String message) {
-                    // 실패해도 진행 (로컬 상태 우선)
-                }
-            });
+        // 버프 소비 (전투 종료 시 반영)
+        if (journal != null) {
+            journal.consumeItem(buff);
         }
 
         // 버프는 턴을 소비하지 않음 (바로 다음 행동 가능)
@@ -517,40 +421,27 @@ public class BattleActivity extends AppCompatActivity {
         addBattleLog("🎉 " + monster.getName() + "을(를) 처치했다!");
         addBattleLog("+" + expGain + " EXP 획득!");
 
+        // 전투 중 인벤토리 변경 반영
+        flushJournal();
+
         // 몬스터 처치 처리
         String userId = firebaseRepository.getCurrentUserId();
         firebaseRepository.defeatMonster(monster.getId(), userId, new FirebaseRepository.SimpleCallback() {
             @Override
             public void onSuccess() {
-                // 경험치 추가
-                user.addExp(expGain);
-                user.setTotalDamageDealt(user.getTotalDamageDealt() + monster.getMaxHp());
-                user.setTotalMonstersKilled(user.getTotalMonstersKilled() + 1);
-                firebaseRepository.updateUser(user, new FirebaseRepository.SimpleCallback() {
+                // 경험치/처치 수/데미지 증가 + 전투 기록 + 처치 퀘스트 진행 (한 번에 기록)
+                // (쓰기 대기열로 넘어가므로 실패해도 재시도됨, 재시도 끝에 버려지면 알림)
+                firebaseRepository.recordVictory(userId, user, monster, expGain, new FirebaseRepository.SimpleCallback() {
                     @Override
                     public void onSuccess() {}
                     @Override
-                    public void onError(String message) {}
-                });
-
-                // 전투 기록 저장
-                BattleLog log = BattleLog.createVictoryLog(userId, monster, expGain);
-                firebaseRepository.saveBattleLog(log, new FirebaseRepository.SimpleCallback() {
-                    @Override
-                    public void onSuccess() {}
-                    @Override
-                    public void onError(String message) {}
+                    public void onError(String message) {
+                        Log.w(TAG, "전투 결과 기록 실패: " + message);
+                        runOnUiThread(() -> Toast.makeText(getApplicationContext(),
+                                "전투 결과 저장에 실패했습니다: " + message, Toast.LENGTH_LONG).show());
+                    }
                 });
 
-                // 몬스터 처치 퀘스트 진행
-                firebaseRepository.progressQuestByType(userId, DailyQuest.QuestType.DEFEAT_MONSTER.name(), 1,
-                        new FirebaseRepository.SimpleCallback() {
-                            @Override
-                            public void onSuccess() {}
-                            @Override
-                            public void onError(String message) {}
-                        });
-
                 // 다음 몬스터가 있는지 확인
                 checkNextMonster(userId, expGain);
             }
@@ -624,6 +515,9 @@ public class BattleActivity extends AppCompatActivity {
         isBattleOver = true;
         addBattleLog("💀 패배...");
 
+        // 전투 중 인벤토리 변경 반영
+        flushJournal();
+
         showResultOverlay(false, 0, 0);
     }
 
@@ -717,6 +611,13 @@ public class BattleActivity extends AppCompatActivity {
         }
     }
 
+    @Override
+    protected void onStop() {
+        super.onStop();
+        // 도망/백그라운드 전환 시 반영 (프로세스가 종료돼도 디스크 기록은 남음)
+        flushJournal();
+    }
+
     @Override
     protected void onDestroy() {
         super.onDestroy();
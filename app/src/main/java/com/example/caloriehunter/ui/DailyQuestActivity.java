@@ -132,9 +132,8 @@ public class DailyQuestActivity extends AppCompatActivity {
         firebaseRepository.claimQuestReward(userId, quest, new FirebaseRepository.SimpleCallback() {
             @Override
             public void onSuccess() {
-                // 경험치 추가
-                currentUser.addExp(quest.getRewardExp());
-                firebaseRepository.updateUser(currentUser, new FirebaseRepository.SimpleCallback() {
+                // 경험치 추가 (서버에서 원자적으로 증가)
+                firebaseRepository.grantExp(userId, currentUser, quest.getRewardExp(), new FirebaseRepository.SimpleCallback() {
                     @Override
                     public void onSuccess() {
                         runOnUiThread(() -> {
@@ -18,6 +18,7 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.caloriehunter.R;
 import com.example.caloriehunter.data.model.BattleLog;
+import com.example.caloriehunter.data.model.InventorySnapshot;
 import com.example.caloriehunter.data.model.Item;
 import com.example.caloriehunter.data.model.User;
 import com.example.caloriehunter.data.repository.FirebaseRepository;
@@ -39,7 +40,9 @@ public class InventoryActivity extends AppCompatActivity {
     private User currentUser;
     private List<Item> weapons = new ArrayList<>();
     private List<Item> potions = new ArrayList<>();
-    private List<BattleLog> battleLogs = new ArrayList<>();
+    private final List<BattleLog> battleLogs = new ArrayList<>();
+    private boolean logsLoading = false;
+    private boolean logsHasMore = true;
     private ItemAdapter itemAdapter;
     private BattleLogAdapter logAdapter;
 
@@ -79,6 +82,19 @@ public class InventoryActivity extends AppCompatActivity {
         itemAdapter = new ItemAdapter();
         logAdapter = new BattleLogAdapter();
         binding.recyclerItems.setAdapter(itemAdapter);
+
+        // 전투 기록 탭: 끝에 가까워지면 다음 페이지 로드
+        binding.recyclerItems.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (currentTab != 2 || dy <= 0) return;
+                LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
+                if (layoutManager != null
+                        && layoutManager.findLastVisibleItemPosition() >= logAdapter.getItemCount() - 5) {
+                    loadBattleLogPage();
+                }
+            }
+        });
     }
 
     private void loadInventory() {
@@ -101,51 +117,58 @@ public class InventoryActivity extends AppCompatActivity {
             public void onError(String message) {}
         });
 
-        // 무기 로드
-        firebaseRepository.getWeapons(userId, new FirebaseRepository.ItemsCallback() {
+        // 인벤토리 로드 (한 번 읽고 타입별로 분류/정렬된 결과 수신)
+        firebaseRepository.getInventorySnapshot(userId, new FirebaseRepository.InventoryCallback() {
             @Override
-            public void onSuccess(List<Item> items) {
-                weapons = items;
+            public void onSuccess(InventorySnapshot inventory) {
+                weapons = inventory.getWeapons();
+                potions = inventory.getPotions();
                 runOnUiThread(() -> {
-                    if (currentTab == 0) updateList();
+                    if (currentTab == 0 || currentTab == 1) updateList();
                 });
             }
 
             @Override
             public void onError(String message) {
                 weapons = new ArrayList<>();
+                potions = new ArrayList<>();
             }
         });
 
-        // 포션 로드
-        firebaseRepository.getPotions(userId, new FirebaseRepository.ItemsCallback() {
-            @Override
-            public void onSuccess(List<Item> items) {
-                potions = items;
-                runOnUiThread(() -> {
-                    if (currentTab == 1) updateList();
-                });
-            }
+        // 전투 기록 첫 페이지 로드
+        loadBattleLogPage();
+    }
 
-            @Override
-            public void onError(String message) {
-                potions = new ArrayList<>();
-            }
-        });
+    /**
+     * 전투 기록 다음 페이지 로드 (마지막으로 받은 기록 이후부터)
+     */
+    private void loadBattleLogPage() {
+        String userId = firebaseRepository.getCurrentUserId();
+        if (userId == null || logsLoading || !logsHasMore) return;
 
-        // 전투 기록 로드
-        firebaseRepository.getBattleLogs(userId, new FirebaseRepository.BattleLogsCallback() {
+        logsLoading = true;
+        BattleLog before = battleLogs.isEmpty() ? null : battleLogs.get(battleLogs.size() - 1);
+        firebaseRepository.getBattleLogPage(userId, before, FirebaseRepository.BATTLE_LOG_PAGE_SIZE,
+                new FirebaseRepository.BattleLogPageCallback() {
             @Override
-            public void onSuccess(List<BattleLog> logs) {
-                battleLogs = logs;
+            public void onSuccess(List<BattleLog> logs, boolean hasMore) {
                 runOnUiThread(() -> {
-                    if (currentTab == 2) updateList();
+                    logsLoading = false;
+                    logsHasMore = hasMore;
+                    int start = battleLogs.size();
+                    battleLogs.addAll(logs);
+                    if (currentTab != 2) return;
+                    if (start == 0) {
+                        updateList();
+                    } else {
+                        logAdapter.notifyItemRangeInserted(start, logs.size());
+                    }
                 });
             }
 
             @Override
             public void onError(String message) {
-                battleLogs = new ArrayList<>();
+                runOnUiThread(() -> logsLoading = false);
             }
         });
     }
@@ -186,7 +209,7 @@ public class InventoryActivity extends AppCompatActivity {
     }
 
     private void saveUserAndUpdate() {
-        firebaseRepository.updateUser(currentUser, new FirebaseRepository.SimpleCallback() {
+        firebaseRepository.updateEquippedWeapon(currentUser, new FirebaseRepository.SimpleCallback() {
             @Override
             public void onSuccess() {
                 runOnUiThread(() -> {
@@ -205,6 +205,7 @@ public class MainActivity extends AppCompatActivity {
             public void onSuccess(User user) {
                 currentUser = user;
                 isLoadingComplete = true;
+                firebaseRepository.markTimeToData();
                 runOnUiThread(() -> {
                     updateUserUI();
                     loadActiveMonster();
@@ -26,6 +26,7 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 /**
  * 영양 통계 화면
@@ -36,6 +37,7 @@ public class NutritionStatsActivity extends AppCompatActivity {
     private FirebaseRepository firebaseRepository;
     private FoodRecordAdapter foodAdapter;
     private List<NutritionRecord> todayRecords = new ArrayList<>();
+    private NutritionStats todayStats;  // 일별 집계 (집계 도입 이전 날짜면 null, 일부 기록만 반영됐을 수 있음)
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -68,7 +70,24 @@ public class NutritionStatsActivity extends AppCompatActivity {
             return;
         }
 
-        // 오늘의 영양 기록 로드
+        // 오늘의 일별 집계 로드 (통계 카드용)
+        String today = NutritionRecord.getTodayDateString();
+        firebaseRepository.getDailyNutritionStats(userId, today, today, new FirebaseRepository.NutritionDailyCallback() {
+            @Override
+            public void onSuccess(Map<String, NutritionStats> dailyStats) {
+                runOnUiThread(() -> {
+                    todayStats = dailyStats.get(today);
+                    updateUI();
+                });
+            }
+
+            @Override
+            public void onError(String message) {
+                // 기록 목록으로 계산한 통계를 사용
+            }
+        });
+
+        // 오늘의 영양 기록 로드 (음식 목록용)
         firebaseRepository.getTodayNutritionRecords(userId, new FirebaseRepository.NutritionRecordsCallback() {
             @Override
             public void onSuccess(List<NutritionRecord> records) {
@@ -103,8 +122,11 @@ public class NutritionStatsActivity extends AppCompatActivity {
 
         binding.emptyState.setVisibility(View.GONE);
 
-        // 통계 계산
-        NutritionStats stats = NutritionStats.fromRecords(todayRecords);
+        // 통계 (집계가 오늘 기록을 전부 반영했을 때만 사용, 아니면 기록으로 계산)
+        // 집계 도입 이전이나 이관된 기록은 집계에 빠져 있어 개수가 모자람
+        NutritionStats stats = todayStats != null && todayStats.getTotalCount() == todayRecords.size()
+                ? todayStats
+                : NutritionStats.fromRecords(todayRecords);
 
         // 건강 점수 표시
         String grade = stats.getHealthGrade();
@@ -35,9 +35,14 @@ import com.example.caloriehunter.data.model.NutritionData;
 import com.example.caloriehunter.data.model.NutritionRecord;
 import com.example.caloriehunter.data.repository.FirebaseRepository;
 import com.example.caloriehunter.data.repository.FoodRepository;
+import com.example.caloriehunter.data.repository.NutritionResolver;
 import com.example.caloriehunter.databinding.ActivityScanBinding;
 import com.example.caloriehunter.game.FoodAnalyzer;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
 import com.google.mlkit.vision.barcode.BarcodeScanner;
 import com.google.mlkit.vision.barcode.BarcodeScannerOptions;
 import com.google.mlkit.vision.barcode.BarcodeScanning;
@@ -45,6 +50,9 @@ import com.google.mlkit.vision.barcode.common.Barcode;
 import com.google.mlkit.vision.common.InputImage;
 
 import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -52,10 +60,21 @@ import java.util.concurrent.Executors;
  * 바코드 스캔 화면
  * - CameraX로 카메라 프리뷰
  * - ML Kit으로 바코드 인식
- * - Open Food Facts API로 영양 정보 조회
+ * - 로컬 캐시 / Open Food Facts / Gemini 사진 분석을 NutritionResolver 로 헤지해서 영양 정보 조회
  */
 public class ScanActivity extends AppCompatActivity {
 
+    // 바코드 조회 소스 (시작 지연, 기한 ms)
+    // 캐시가 바로 답하면 네트워크 요청 없음, OFF 가 늦으면 Gemini 를 함께 시작, 앞 소스가 실패하면 지연 없이 다음 소스
+    private static final String SOURCE_CACHE = "cache";
+    private static final String SOURCE_OPEN_FOOD_FACTS = "openfoodfacts";
+    private static final String SOURCE_GEMINI = "gemini";
+    private static final long CACHE_DEADLINE_MS = 500;
+    private static final long OPEN_FOOD_FACTS_HEDGE_MS = 150;
+    private static final long OPEN_FOOD_FACTS_DEADLINE_MS = 6000;
+    private static final long GEMINI_HEDGE_MS = 3000;
+    private static final long GEMINI_DEADLINE_MS = 12000;
+
     private ActivityScanBinding binding;
 
     private ExecutorService cameraExecutor;
@@ -64,6 +83,8 @@ public class ScanActivity extends AppCompatActivity {
     private FirebaseRepository firebaseRepository;
     private FoodAnalyzer foodAnalyzer;
     private GeminiService geminiService;
+    private NutritionResolver nutritionResolver;
+    private ListenableFuture<NutritionResolver.Result> pendingLookup;
     private ImageCapture imageCapture;
     private Handler mainHandler;
 
@@ -94,6 +115,7 @@ public class ScanActivity extends AppCompatActivity {
         foodAnalyzer = new FoodAnalyzer();
         geminiService = GeminiService.getInstance();
         mainHandler = new Handler(Looper.getMainLooper());
+        nutritionResolver = buildNutritionResolver();
 
         // 바코드 스캐너 옵션
         BarcodeScannerOptions options = new BarcodeScannerOptions.Builder()
@@ -197,83 +219,73 @@ public class ScanActivity extends AppCompatActivity {
                 .addOnCompleteListener(task -> imageProxy.close());
     }
 
+    private NutritionResolver buildNutritionResolver() {
+        NutritionResolver.Builder builder = new NutritionResolver.Builder()
+                .source(SOURCE_CACHE, 0, CACHE_DEADLINE_MS, foodRepository::searchLocalAsync)
+                .source(SOURCE_OPEN_FOOD_FACTS, OPEN_FOOD_FACTS_HEDGE_MS, OPEN_FOOD_FACTS_DEADLINE_MS,
+                        foodRepository::fetchAsync);
+        // API 키가 없으면 Gemini 는 빼고 조회
+        if (!BuildConfig.GEMINI_API_KEY.isEmpty()) {
+            builder.source(SOURCE_GEMINI, GEMINI_HEDGE_MS, GEMINI_DEADLINE_MS, barcode -> captureForGemini());
+        }
+        return builder.build();
+    }
+
     private void onBarcodeDetected(String barcode) {
         showLoading(true);
 
-        foodRepository.searchByBarcode(barcode, new FoodRepository.FoodCallback() {
+        pendingLookup = nutritionResolver.resolve(barcode);
+        Futures.addCallback(pendingLookup, new FutureCallback<NutritionResolver.Result>() {
             @Override
-            public void onSuccess(NutritionData data) {
-                runOnUiThread(() -> processNutritionData(data));
+            public void onSuccess(NutritionResolver.Result result) {
+                if (SOURCE_GEMINI.equals(result.getWinner())) {
+                    Toast.makeText(ScanActivity.this,
+                            "제품 DB에 없음. AI 분석 결과입니다", Toast.LENGTH_SHORT).show();
+                }
+                processNutritionData(result.getData());
             }
 
             @Override
-            public void onError(String message) {
-                // Open Food Facts 실패 시 Gemini AI로 이미지 분석 fallback
-                runOnUiThread(() -> {
-                    Toast.makeText(ScanActivity.this,
-                            "제품 DB에 없음. AI 분석 중...", Toast.LENGTH_SHORT).show();
-                });
-                captureAndAnalyzeWithGemini();
+            public void onFailure(@NonNull Throwable t) {
+                if (t instanceof CancellationException) return;
+                showLoading(false);
+                isProcessing = false;
+                Toast.makeText(ScanActivity.this,
+                        "음식 정보를 찾을 수 없습니다: " + t.getMessage(), Toast.LENGTH_SHORT).show();
             }
-        });
+        }, ContextCompat.getMainExecutor(this));
     }
 
     /**
-     * 현재 카메라 화면을 캡처해서 Gemini AI로 분석
+     * 현재 카메라 화면을 캡처해서 Gemini AI로 분석 (NutritionResolver 소스)
      */
-    private void captureAndAnalyzeWithGemini() {
+    private ListenableFuture<NutritionData> captureForGemini() {
         if (imageCapture == null) {
-            mainHandler.post(() -> {
-                showLoading(false);
-                isProcessing = false;
-                Toast.makeText(this, "카메라 초기화 중...", Toast.LENGTH_SHORT).show();
-            });
-            return;
+            return Futures.immediateFailedFuture(new IllegalStateException("카메라 초기화 중"));
         }
 
-        imageCapture.takePicture(cameraExecutor, new ImageCapture.OnImageCapturedCallback() {
+        // 헤지 타이머 스레드에서 불리므로 촬영은 메인 스레드에서 시작
+        SettableFuture<Bitmap> captured = SettableFuture.create();
+        ImageCapture capture = imageCapture;
+        mainHandler.post(() -> capture.takePicture(cameraExecutor, new ImageCapture.OnImageCapturedCallback() {
             @Override
             public void onCaptureSuccess(@NonNull ImageProxy image) {
                 Bitmap bitmap = imageProxyToBitmap(image);
                 image.close();
-
                 if (bitmap != null) {
-                    geminiService.analyzeFoodImage(bitmap, new GeminiService.GeminiCallback() {
-                        @Override
-                        public void onSuccess(NutritionData nutritionData) {
-                            mainHandler.post(() -> processNutritionData(nutritionData));
-                        }
-
-                        @Override
-                        public void onError(String error) {
-                            mainHandler.post(() -> {
-                                showLoading(false);
-                                isProcessing = false;
-                                Toast.makeText(ScanActivity.this,
-                                        "AI 분석 실패: " + error, Toast.LENGTH_SHORT).show();
-                            });
-                        }
-                    });
+                    captured.set(bitmap);
                 } else {
-                    mainHandler.post(() -> {
-                        showLoading(false);
-                        isProcessing = false;
-                        Toast.makeText(ScanActivity.this,
-                                "이미지 캡처 실패", Toast.LENGTH_SHORT).show();
-                    });
+                    captured.setException(new IllegalStateException("이미지 캡처 실패"));
                 }
             }
 
             @Override
             public void onError(@NonNull ImageCaptureException exception) {
-                mainHandler.post(() -> {
-                    showLoading(false);
-                    isProcessing = false;
-                    Toast.makeText(ScanActivity.this,
-                            "사진 촬영 실패", Toast.LENGTH_SHORT).show();
-                });
+                captured.setException(new IllegalStateException("사진 촬영 실패"));
             }
-        });
+        }));
+        return Futures.transformAsync(captured, geminiService::analyzeFoodImageAsync,
+                MoreExecutors.directExecutor());
     }
 
     private void showManualSearchDialog() {
@@ -545,88 +557,38 @@ public class ScanActivity extends AppCompatActivity {
             return;
         }
 
-        // 1. 영양 기록 저장
+        // 영양 기록 + 몬스터/아이템 + 퀘스트 진행을 한 번에 저장
         boolean isHealthy = !lastResult.isMonster();
         String resultType = lastResult.isMonster() ? "MONSTER" : "ITEM";
         NutritionRecord record = NutritionRecord.fromNutritionData(lastNutritionData, userId, isHealthy, resultType);
 
-        firebaseRepository.saveNutritionRecord(record, new FirebaseRepository.SimpleCallback() {
+        // 퀘스트 진행: 음식 스캔 (+ 건강한 음식 스캔)
+        Map<String, Integer> questDeltas = new HashMap<>();
+        questDeltas.put(DailyQuest.QuestType.SCAN_FOOD.name(), 1);
+        if (isHealthy) {
+            questDeltas.put(DailyQuest.QuestType.SCAN_HEALTHY.name(), 1);
+        }
+
+        boolean isMonster = lastResult.isMonster();
+        firebaseRepository.commitScan(record, lastResult, questDeltas, new FirebaseRepository.SimpleCallback() {
             @Override
             public void onSuccess() {
-                // 2. 퀘스트 진행: 음식 스캔
-                progressQuests(userId, isHealthy);
+                runOnUiThread(() -> {
+                    Toast.makeText(ScanActivity.this,
+                            isMonster ? "몬스터가 나타났습니다!" : "아이템을 획득했습니다!",
+                            Toast.LENGTH_SHORT).show();
+                    finish();
+                });
             }
 
             @Override
             public void onError(String message) {
-                // 기록 실패해도 계속 진행
-                progressQuests(userId, isHealthy);
+                runOnUiThread(() -> {
+                    showLoading(false);
+                    Toast.makeText(ScanActivity.this, "저장 실패: " + message, Toast.LENGTH_SHORT).show();
+                });
             }
         });
-
-        // 3. 몬스터 또는 아이템 저장
-        if (lastResult.isMonster()) {
-            firebaseRepository.saveMonster(lastResult.getMonster(), new FirebaseRepository.MonsterCallback() {
-                @Override
-                public void onSuccess(Monster monster) {
-                    runOnUiThread(() -> {
-                        Toast.makeText(ScanActivity.this, "몬스터가 나타났습니다!", Toast.LENGTH_SHORT).show();
-                        finish();
-                    });
-                }
-
-                @Override
-                public void onError(String message) {
-                    runOnUiThread(() -> {
-                        showLoading(false);
-                        Toast.makeText(ScanActivity.this, "저장 실패: " + message, Toast.LENGTH_SHORT).show();
-                    });
-                }
-            });
-        } else {
-            firebaseRepository.saveItem(lastResult.getItem(), new FirebaseRepository.ItemCallback() {
-                @Override
-                public void onSuccess(Item item) {
-                    runOnUiThread(() -> {
-                        Toast.makeText(ScanActivity.this, "아이템을 획득했습니다!", Toast.LENGTH_SHORT).show();
-                        finish();
-                    });
-                }
-
-                @Override
-                public void onError(String message) {
-                    runOnUiThread(() -> {
-                        showLoading(false);
-                        Toast.makeText(ScanActivity.this, "저장 실패: " + message, Toast.LENGTH_SHORT).show();
-                    });
-                }
-            });
-        }
-    }
-
-    /**
-     * 퀘스트 진행 처리
-     */
-    private void progressQuests(String userId, boolean isHealthy) {
-        // 음식 스캔 퀘스트 진행
-        firebaseRepository.progressQuestByType(userId, DailyQuest.QuestType.SCAN_FOOD.name(), 1,
-                new FirebaseRepository.SimpleCallback() {
-                    @Override
-                    public void onSuccess() {}
-                    @Override
-                    public void onError(String message) {}
-                });
-
-        // 건강한 음식 스캔 퀘스트 진행 (아이템인 경우만)
-        if (isHealthy) {
-            firebaseRepository.progressQuestByType(userId, DailyQuest.QuestType.SCAN_HEALTHY.name(), 1,
-                    new FirebaseRepository.SimpleCallback() {
-                        @Override
-                        public void onSuccess() {}
-                        @Override
-                        public void onError(String message) {}
-                    });
-        }
     }
 
     private void showLoading(boolean show) {
@@ -636,6 +598,7 @@ public class ScanActivity extends AppCompatActivity {
     @Override
     protected void onDestroy() {
         super.onDestroy();
+        if (pendingLookup != null) pendingLookup.cancel(true);
         cameraExecutor.shutdown();
         barcodeScanner.close();
     }
@@ -0,0 +1,73 @@
+package com.example.caloriehunter.data.api;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Open Food Facts 응답 스트리밍 파싱 (API 실제 키 표기, 모르는 하위 트리 건너뛰기)
+ */
+public class OpenFoodFactsResponseAdapterTest {
+
+    private final OpenFoodFactsResponseAdapter adapter = new OpenFoodFactsResponseAdapter();
+    private final Gson gson = new GsonBuilder()
+            .registerTypeAdapter(OpenFoodFactsApi.OpenFoodFactsResponse.class, adapter)
+            .create();
+
+    @Test
+    public void read_mapsHyphenatedNutrimentKeysAndSkipsUnknownFields() {
+        String json = "{\"code\":\"8801234567890\",\"status\":1,\"status_verbose\":\"product found\","
+                + "\"product\":{\"ingredients\":[{\"id\":\"en:water\",\"sub\":{\"a\":[1,2]}}],"
+                + "\"product_name\":\"Shrimp Cracker\",\"product_name_ko\":\"새우깡\",\"brands\":\"농심\","
+                + "\"nutriments\":{\"energy-kcal_100g\":520,\"saturated-fat_100g\":\"4.5\","
+                + "\"trans-fat_100g\":0,\"proteins_100g\":6.2,\"sodium_100g\":0.6,\"sodium\":0.6,"
+                + "\"nova-group\":4,\"fat_unit\":\"g\"},\"images\":{\"front\":{\"sizes\":{}}}}}";
+
+        OpenFoodFactsApi.OpenFoodFactsResponse response = gson.fromJson(json, OpenFoodFactsApi.OpenFoodFactsResponse.class);
+
+        assertEquals(1, response.status);
+        assertEquals("새우깡", response.product.product_name_ko);
+        assertEquals("Shrimp Cracker", response.product.product_name);
+        assertNull(response.product.image_url);
+        OpenFoodFactsApi.Nutriments n = response.product.nutriments;
+        assertEquals(520f, n.energy_kcal_100g, 0f);
+        assertEquals(4.5f, n.saturated_fat_100g, 0f);
+        assertEquals(6.2f, n.proteins_100g, 0f);
+        assertEquals(600f, n.getSodiumMg(), 0.01f);
+        assertEquals(1, adapter.getParseCount());
+    }
+
+    @Test
+    public void write_roundTripsThroughRead() {
+        OpenFoodFactsApi.OpenFoodFactsResponse response = gson.fromJson(
+                "{\"status\":1,\"status_verbose\":\"product found\",\"product\":{\"product_name\":\"Cola\","
+                        + "\"nutriments\":{\"energy_kcal_100g\":42,\"saturated_fat_serving\":0.5,\"sugars\":10.6}}}",
+                OpenFoodFactsApi.OpenFoodFactsResponse.class);
+
+        OpenFoodFactsApi.OpenFoodFactsResponse copy = gson.fromJson(gson.toJson(response),
+                OpenFoodFactsApi.OpenFoodFactsResponse.class);
+
+        assertEquals(1, copy.status);
+        assertEquals("product found", copy.status_verbose);
+        assertEquals("Cola", copy.product.product_name);
+        assertNull(copy.product.product_name_ko);
+        assertEquals(42f, copy.product.nutriments.energy_kcal_100g, 0f);
+        assertEquals(0.5f, copy.product.nutriments.saturated_fat_serving, 0f);
+        assertEquals(10.6f, copy.product.nutriments.sugars, 0f);
+        assertNull(copy.product.nutriments.sodium);
+    }
+
+    @Test
+    public void read_notFoundHasNoProduct() {
+        OpenFoodFactsApi.OpenFoodFactsResponse response = gson.fromJson(
+                "{\"code\":\"1\",\"status\":0,\"status_verbose\":\"product not found\"}",
+                OpenFoodFactsApi.OpenFoodFactsResponse.class);
+
+        assertEquals(0, response.status);
+        assertNull(response.product);
+    }
+}
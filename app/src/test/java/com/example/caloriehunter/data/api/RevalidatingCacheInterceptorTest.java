@@ -0,0 +1,122 @@
+package com.example.caloriehunter.data.api;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.Arrays;
+
+import okhttp3.Cache;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * HTTP 캐시 재검증 (로컬 MockWebServer 를 Open Food Facts 대신 사용)
+ * 두 번째 조회가 조건부 요청 → 304 로 본문 없이 캐시된 본문을 돌려받는지 확인
+ */
+public class RevalidatingCacheInterceptorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final MockWebServer server = new MockWebServer();
+    private final RevalidatingCacheInterceptor interceptor = new RevalidatingCacheInterceptor();
+    private Cache cache;
+    private OkHttpClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server.start();
+        cache = new Cache(folder.newFolder("http_cache"), 1024 * 1024);
+        client = new OkHttpClient.Builder()
+                .cache(cache)
+                .addNetworkInterceptor(interceptor)
+                .build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+        cache.close();
+    }
+
+    @Test
+    public void secondLookup_revalidatesWithEtagAndReusesCachedBody() throws Exception {
+        String body = product(8 * 1024);
+        // 서버가 캐시 헤더 없이 ETag 만 주는 경우 (Open Food Facts 와 같음)
+        server.enqueue(new MockResponse().setHeader("ETag", "\"v1\"").setBody(body));
+        server.enqueue(new MockResponse().setResponseCode(304).setHeader("ETag", "\"v1\""));
+        server.enqueue(new MockResponse().setResponseCode(304).setHeader("ETag", "\"v1\""));
+
+        assertEquals(body, get("/api/v2/product/8801234567890.json"));
+        RecordedRequest first = server.takeRequest();
+        assertNull(first.getHeader("If-None-Match"));
+
+        for (int i = 0; i < 2; i++) {
+            try (Response response = call("/api/v2/product/8801234567890.json")) {
+                assertEquals(body, response.body().string());
+                assertNotNull(response.cacheResponse());
+                assertEquals(304, response.networkResponse().code());
+            }
+            assertEquals("\"v1\"", server.takeRequest().getHeader("If-None-Match"));
+        }
+
+        assertEquals(1, interceptor.getFullResponseCount());
+        assertEquals(2, interceptor.getNotModifiedCount());
+        assertEquals(3, cache.networkCount());
+        assertEquals(2, cache.hitCount());
+    }
+
+    @Test
+    public void changedProduct_replacesCachedBody() throws Exception {
+        server.enqueue(new MockResponse().setHeader("ETag", "\"v1\"").setBody(product(100)));
+        server.enqueue(new MockResponse().setHeader("ETag", "\"v2\"").setBody(product(200)));
+
+        get("/api/v2/product/1.json");
+        assertEquals(product(200), get("/api/v2/product/1.json"));
+
+        server.takeRequest();
+        assertEquals("\"v1\"", server.takeRequest().getHeader("If-None-Match"));
+        assertEquals(2, interceptor.getFullResponseCount());
+        assertEquals(0, interceptor.getNotModifiedCount());
+    }
+
+    @Test
+    public void responseWithoutValidator_isNotRevalidated() throws Exception {
+        server.enqueue(new MockResponse().setBody(product(100)));
+        server.enqueue(new MockResponse().setBody(product(100)));
+
+        get("/api/v2/product/2.json");
+        get("/api/v2/product/2.json");
+
+        server.takeRequest();
+        assertNull(server.takeRequest().getHeader("If-None-Match"));
+        assertEquals(0, cache.hitCount());
+    }
+
+    private String get(String path) throws Exception {
+        try (Response response = call(path)) {
+            return response.body().string();
+        }
+    }
+
+    private Response call(String path) throws Exception {
+        return client.newCall(new Request.Builder().url(server.url(path)).build()).execute();
+    }
+
+    private static String product(int nameLength) {
+        char[] name = new char[nameLength];
+        Arrays.fill(name, 'a');
+        return "{\"status\":1,\"product\":{\"product_name\":\"" + new String(name) + "\"}}";
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.caloriehunter.data.model;
+
+import com.google.firebase.database.core.utilities.encoding.CustomClassMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * fromMap(직접 대입) vs Firebase 리플렉션 변환 시간 비교
+ * 시간 측정은 기기/JIT 상태에 따라 흔들리므로 테스트가 아닌 main 으로 수동 실행
+ * (IDE 에서 실행하거나 test 클래스패스로 java 실행)
+ */
+public final class SnapshotMapperBenchmark {
+
+    private static final int RECORDS = 5_000;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int ROUNDS = 10;
+
+    private SnapshotMapperBenchmark() {}
+
+    public static void main(String[] args) {
+        List<Map<String, Object>> records = new ArrayList<>(RECORDS);
+        List<Map<String, Object>> items = new ArrayList<>(RECORDS);
+        for (int i = 0; i < RECORDS; i++) {
+            records.add(SnapshotMapperTest.nutritionValue(i));
+            items.add(SnapshotMapperTest.itemValue(i));
+        }
+
+        report("NutritionRecord", records, NutritionRecord.class, NutritionRecord::fromMap);
+        report("Item", items, Item.class, Item::fromMap);
+    }
+
+    private interface Mapper<T> {
+        T map(Map<String, Object> value);
+    }
+
+    private static <T> void report(String name, List<Map<String, Object>> values,
+                                   Class<T> type, Mapper<T> direct) {
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            timeReflective(values, type);
+            timeDirect(values, direct);
+        }
+
+        long reflectiveNs = Long.MAX_VALUE;
+        long directNs = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            reflectiveNs = Math.min(reflectiveNs, timeReflective(values, type));
+            directNs = Math.min(directNs, timeDirect(values, direct));
+        }
+
+        System.out.printf("%s x%d: reflective %.2f ms, fromMap %.2f ms (%.1fx)%n",
+                name, values.size(), reflectiveNs / 1e6, directNs / 1e6, (double) reflectiveNs / directNs);
+    }
+
+    private static <T> long timeReflective(List<Map<String, Object>> values, Class<T> type) {
+        long start = System.nanoTime();
+        int sink = 0;
+        for (Map<String, Object> value : values) {
+            sink += CustomClassMapper.convertToCustomClass(value, type).hashCode();
+        }
+        return consume(sink, System.nanoTime() - start);
+    }
+
+    private static <T> long timeDirect(List<Map<String, Object>> values, Mapper<T> direct) {
+        long start = System.nanoTime();
+        int sink = 0;
+        for (Map<String, Object> value : values) {
+            sink += direct.map(value).hashCode();
+        }
+        return consume(sink, System.nanoTime() - start);
+    }
+
+    // 결과를 쓰지 않으면 JIT 가 변환 자체를 없앨 수 있어 합계를 한 번 사용
+    private static long consume(int sink, long elapsedNs) {
+        if (sink == 42) {
+            System.out.print("");
+        }
+        return elapsedNs;
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.caloriehunter.data.model;
+
+import com.google.firebase.database.core.utilities.encoding.CustomClassMapper;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * fromMap(직접 대입)이 Firebase 리플렉션 변환과 같은 결과를 내는지 확인
+ * 스냅샷 getValue()가 주는 형태(Long/Double/String/Boolean Map)를 그대로 만들어 사용
+ */
+public class SnapshotMapperTest {
+
+    private static final int RECORDS = 20;
+
+    @Test
+    public void fromMap_matchesReflectivePath() {
+        Map<String, Object> itemValue = itemValue(7);
+        Item expected = CustomClassMapper.convertToCustomClass(itemValue, Item.class);
+        Item actual = Item.fromMap(itemValue);
+        assertEquals(expected.toMap(), actual.toMap());
+
+        Map<String, Object> recordValue = nutritionValue(7);
+        NutritionRecord expectedRecord = CustomClassMapper.convertToCustomClass(recordValue, NutritionRecord.class);
+        NutritionRecord actualRecord = NutritionRecord.fromMap(recordValue);
+        assertEquals(expectedRecord.toMap(), actualRecord.toMap());
+    }
+
+    @Test
+    public void fromMap_keepsConstructorDefaultsForMissingFields() {
+        Map<String, Object> value = new HashMap<>();
+        value.put("id", "item_1");
+        assertEquals(1, Item.fromMap(value).getQuantity());
+        assertEquals(1, CustomClassMapper.convertToCustomClass(value, Item.class).getQuantity());
+    }
+
+    @Test
+    public void templateAndInstance_rebuildFullItem() {
+        Item item = Item.fromMap(itemValue(3));
+        Map<String, Object> merged = new HashMap<>(item.toTemplateMap());
+        merged.putAll(item.toInstanceMap());
+        assertEquals(item.toMap(), Item.fromMap(merged).toMap());
+    }
+
+    @Test
+    public void nutritionRecords_matchReflectivePath() {
+        for (int i = 0; i < RECORDS; i++) {
+            Map<String, Object> value = nutritionValue(i);
+            NutritionRecord expected = CustomClassMapper.convertToCustomClass(value, NutritionRecord.class);
+            assertEquals(value.get("id").toString(), expected.toMap(), NutritionRecord.fromMap(value).toMap());
+        }
+    }
+
+    static Map<String, Object> itemValue(int i) {
+        Map<String, Object> value = new HashMap<>();
+        value.put("id", "item_" + i);
+        value.put("ownerId", "user");
+        value.put("name", "단백질 검 " + i);
+        value.put("type", "WEAPON");
+        value.put("foodName", "닭가슴살");
+        value.put("barcode", "880000000" + i);
+        value.put("attackPower", 12L + i);
+        value.put("healAmount", 0L);
+        value.put("buffPower", 0L);
+        value.put("defenseBoost", 0L);
+        value.put("durability", 9L);
+        value.put("maxDurability", 10L);
+        value.put("rarity", "rare");
+        value.put("quantity", 1L);
+        value.put("obtainedAt", 1_700_000_000_000L + i);
+        return value;
+    }
+
+    static Map<String, Object> nutritionValue(int i) {
+        Map<String, Object> value = new HashMap<>();
+        value.put("id", "record_" + i);
+        value.put("ownerId", "user");
+        value.put("date", "2025-12-18");
+        value.put("foodName", "음식 " + i);
+        value.put("calories", 250.5);
+        value.put("protein", 12L);
+        value.put("carbohydrate", 30.25);
+        value.put("fat", 8.5);
+        value.put("sugar", 14L);
+        value.put("sodium", 480L);
+        value.put("fiber", 3.5);
+        value.put("saturatedFat", 2.5);
+        value.put("transFat", 0L);
+        value.put("isHealthy", i % 2 == 0);
+        value.put("resultType", i % 2 == 0 ? "ITEM" : "MONSTER");
+        value.put("timestamp", 1_700_000_000_000L + i);
+        return value;
+    }
+}
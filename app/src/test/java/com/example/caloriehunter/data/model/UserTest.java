@@ -0,0 +1,39 @@
+package com.example.caloriehunter.data.model;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 서버에서 increment 로 먼저 더해진 경험치의 레벨 정리
+ */
+public class UserTest {
+
+    @Test
+    public void applyPendingLevelUps_settlesSeveralLevels() {
+        User user = User.createNewUser("uid", "닉네임");
+        int maxHp = user.getMaxHp();
+        // 1→2 에 100, 2→3 에 144 필요
+        user.setExp(100 + 144 + 5);
+
+        assertTrue(user.applyPendingLevelUps());
+
+        assertEquals(3, user.getLevel());
+        assertEquals(5, user.getExp());
+        assertEquals(maxHp + 20, user.getMaxHp());
+        assertEquals(user.getMaxHp(), user.getHp());
+    }
+
+    @Test
+    public void applyPendingLevelUps_belowThreshold_changesNothing() {
+        User user = User.createNewUser("uid", "닉네임");
+        user.setExp(user.getExpToNextLevel() - 1);
+
+        assertFalse(user.applyPendingLevelUps());
+
+        assertEquals(1, user.getLevel());
+        assertEquals(user.getExpToNextLevel() - 1, user.getExp());
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.caloriehunter.data.repository;
+
+import com.example.caloriehunter.data.model.NutritionData;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+import org.junit.Test;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 소스 헤지: 시작 지연, 기한, 신뢰도 기준, 기준 미달 대체, 취소, 이긴 횟수
+ * 소스는 미리 정한 Future 를 돌려주는 가짜 (SettableFuture 는 직접 완료하거나 취소 여부 확인)
+ */
+public class NutritionResolverTest {
+
+    private static final long NEVER_MS = 10_000;   // 테스트 동안 지연/기한이 오지 않음
+    private static final long WAIT_MS = 2_000;
+
+    @Test
+    public void fastFirstSource_winsBeforeHedgeDelay() throws Exception {
+        FakeSource local = FakeSource.answering(data(0.9f));
+        FakeSource network = FakeSource.answering(data(0.9f));
+        NutritionResolver resolver = new NutritionResolver.Builder()
+                .source("local", 0, NEVER_MS, local)
+                .source("network", NEVER_MS, NEVER_MS, network)
+                .build();
+
+        NutritionResolver.Result result = await(resolver.resolve("880"));
+
+        assertEquals("local", result.getWinner());
+        assertSame(local.answer, result.getData());
+        assertEquals(0, network.calls.get());
+        assertEquals(1, resolver.getWinCount("local"));
+        assertEquals(0, resolver.getWinCount("network"));
+    }
+
+    @Test
+    public void slowFirstSource_startsHedgeAfterDelay_andCancelsLoser() throws Exception {
+        SettableFuture<NutritionData> slow = SettableFuture.create();
+        FakeSource local = new FakeSource(slow);
+        FakeSource network = FakeSource.answering(data(0.9f));
+        NutritionResolver resolver = new NutritionResolver.Builder()
+                .source("local", 0, NEVER_MS, local)
+                .source("network", 50, NEVER_MS, network)
+                .build();
+
+        NutritionResolver.Result result = await(resolver.resolve("880"));
+
+        assertEquals("network", result.getWinner());
+        assertEquals(1, network.calls.get());
+        awaitCancelled(slow);
+    }
+
+    @Test
+    public void deadline_failsSlowSource_andStartsNextWithoutWaiting() throws Exception {
+        SettableFuture<NutritionData> hung = SettableFuture.create();
+        FakeSource local = new FakeSource(hung);
+        FakeSource network = FakeSource.answering(data(0.9f));
+        NutritionResolver resolver = new NutritionResolver.Builder()
+                .source("local", 0, 50, local)
+                .source("network", NEVER_MS, NEVER_MS, network)
+                .build();
+
+        // network 의 시작 지연(10초)을 기다리지 않고 기한 초과 직후 시작
+        NutritionResolver.Result result = await(resolver.resolve("880"));
+
+        assertEquals("network", result.getWinner());
+        assertTrue(result.getTimings().containsKey("local"));
+        awaitCancelled(hung);
+    }
+
+    @Test
+    public void resultBelowThreshold_startsNextSource() throws Exception {
+        FakeSource local = FakeSource.answering(data(0.3f));
+        FakeSource network = FakeSource.answering(data(0.9f));
+        NutritionResolver resolver = new NutritionResolver.Builder()
+                .source("local", 0, NEVER_MS, local)
+                .source("network", NEVER_MS, NEVER_MS, network)
+                .minConfidence(0.5f)
+                .build();
+
+        NutritionResolver.Result result = await(resolver.resolve("880"));
+
+        assertEquals("network", result.getWinner());
+        assertSame(network.answer, result.getData());
+    }
+
+    @Test
+    public void allBelowThreshold_returnsMostConfidentResult() throws Exception {
+        FakeSource local = FakeSource.answering(data(0.3f));
+        FakeSource network = FakeSource.answering(data(0.4f));
+        FakeSource gemini = FakeSource.failing("분석 실패");
+        NutritionResolver resolver = new NutritionResolver.Builder()
+                .source("local", 0, NEVER_MS, local)
+                .source("network", NEVER_MS, NEVER_MS, network)
+                .source("gemini", NEVER_MS, NEVER_MS, gemini)
+                .minConfidence(0.5f)
+                .build();
+
+        NutritionResolver.Result result = await(resolver.resolve("880"));
+
+        assertEquals("network", result.getWinner());
+        assertSame(network.answer, result.getData());
+        assertEquals(1, gemini.calls.get());
+        assertEquals(1, resolver.getWinCount("network"));
+    }
+
+    @Test
+    public void allFailed_failsWithResolveException() throws Exception {
+        NutritionResolver resolver = new NutritionResolver.Builder()
+                .source("local", 0, NEVER_MS, FakeSource.failing("로컬 캐시에 없음"))
+                .source("network", NEVER_MS, NEVER_MS, FakeSource.failing("제품 없음"))
+                .build();
+
+        try {
+            await(resolver.resolve("880"));
+            fail("모든 소스가 실패하면 실패해야 함");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof NutritionResolver.ResolveException);
+            assertTrue(e.getCause().getMessage().contains("제품 없음"));
+        }
+        assertEquals(0, resolver.getWinCount("local"));
+    }
+
+    @Test
+    public void cancellingResult_cancelsRunningAndScheduledSources() throws Exception {
+        SettableFuture<NutritionData> running = SettableFuture.create();
+        FakeSource local = new FakeSource(running);
+        FakeSource network = FakeSource.answering(data(0.9f));
+        NutritionResolver resolver = new NutritionResolver.Builder()
+                .source("local", 0, NEVER_MS, local)
+                .source("network", 100, NEVER_MS, network)
+                .build();
+
+        resolver.resolve("880").cancel(true);
+
+        awaitCancelled(running);
+        Thread.sleep(300);   // network 의 시작 지연이 지나도 시작하지 않음
+        assertEquals(0, network.calls.get());
+    }
+
+    private static NutritionData data(float confidence) {
+        return new NutritionData.Builder()
+                .foodName("두유")
+                .barcode("880")
+                .confidence(confidence)
+                .build();
+    }
+
+    private static NutritionResolver.Result await(ListenableFuture<NutritionResolver.Result> future) throws Exception {
+        return future.get(WAIT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    // 취소는 결과를 전달한 직후 같은 스레드에서 이어지므로 잠깐 기다림
+    private static void awaitCancelled(SettableFuture<?> future) throws InterruptedException {
+        long until = System.currentTimeMillis() + WAIT_MS;
+        while (!future.isCancelled() && System.currentTimeMillis() < until) {
+            Thread.sleep(5);
+        }
+        assertTrue(future.isCancelled());
+    }
+
+    private static final class FakeSource implements NutritionResolver.Source {
+        final AtomicInteger calls = new AtomicInteger();
+        final ListenableFuture<NutritionData> response;
+        final NutritionData answer;
+
+        FakeSource(ListenableFuture<NutritionData> response) {
+            this(response, null);
+        }
+
+        private FakeSource(ListenableFuture<NutritionData> response, NutritionData answer) {
+            this.response = response;
+            this.answer = answer;
+        }
+
+        static FakeSource answering(NutritionData answer) {
+            return new FakeSource(Futures.immediateFuture(answer), answer);
+        }
+
+        static FakeSource failing(String message) {
+            return new FakeSource(Futures.immediateFailedFuture(new FoodRepository.LookupException(message)));
+        }
+
+        @Override
+        public ListenableFuture<NutritionData> lookup(String barcode) {
+            calls.incrementAndGet();
+            return response;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.caloriehunter.data.repository;
+
+import com.example.caloriehunter.tools.productdb.ProductDbBuilder;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 오프라인 제품 DB 형식 읽기 (직접 만든 버퍼 + ProductDbBuilder 가 만든 파일)
+ */
+public class OfflineProductDbTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void indexOf_findsSortedRecordsByGtin() throws Exception {
+        OfflineProductDb db = OfflineProductDb.wrap(build(
+                new long[]{12345678905L, 8801234567890L, 8809999999999L},
+                new String[]{"콜라", "새우깡", "두유"}));
+
+        assertEquals(3, db.size());
+        int snack = db.indexOf("8801234567890");
+        assertEquals(1, snack);
+        assertEquals(8801234567890L, db.getGtin(snack));
+        assertEquals("새우깡", db.getName(snack));
+        assertEquals(3f, db.getProtein(snack), 0f);
+        assertEquals(10f, db.getSodium(snack), 0f);
+
+        // UPC-A 12자리와 앞에 0 붙은 EAN-13 은 같은 제품
+        assertEquals("콜라", db.getName(db.indexOf("012345678905")));
+        assertEquals("콜라", db.getName(db.indexOf("0012345678905")));
+        assertEquals("두유", db.getName(db.indexOf("8809999999999")));
+    }
+
+    @Test
+    public void indexOf_returnsMinusOneForMissingOrInvalid() throws Exception {
+        OfflineProductDb db = OfflineProductDb.wrap(build(new long[]{5L}, new String[]{"a"}));
+        assertEquals(-1, db.indexOf("6"));
+        assertEquals(-1, db.indexOf("88O1"));
+        assertEquals(-1, db.indexOf("123456789012345"));
+        assertEquals(-1, OfflineProductDb.parseGtin(""));
+    }
+
+    @Test
+    public void builderOutput_roundTrips() throws Exception {
+        File dump = temp.newFile("dump.tsv");
+        Files.write(dump.toPath(), String.join("\n",
+                "code\tproduct_name\tproduct_name_ko\tenergy-kcal_100g\tproteins_100g\tsaturated-fat_100g\tsodium_100g",
+                "8809999999999\tSoy milk\t두유\t55\t3.5\t0.4\t0.05",
+                "012345678905\tCola\t\t42\t0\t0\t0.01",
+                "8801234567890\tShrimp snack\t새우깡\t500\t6\t5\t0.6",
+                "8800000000000\tNo nutrition\t\t\t\t\t",
+                "8801234567890\tShrimp snack\t새우깡\t520\t6\t5\t0.6").getBytes(StandardCharsets.UTF_8));
+        File output = temp.newFile("products.pdb");
+
+        // 영양 정보 없는 행은 빠지고, 같은 GTIN 은 마지막 행
+        assertEquals(3, ProductDbBuilder.build(dump.getPath(), output.getPath()));
+
+        try (FileInputStream in = new FileInputStream(output);
+             FileChannel channel = in.getChannel()) {
+            OfflineProductDb db = OfflineProductDb.map(channel, 0, channel.size());
+            assertEquals(3, db.size());
+
+            int snack = db.indexOf("8801234567890");
+            assertTrue(snack >= 0);
+            assertEquals("새우깡", db.getName(snack));
+            assertEquals(520f, db.getCalories(snack), 0f);
+            assertEquals(5f, db.getSaturatedFat(snack), 0f);
+            assertEquals(600f, db.getSodium(snack), 0.01f);   // g → mg
+
+            assertEquals("Cola", db.getName(db.indexOf("12345678905")));
+            assertEquals("두유", db.getName(db.indexOf("8809999999999")));
+            assertEquals(-1, db.indexOf("8800000000000"));
+        }
+    }
+
+    // 영양소는 레코드 번호 i 기준 i+1, i+2 ... 로 채움
+    private static ByteBuffer build(long[] gtins, String[] names) {
+        byte[][] encoded = new byte[names.length][];
+        int namesSize = 0;
+        for (int i = 0; i < names.length; i++) {
+            encoded[i] = names[i].getBytes(StandardCharsets.UTF_8);
+            namesSize += 2 + encoded[i].length;
+        }
+        int namesOffset = OfflineProductDb.HEADER_SIZE + gtins.length * OfflineProductDb.RECORD_SIZE;
+        ByteBuffer buffer = ByteBuffer.allocate(namesOffset + namesSize);
+
+        buffer.putInt(OfflineProductDb.MAGIC)
+                .putInt(OfflineProductDb.VERSION)
+                .putInt(gtins.length)
+                .putInt(OfflineProductDb.RECORD_SIZE)
+                .putLong(namesOffset)
+                .putLong(0L);
+
+        int nameOffset = 0;
+        for (int i = 0; i < gtins.length; i++) {
+            buffer.putLong(gtins[i]);
+            for (int n = 0; n < 9; n++) {
+                buffer.putFloat(i + n + 1);
+            }
+            buffer.putInt(nameOffset);
+            nameOffset += 2 + encoded[i].length;
+        }
+        for (byte[] name : encoded) {
+            buffer.putShort((short) name.length).put(name);
+        }
+        buffer.clear();
+        return buffer;
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.caloriehunter.data.repository;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 쓰기 대기열 병합 규칙과 경로별 재시도/버림
+ */
+public class OutboundWriteQueueTest {
+
+    @Test
+    public void coalesce_childWriteUnderQueuedDelete_isDropped() {
+        Map<String, Object> writes = new LinkedHashMap<>();
+        Map<String, Long> times = new HashMap<>();
+
+        OutboundWriteQueue.coalesce(writes, times, "users/u/monsters/m1", null, 1L);
+        OutboundWriteQueue.coalesce(writes, times, "users/u/monsters/m1/status", "expired", 2L);
+
+        // 삭제가 그대로 남고 일부 필드만 가진 노드가 되살아나지 않음
+        assertEquals(1, writes.size());
+        assertTrue(writes.containsKey("users/u/monsters/m1"));
+        assertNull(writes.get("users/u/monsters/m1"));
+        assertFalse(writes.containsKey("users/u/monsters/m1/status"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void coalesce_childWriteUnderQueuedValue_isMerged() {
+        Map<String, Object> writes = new LinkedHashMap<>();
+        Map<String, Long> times = new HashMap<>();
+        Map<String, Object> monster = new HashMap<>();
+        monster.put("status", "active");
+
+        OutboundWriteQueue.coalesce(writes, times, "users/u/monsters/m1", monster, 1L);
+        OutboundWriteQueue.coalesce(writes, times, "users/u/monsters/m1/status", "defeated", 2L);
+
+        assertEquals(1, writes.size());
+        assertEquals("defeated", ((Map<String, Object>) writes.get("users/u/monsters/m1")).get("status"));
+    }
+
+    @Test
+    public void coalesce_incrementsOnSamePath_areSummed() {
+        Map<String, Object> writes = new LinkedHashMap<>();
+        Map<String, Long> times = new HashMap<>();
+
+        OutboundWriteQueue.coalesce(writes, times, "users/u/profile/exp", increment(30L), 1L);
+        OutboundWriteQueue.coalesce(writes, times, "users/u/profile/exp", increment(12L), 2L);
+
+        assertEquals(increment(42L), writes.get("users/u/profile/exp"));
+        assertEquals(Long.valueOf(1L), times.get("users/u/profile/exp"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void coalesce_incrementUnderQueuedValue_addsToValue() {
+        Map<String, Object> writes = new LinkedHashMap<>();
+        Map<String, Long> times = new HashMap<>();
+        Map<String, Object> item = new HashMap<>();
+        item.put("quantity", 3L);
+
+        OutboundWriteQueue.coalesce(writes, times, "users/u/inventory/i1", item, 1L);
+        OutboundWriteQueue.coalesce(writes, times, "users/u/inventory/i1/quantity", increment(-1L), 2L);
+
+        assertEquals(2L, ((Map<String, Object>) writes.get("users/u/inventory/i1")).get("quantity"));
+    }
+
+    @Test
+    public void coalesce_ancestorWrite_replacesQueuedChildren() {
+        Map<String, Object> writes = new LinkedHashMap<>();
+        Map<String, Long> times = new HashMap<>();
+
+        OutboundWriteQueue.coalesce(writes, times, "users/u/monsters/m1/status", "active", 1L);
+        OutboundWriteQueue.coalesce(writes, times, "users/u/monsters/m1/hp", 10L, 2L);
+        OutboundWriteQueue.coalesce(writes, times, "users/u/monsters/m1", null, 3L);
+
+        assertEquals(1, writes.size());
+        assertNull(writes.get("users/u/monsters/m1"));
+        // 대체된 하위 쓰기 중 가장 오래된 시각을 이어받음
+        assertEquals(Long.valueOf(1L), times.get("users/u/monsters/m1"));
+        assertEquals(1, times.size());
+    }
+
+    @Test
+    public void settlePaths_requeuesFailedAndClearsSucceeded() {
+        Map<String, Object> sent = new LinkedHashMap<>();
+        sent.put("users/u/a", 1L);
+        sent.put("users/u/b", 2L);
+        Map<String, Long> sentTimes = new HashMap<>();
+        sentTimes.put("users/u/a", 10L);
+        sentTimes.put("users/u/b", 20L);
+        Map<String, Integer> failures = new HashMap<>();
+        failures.put("users/u/a", 3);
+        Map<String, Object> retry = new LinkedHashMap<>();
+        Map<String, Long> retryTimes = new HashMap<>();
+        Map<String, String> dropped = new HashMap<>();
+
+        OutboundWriteQueue.settlePaths(sent, sentTimes, Collections.singletonMap("users/u/b", "denied"),
+                failures, retry, retryTimes, dropped);
+
+        assertEquals(Collections.singletonMap("users/u/b", (Object) 2L), retry);
+        assertEquals(Long.valueOf(20L), retryTimes.get("users/u/b"));
+        assertEquals(Integer.valueOf(1), failures.get("users/u/b"));
+        assertFalse(failures.containsKey("users/u/a"));
+        assertTrue(dropped.isEmpty());
+    }
+
+    @Test
+    public void settlePaths_dropsOnlyPathsAtMaxAttempts() {
+        Map<String, Object> sent = new LinkedHashMap<>();
+        sent.put("users/u/rejected", 1L);
+        sent.put("users/u/flaky", 2L);
+        Map<String, String> failed = new HashMap<>();
+        failed.put("users/u/rejected", "permission denied");
+        failed.put("users/u/flaky", "timeout");
+        Map<String, Integer> failures = new HashMap<>();
+        failures.put("users/u/rejected", OutboundWriteQueue.MAX_ATTEMPTS - 1);
+        Map<String, Object> retry = new LinkedHashMap<>();
+        Map<String, String> dropped = new HashMap<>();
+
+        OutboundWriteQueue.settlePaths(sent, new HashMap<>(), failed, failures, retry, new HashMap<>(), dropped);
+
+        assertEquals(Collections.singletonMap("users/u/rejected", "permission denied"), dropped);
+        assertEquals(Collections.singleton("users/u/flaky"), retry.keySet());
+        assertFalse(failures.containsKey("users/u/rejected"));
+    }
+
+    @Test
+    public void overlaps_matchesSameAncestorAndDescendantPaths() {
+        HashSet<String> waiter = new HashSet<>(Arrays.asList("users/u/profile/exp", "users/u/battleLogs/b1"));
+
+        assertTrue(OutboundWriteQueue.overlaps(waiter, Collections.singleton("users/u/profile/exp")));
+        assertTrue(OutboundWriteQueue.overlaps(waiter, Collections.singleton("users/u/battleLogs")));
+        assertTrue(OutboundWriteQueue.overlaps(waiter, Collections.singleton("users/u/battleLogs/b1/expGain")));
+        assertFalse(OutboundWriteQueue.overlaps(waiter, Collections.singleton("users/u/profile/expToNextLevel")));
+    }
+
+    private static Map<String, Object> increment(long delta) {
+        Map<String, Object> sv = new HashMap<>();
+        sv.put("increment", delta);
+        Map<String, Object> value = new HashMap<>();
+        value.put(".sv", sv);
+        return value;
+    }
+}
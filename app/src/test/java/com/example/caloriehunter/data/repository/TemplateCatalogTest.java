@@ -0,0 +1,102 @@
+package com.example.caloriehunter.data.repository;
+
+import com.example.caloriehunter.data.model.Item;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * 읽기 쪽 템플릿 합치기 (인스턴스 + templates/{barcode}/{kind}/{hash} → 전체 값)와 내용 해시
+ */
+public class TemplateCatalogTest {
+
+    @Test
+    public void merge_instanceWithTemplate_rebuildsFullItem() {
+        Item item = Item.fromMap(itemValue());
+
+        Map<String, Object> hydrated = TemplateCatalog.merge(compact(item), item.toTemplateMap());
+
+        assertEquals(item.toMap(), Item.fromMap(hydrated).toMap());
+    }
+
+    @Test
+    public void merge_instanceValuesWinOverTemplate() {
+        Item item = Item.fromMap(itemValue());
+        Map<String, Object> template = item.toTemplateMap();
+        Map<String, Object> instance = compact(item);
+        instance.put("durability", 3L);
+
+        Item hydrated = Item.fromMap(TemplateCatalog.merge(instance, template));
+
+        assertEquals(3, hydrated.getDurability());
+        assertEquals(item.getName(), hydrated.getName());
+    }
+
+    @Test
+    public void merge_fullValueOrUnknownTemplate_isReturnedAsIs() {
+        Item item = Item.fromMap(itemValue());
+        Map<String, Object> full = item.toMap();
+        Map<String, Object> instance = compact(item);
+
+        // 예전처럼 전체 저장된 값 (name 있음) 은 템플릿이 있어도 그대로
+        assertSame(full, TemplateCatalog.merge(full, item.toTemplateMap()));
+        // 템플릿을 아직 모르면 그대로
+        assertSame(instance, TemplateCatalog.merge(instance, null));
+    }
+
+    @Test
+    public void contentHash_sameAfterRtdbRoundTrip() {
+        Item item = Item.fromMap(itemValue());
+        Map<String, Object> written = item.toTemplateMap();
+        // RTDB 에서 읽으면 정수는 Long, null 필드는 빠짐
+        Map<String, Object> read = new HashMap<>();
+        for (Map.Entry<String, Object> entry : written.entrySet()) {
+            Object value = entry.getValue();
+            if (value == null) continue;
+            read.put(entry.getKey(), value instanceof Integer ? Long.valueOf((Integer) value) : value);
+        }
+
+        assertEquals(TemplateCatalog.contentHash(written), TemplateCatalog.contentHash(read));
+    }
+
+    @Test
+    public void contentHash_differsWhenStatsDiffer() {
+        Map<String, Object> other = itemValue();
+        other.put("attackPower", 15L);
+
+        assertNotEquals(TemplateCatalog.contentHash(Item.fromMap(itemValue()).toTemplateMap()),
+                TemplateCatalog.contentHash(Item.fromMap(other).toTemplateMap()));
+    }
+
+    private static Map<String, Object> compact(Item item) {
+        Map<String, Object> instance = item.toInstanceMap();
+        instance.put(TemplateCatalog.HASH_FIELD, TemplateCatalog.contentHash(item.toTemplateMap()));
+        return instance;
+    }
+
+    private static Map<String, Object> itemValue() {
+        Map<String, Object> value = new HashMap<>();
+        value.put("id", "item_1");
+        value.put("ownerId", "user");
+        value.put("name", "단백질 검");
+        value.put("type", "WEAPON");
+        value.put("foodName", "닭가슴살");
+        value.put("barcode", "8801234567890");
+        value.put("attackPower", 12L);
+        value.put("healAmount", 0L);
+        value.put("buffPower", 0L);
+        value.put("defenseBoost", 0L);
+        value.put("durability", 9L);
+        value.put("maxDurability", 10L);
+        value.put("rarity", "rare");
+        value.put("quantity", 1L);
+        value.put("obtainedAt", 1_700_000_000_000L);
+        return value;
+    }
+}
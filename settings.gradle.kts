@@ -15,3 +15,4 @@ dependencyResolutionManagement {
 
 rootProject.name = "CalorieHunter"
 include(":app")
+include(":tools:productdb")
@@ -0,0 +1,18 @@
+// 오프라인 제품 DB 빌더 (JVM 도구, 앱에는 포함되지 않음)
+// 사용: ./gradlew :tools:productdb:run --args="<덤프.csv|.tsv|.jsonl[.gz]> <출력.pdb>"
+plugins {
+    application
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_17
+    targetCompatibility = JavaVersion.VERSION_17
+}
+
+application {
+    mainClass.set("com.example.caloriehunter.tools.productdb.ProductDbBuilder")
+}
+
+dependencies {
+    implementation("com.google.code.gson:gson:2.10.1")
+}
@@ -0,0 +1,288 @@
+package com.example.caloriehunter.tools.productdb;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Open Food Facts 덤프 → 오프라인 제품 DB 파일 (앱의 OfflineProductDb 가 메모리 매핑해서 사용)
+ *
+ * 입력: OFF CSV 내보내기(탭 구분 .csv/.tsv) 또는 JSONL(.jsonl), 뒤에 .gz 가 붙으면 압축 해제하며 읽음
+ * 출력 형식 (v1, big-endian) 은 OfflineProductDb 와 같아야 함
+ * - 헤더 32바이트: magic "CHPD", version, recordCount, recordSize, namesOffset(long), builtAt(long)
+ * - 레코드 48바이트 × recordCount, GTIN 오름차순: gtin(long) + float 9개 + 이름 위치(int)
+ * - 이름 테이블: 길이(u16) + UTF-8 바이트 (같은 이름은 한 번만)
+ *
+ * 같은 GTIN 이 여러 번 나오면 마지막 행 사용, 영양 정보가 하나도 없는 행은 건너뜀
+ */
+public final class ProductDbBuilder {
+
+    private static final int MAGIC = 0x43485044;   // "CHPD"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int RECORD_SIZE = 48;
+
+    private static final int MAX_NAME_CHARS = 100;
+    private static final String UNKNOWN_NAME = "알 수 없는 제품";
+
+    // 영양소 순서 (레코드 float 순서와 같음), 나트륨은 OFF 덤프가 g 단위라 mg 로 변환
+    private static final String[] NUTRIENT_KEYS = {
+            "energy-kcal_100g", "proteins_100g", "fat_100g", "saturated-fat_100g", "trans-fat_100g",
+            "carbohydrates_100g", "sugars_100g", "fiber_100g", "sodium_100g"
+    };
+    private static final int SODIUM = 8;
+
+    private static final class Product {
+        final long gtin;
+        final String name;
+        final float[] nutrients;
+
+        Product(long gtin, String name, float[] nutrients) {
+            this.gtin = gtin;
+            this.name = name;
+            this.nutrients = nutrients;
+        }
+    }
+
+    private ProductDbBuilder() {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("사용법: ProductDbBuilder <덤프.csv|.tsv|.jsonl[.gz]> <출력.pdb>");
+            System.exit(2);
+        }
+
+        long start = System.nanoTime();
+        int count = build(args[0], args[1]);
+        System.out.printf("%d개 제품 → %s (%.1f초)%n", count, args[1], (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * 덤프 파일(input) 을 읽어 DB 파일(output) 작성, 기록한 제품 수 반환
+     */
+    public static int build(String input, String output) throws IOException {
+        Map<Long, Product> products = new HashMap<>();
+        String plainName = input.endsWith(".gz") ? input.substring(0, input.length() - 3) : input;
+        try (BufferedReader reader = open(input)) {
+            if (plainName.endsWith(".jsonl") || plainName.endsWith(".json")) {
+                readJsonLines(reader, products);
+            } else {
+                readDelimited(reader, products);
+            }
+        }
+
+        List<Product> sorted = new ArrayList<>(products.values());
+        sorted.sort((a, b) -> Long.compare(a.gtin, b.gtin));
+        write(sorted, output);
+        return sorted.size();
+    }
+
+    private static BufferedReader open(String path) throws IOException {
+        InputStream in = new FileInputStream(path);
+        if (path.endsWith(".gz")) in = new GZIPInputStream(in, 1 << 16);
+        return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16);
+    }
+
+    // ========== 입력 ==========
+
+    private static void readDelimited(BufferedReader reader, Map<Long, Product> out) throws IOException {
+        String headerLine = reader.readLine();
+        if (headerLine == null) return;
+        char delimiter = headerLine.indexOf('\t') >= 0 ? '\t' : ',';
+        List<String> header = split(headerLine, delimiter);
+
+        int codeColumn = header.indexOf("code");
+        int nameColumn = header.indexOf("product_name");
+        int koreanNameColumn = header.indexOf("product_name_ko");
+        int[] nutrientColumns = new int[NUTRIENT_KEYS.length];
+        for (int i = 0; i < NUTRIENT_KEYS.length; i++) {
+            nutrientColumns[i] = header.indexOf(NUTRIENT_KEYS[i]);
+        }
+        if (codeColumn < 0) throw new IOException("code 열이 없음");
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            List<String> row = split(line, delimiter);
+            float[] nutrients = new float[NUTRIENT_KEYS.length];
+            for (int i = 0; i < nutrientColumns.length; i++) {
+                nutrients[i] = parseFloat(column(row, nutrientColumns[i]));
+            }
+            add(out, column(row, codeColumn), column(row, koreanNameColumn), column(row, nameColumn), nutrients);
+        }
+    }
+
+    private static void readJsonLines(BufferedReader reader, Map<Long, Product> out) throws IOException {
+        String line;
+        long lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isEmpty()) continue;
+            JsonObject product;
+            try {
+                product = JsonParser.parseString(line).getAsJsonObject();
+            } catch (JsonParseException | IllegalStateException e) {
+                System.err.println(lineNumber + "행 건너뜀: " + e.getMessage());
+                continue;
+            }
+
+            JsonObject nutriments = product.has("nutriments") && product.get("nutriments").isJsonObject()
+                    ? product.getAsJsonObject("nutriments") : new JsonObject();
+            float[] nutrients = new float[NUTRIENT_KEYS.length];
+            for (int i = 0; i < NUTRIENT_KEYS.length; i++) {
+                nutrients[i] = parseFloat(string(nutriments.get(NUTRIENT_KEYS[i])));
+            }
+            add(out, string(product.get("code")), string(product.get("product_name_ko")),
+                    string(product.get("product_name")), nutrients);
+        }
+    }
+
+    private static void add(Map<Long, Product> out, String code, String koreanName, String name, float[] nutrients) {
+        long gtin = parseGtin(code);
+        if (gtin < 0) return;
+
+        boolean hasNutrition = false;
+        for (float value : nutrients) {
+            if (value > 0) {
+                hasNutrition = true;
+                break;
+            }
+        }
+        if (!hasNutrition) return;
+
+        nutrients[SODIUM] *= 1000;
+        out.put(gtin, new Product(gtin, displayName(koreanName, name), nutrients));
+    }
+
+    /**
+     * 앱과 같은 규칙 (숫자 1~14자리만, 앞자리 0 무시)
+     */
+    private static long parseGtin(String code) {
+        if (code == null) return -1;
+        String trimmed = code.trim();
+        if (trimmed.isEmpty() || trimmed.length() > 14) return -1;
+        long value = 0;
+        for (int i = 0; i < trimmed.length(); i++) {
+            char c = trimmed.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static String displayName(String koreanName, String name) {
+        String chosen = koreanName != null && !koreanName.isBlank() ? koreanName : name;
+        if (chosen == null || chosen.isBlank()) return UNKNOWN_NAME;
+        chosen = chosen.trim();
+        return chosen.length() > MAX_NAME_CHARS ? chosen.substring(0, MAX_NAME_CHARS) : chosen;
+    }
+
+    private static float parseFloat(String value) {
+        if (value == null || value.isEmpty()) return 0;
+        try {
+            float parsed = Float.parseFloat(value.trim());
+            return Float.isFinite(parsed) && parsed > 0 ? parsed : 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static String string(JsonElement element) {
+        return element != null && element.isJsonPrimitive() ? element.getAsString() : null;
+    }
+
+    private static String column(List<String> row, int index) {
+        return index >= 0 && index < row.size() ? row.get(index) : null;
+    }
+
+    /**
+     * 한 행 분리 (따옴표로 감싼 값 안의 구분자/"" 처리, OFF 탭 구분 파일은 따옴표 없음)
+     */
+    private static List<String> split(String line, char delimiter) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"' && current.length() == 0) {
+                quoted = true;
+            } else if (c == delimiter) {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString());
+        return values;
+    }
+
+    // ========== 출력 ==========
+
+    private static void write(List<Product> products, String path) throws IOException {
+        // 이름 테이블을 먼저 만들어 각 레코드의 이름 위치를 정함
+        ByteArrayOutputStream names = new ByteArrayOutputStream();
+        DataOutputStream namesOut = new DataOutputStream(names);
+        Map<String, Integer> nameOffsets = new HashMap<>();
+        int[] recordNameOffsets = new int[products.size()];
+        for (int i = 0; i < products.size(); i++) {
+            String name = products.get(i).name;
+            Integer offset = nameOffsets.get(name);
+            if (offset == null) {
+                offset = names.size();
+                byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+                namesOut.writeShort(Math.min(bytes.length, 0xFFFF));
+                namesOut.write(bytes, 0, Math.min(bytes.length, 0xFFFF));
+                nameOffsets.put(name, offset);
+            }
+            recordNameOffsets[i] = offset;
+        }
+
+        long namesOffset = HEADER_SIZE + (long) products.size() * RECORD_SIZE;
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(path), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(products.size());
+            out.writeInt(RECORD_SIZE);
+            out.writeLong(namesOffset);
+            out.writeLong(System.currentTimeMillis());
+
+            for (int i = 0; i < products.size(); i++) {
+                Product product = products.get(i);
+                out.writeLong(product.gtin);
+                for (float value : product.nutrients) {
+                    out.writeFloat(value);
+                }
+                out.writeInt(recordNameOffsets[i]);
+            }
+
+            names.writeTo(out);
+        }
+    }
+}